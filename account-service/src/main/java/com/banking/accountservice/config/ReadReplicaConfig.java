@@ -0,0 +1,105 @@
+package com.banking.accountservice.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured DataSource with primary + replica pools when
+ * banking.datasource.replicas.enabled=true (see ReplicaRoutingDataSource).
+ *
+ * The primary pool is built from spring.datasource.* and spring.datasource.hikari.* as before.
+ * Replicas share the driver and, unless overridden, the credentials of the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "banking.datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Value("${banking.datasource.replicas.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${banking.datasource.replicas.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${banking.datasource.replicas.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${banking.datasource.replicas.max-pool-size:10}")
+    private int replicaMaxPoolSize;
+
+    // Short, so a dead replica is given up on quickly and the read moves to the primary
+    @Value("${banking.datasource.replicas.connection-timeout-ms:1000}")
+    private long replicaConnectionTimeoutMs;
+
+    @Value("${banking.datasource.replicas.max-lag-ms:5000}")
+    private long maxLagMs;
+
+    @Value("${banking.datasource.replicas.check-interval-ms:2000}")
+    private long checkIntervalMs;
+
+    @Value("${banking.datasource.replicas.lag-query}")
+    private String lagQuery;
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties,
+                                                             Environment environment,
+                                                             MeterRegistry meterRegistry) {
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        HikariConfig primaryConfig = new HikariConfig();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primaryConfig));
+        primaryConfig.setJdbcUrl(properties.determineUrl());
+        primaryConfig.setUsername(properties.determineUsername());
+        primaryConfig.setPassword(properties.determinePassword());
+        primaryConfig.setDriverClassName(properties.determineDriverClassName());
+        primaryConfig.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        primaryConfig.setMetricsTrackerFactory(metrics);
+
+        List<HikariDataSource> replicaPools = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig replicaConfig = new HikariConfig();
+            replicaConfig.setJdbcUrl(url.trim());
+            replicaConfig.setUsername(replicaUsername);
+            replicaConfig.setPassword(replicaPassword);
+            replicaConfig.setDriverClassName(properties.determineDriverClassName());
+            replicaConfig.setPoolName("replica-" + (replicaPools.size() + 1));
+            replicaConfig.setMaximumPoolSize(replicaMaxPoolSize);
+            replicaConfig.setConnectionTimeout(replicaConnectionTimeoutMs);
+            replicaConfig.setReadOnly(true);
+            // A replica that is down at startup must not stop the service; the lag check keeps it out
+            replicaConfig.setInitializationFailTimeout(-1);
+            replicaConfig.setMetricsTrackerFactory(metrics);
+            replicaPools.add(new HikariDataSource(replicaConfig));
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                new HikariDataSource(primaryConfig), replicaPools, lagQuery, maxLagMs, meterRegistry);
+        routing.start(checkIntervalMs);
+        return routing;
+    }
+
+    // The one DataSource JPA, JdbcTemplate and the transaction manager see
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,181 @@
+package com.banking.accountservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to replica pools and everything else to the primary pool.
+ *
+ * Meant to sit behind a LazyConnectionDataSourceProxy: the connection is then only fetched for
+ * the first statement, after Spring has marked the transaction read-only or not. Healthy replicas
+ * are used round-robin. A periodic check marks a replica down when its lag query fails or reports
+ * more than maxLagMs, and a replica that cannot hand out a connection is marked down on the spot;
+ * with no healthy replica left the read runs on the primary.
+ * Each target is its own Hikari pool, so hikari.* meters come tagged pool=primary / replica-N.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public static final String PRIMARY = "primary";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final String lagQuery;
+    private final long maxLagMs;
+    private final MeterRegistry meterRegistry;
+    private final Counter primaryRouted;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private ScheduledExecutorService checker;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary,
+                                    List<HikariDataSource> replicaPools,
+                                    String lagQuery,
+                                    long maxLagMs,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLagMs;
+        this.meterRegistry = meterRegistry;
+        this.primaryRouted = routedCounter(PRIMARY);
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicas.isEmpty()) {
+            return primaryConnection();
+        }
+        boolean anyHealthy = false;
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.healthy) {
+                continue;
+            }
+            anyHealthy = true;
+            try {
+                Connection connection = replica.pool.getConnection();
+                replica.routed.increment();
+                return connection;
+            } catch (SQLException e) {
+                markDown(replica, "connection failed: " + e.getMessage());
+            }
+        }
+        fallback(anyHealthy ? "connection_failure" : "unavailable");
+        return primaryConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credentials are configured per pool");
+    }
+
+    // Runs the lag query on every replica; only replicas within maxLagMs receive reads
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                long lagMs = rs.next() ? rs.getLong(1) : 0L;
+                replica.lagMs = lagMs;
+                if (lagMs > maxLagMs) {
+                    markDown(replica, "lag " + lagMs + " ms is over " + maxLagMs + " ms");
+                } else if (!replica.healthy) {
+                    replica.healthy = true;
+                    logger.info("Replica {} is back in rotation (lag {} ms)", replica.name, lagMs);
+                }
+            } catch (SQLException e) {
+                replica.lagMs = -1;
+                markDown(replica, "lag check failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public void start(long checkIntervalMs) {
+        checkReplicas();
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(this::checkReplicas, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+
+    private Connection primaryConnection() throws SQLException {
+        Connection connection = primary.getConnection();
+        primaryRouted.increment();
+        return connection;
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            logger.warn("Taking replica {} out of rotation: {}", replica.name, reason);
+        }
+        replica.healthy = false;
+    }
+
+    private void fallback(String reason) {
+        meterRegistry.counter("accounts.datasource.replica.fallbacks", "reason", reason).increment();
+    }
+
+    private Counter routedCounter(String target) {
+        return Counter.builder("accounts.datasource.connections.routed")
+                .description("Connections handed out per routing target")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    private final class Replica {
+
+        final String name;
+        final HikariDataSource pool;
+        final Counter routed;
+        // Out of rotation until the first check has passed
+        volatile boolean healthy;
+        volatile long lagMs = -1;
+
+        Replica(HikariDataSource pool) {
+            this.name = pool.getPoolName();
+            this.pool = pool;
+            this.routed = routedCounter(name);
+            Gauge.builder("accounts.datasource.replica.lag", this, r -> r.lagMs)
+                    .description("Replication lag reported by the last check in milliseconds, -1 when it failed")
+                    .baseUnit("milliseconds")
+                    .tag("target", name)
+                    .register(meterRegistry);
+            Gauge.builder("accounts.datasource.replica.healthy", this, r -> r.healthy ? 1 : 0)
+                    .description("1 while the replica receives reads")
+                    .tag("target", name)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.banking.accountservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Consumer side of the transfer-command path, only when banking.accounts.transfer-commands.enabled=true
+@Configuration
+@ConditionalOnProperty(name = "banking.accounts.transfer-commands.enabled", havingValue = "true")
+public class TransferCommandKafkaConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${banking.kafka.topic.transfer-commands:account-transfer-commands}")
+    private String commandTopic;
+
+    @Value("${banking.kafka.topic.transfer-results:account-transfer-results}")
+    private String resultTopic;
+
+    @Value("${banking.accounts.transfer-commands.group-id:account-service-transfers}")
+    private String groupId;
+
+    @Value("${banking.accounts.transfer-commands.partitions:12}")
+    private int partitions;
+
+    @Value("${banking.accounts.transfer-commands.concurrency:4}")
+    private int concurrency;
+
+    @Value("${banking.accounts.transfer-commands.batch-size:500}")
+    private int batchSize;
+
+    @Value("${banking.accounts.transfer-commands.fetch-max-wait-ms:20}")
+    private int fetchMaxWaitMs;
+
+    // Commands are keyed by fromAccountId, so the partition count caps the number of writer threads
+    @Bean
+    public NewTopic transferCommandTopic() {
+        return TopicBuilder.name(commandTopic).partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic transferResultTopic() {
+        return TopicBuilder.name(resultTopic).partitions(partitions).build();
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> transferCommandListenerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        // One poll is one micro-batch: up to batch-size commands, waiting briefly for more to arrive
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        configProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 64 * 1024);
+        configProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(configProps));
+        factory.setBatchListener(true);
+        // Each thread owns its partitions, hence every account's debits
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        // A failed batch (database or reply topic down) is redelivered until it goes through;
+        // deduplication makes the retries safe
+        ExponentialBackOff backOff = new ExponentialBackOff(200, 2.0);
+        backOff.setMaxInterval(30_000);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+        return factory;
+    }
+}
@@ -3,12 +3,24 @@ package com.banking.accountservice.controller;
 
 import com.banking.accountservice.dto.AccountCreationDto;
 import com.banking.accountservice.dto.AccountResponseDto;
+import com.banking.accountservice.dto.BatchTransferResultDto;
+import com.banking.accountservice.dto.TransferRequestDto;
+import com.banking.accountservice.dto.TransferResultDto;
 import com.banking.accountservice.service.AccountService;
+import com.banking.accountservice.service.BatchTransferService;
+import com.banking.accountservice.service.HotAccountService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
@@ -21,6 +33,18 @@ public class AccountController {
     @Autowired
     AccountService accountService;
 
+    @Autowired
+    BatchTransferService batchTransferService;
+
+    @Autowired
+    HotAccountService hotAccountService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${banking.accounts.page.default-limit:100}")
+    int defaultPageLimit;
+
     //1. Create a new Account
     @PostMapping("/accounts")
     public ResponseEntity<AccountResponseDto> createAccount(@RequestBody AccountCreationDto account) {
@@ -35,13 +59,56 @@ public class AccountController {
         return ResponseEntity.ok(response);
     }
 
-    //3. Get All Account for a User
+    //2b. Get many accounts by ID in one call (unknown IDs are omitted)
+    @PostMapping("/accounts/lookup")
+    public ResponseEntity<List<AccountResponseDto>> lookupAccounts(@RequestBody List<UUID> accountIds) {
+        List<AccountResponseDto> response = accountService.getAccountsByIds(accountIds);
+        return ResponseEntity.ok(response);
+    }
+
+    //2c. Every account's status and balance, one keyset page at a time: pass the last accountId as after
+    @GetMapping("/accounts/snapshot")
+    public ResponseEntity<List<AccountResponseDto>> getAccountSnapshot(
+            @RequestParam(required = false) UUID after,
+            @RequestParam(required = false) Integer limit) {
+        List<AccountResponseDto> response = accountService.getAccountSnapshot(after, limit != null ? limit : defaultPageLimit);
+        return ResponseEntity.ok(response);
+    }
+
+    //3. Get All Account for a User (or one keyset page of them when after/limit is given)
     @GetMapping("/users/{userId}/accounts")
-    public ResponseEntity<List<AccountResponseDto>> getAccountByUserId(@PathVariable UUID userId) {
-        List<AccountResponseDto> response = accountService.getAccountsByUserId(userId);
+    public ResponseEntity<List<AccountResponseDto>> getAccountByUserId(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) UUID after,
+            @RequestParam(required = false) Integer limit) {
+        List<AccountResponseDto> response = after == null && limit == null
+                ? accountService.getAccountsByUserId(userId)
+                : accountService.getAccountsByUserId(userId, after, limit != null ? limit : defaultPageLimit);
         return ResponseEntity.ok(response);
     }
 
+    //3b. Stream All Accounts for a User as newline-delimited JSON, written while they are read
+    @GetMapping("/users/{userId}/accounts/stream")
+    public ResponseEntity<StreamingResponseBody> streamAccountsByUserId(@PathVariable UUID userId) {
+        // 404 for an unknown user, as for the list above
+        accountService.requireAccountsForUser(userId);
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            // One object per line, without Jackson's default space between root values
+            generator.setRootValueSeparator(null);
+            accountService.streamAccountsByUserId(userId, account -> {
+                try {
+                    generator.writeObject(account);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
     //4. Update Account Balance
 //    @PutMapping("/accounts/{accountId}/balance")
 //    public ResponseEntity<AccountResponseDto> updateAccountBalance(
@@ -68,4 +135,44 @@ public class AccountController {
         response.put("message", "Account updated successfully.");
         return ResponseEntity.ok(response);
     }
+
+    //5b. Transfer in one call: funds/status problems come back as a result code with 200, not as an error
+    @PostMapping("/accounts/transfers")
+    public ResponseEntity<TransferResultDto> executeTransfer(@RequestBody TransferRequestDto transfer) {
+        TransferResultDto response = accountService.executeTransfer(
+                transfer.getFromAccountId(), transfer.getToAccountId(), transfer.getAmount());
+        return ResponseEntity.ok(response);
+    }
+
+    //6. Apply many transfers in one call, one result per item in request order
+    @PostMapping("/accounts/transfers/batch")
+    public ResponseEntity<List<BatchTransferResultDto>> transferBatch(
+            @RequestBody List<TransferRequestDto> transfers) {
+        List<BatchTransferResultDto> response = batchTransferService.transferBatch(transfers);
+        return ResponseEntity.ok(response);
+    }
+
+    //7. Hot accounts: list, mark (credits spread over N sub-balances) and unmark
+    @GetMapping("/admin/accounts/hot")
+    public ResponseEntity<Map<UUID, Integer>> getHotAccounts() {
+        return ResponseEntity.ok(hotAccountService.hotAccounts());
+    }
+
+    @PutMapping("/admin/accounts/{accountId}/hot")
+    public ResponseEntity<Map<String, String>> markHot(@PathVariable UUID accountId,
+                                                      @RequestParam(required = false) Integer buckets) {
+        int count = buckets != null ? buckets : hotAccountService.defaultBuckets();
+        hotAccountService.markHot(accountId, count);
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Account marked hot with " + count + " buckets.");
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/admin/accounts/{accountId}/hot")
+    public ResponseEntity<Map<String, String>> unmarkHot(@PathVariable UUID accountId) {
+        hotAccountService.unmarkHot(accountId);
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Account is no longer hot.");
+        return ResponseEntity.ok(response);
+    }
 }
@@ -0,0 +1,95 @@
+package com.banking.accountservice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Payload published to banking.kafka.topic.balance-events, keyed by accountId
+public class BalanceChangedEventDto {
+    private long eventId;
+    private UUID accountId;
+    private String type;
+    private BigDecimal amount;
+    private BigDecimal balance;
+    private String status;
+    private UUID transferId;
+    private LocalDateTime occurredAt;
+
+    public BalanceChangedEventDto() {}
+
+    public BalanceChangedEventDto(long eventId, UUID accountId, String type, BigDecimal amount, BigDecimal balance,
+                                  String status, UUID transferId, LocalDateTime occurredAt) {
+        this.eventId = eventId;
+        this.accountId = accountId;
+        this.type = type;
+        this.amount = amount;
+        this.balance = balance;
+        this.status = status;
+        this.transferId = transferId;
+        this.occurredAt = occurredAt;
+    }
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(long eventId) {
+        this.eventId = eventId;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(UUID accountId) {
+        this.accountId = accountId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public UUID getTransferId() {
+        return transferId;
+    }
+
+    public void setTransferId(UUID transferId) {
+        this.transferId = transferId;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(LocalDateTime occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+}
@@ -0,0 +1,69 @@
+package com.banking.accountservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+// One entry per item of POST /accounts/transfers/batch, in request order
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchTransferResultDto {
+    public enum Status {
+        SUCCESS, FAILED
+    }
+
+    private int index;
+    private UUID fromAccountId;
+    private UUID toAccountId;
+    private Status status;
+    private String message;
+
+    public BatchTransferResultDto() {}
+
+    public BatchTransferResultDto(int index, UUID fromAccountId, UUID toAccountId, Status status, String message) {
+        this.index = index;
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.status = status;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public UUID getFromAccountId() {
+        return fromAccountId;
+    }
+
+    public void setFromAccountId(UUID fromAccountId) {
+        this.fromAccountId = fromAccountId;
+    }
+
+    public UUID getToAccountId() {
+        return toAccountId;
+    }
+
+    public void setToAccountId(UUID toAccountId) {
+        this.toAccountId = toAccountId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
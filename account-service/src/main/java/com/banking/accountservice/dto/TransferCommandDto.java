@@ -0,0 +1,25 @@
+package com.banking.accountservice.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Payload of banking.kafka.topic.transfer-commands, keyed by fromAccountId. commandId is chosen by
+// the sender and makes redelivered or resent commands apply once.
+public class TransferCommandDto extends TransferRequestDto {
+    private UUID commandId;
+
+    public TransferCommandDto() {}
+
+    public TransferCommandDto(UUID commandId, UUID fromAccountId, UUID toAccountId, BigDecimal amount) {
+        super(fromAccountId, toAccountId, amount);
+        this.commandId = commandId;
+    }
+
+    public UUID getCommandId() {
+        return commandId;
+    }
+
+    public void setCommandId(UUID commandId) {
+        this.commandId = commandId;
+    }
+}
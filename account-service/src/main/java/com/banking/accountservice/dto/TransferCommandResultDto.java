@@ -0,0 +1,100 @@
+package com.banking.accountservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Payload of banking.kafka.topic.transfer-results, one per received command (duplicates included)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransferCommandResultDto {
+    private UUID commandId;
+    private UUID fromAccountId;
+    private UUID toAccountId;
+    private BigDecimal amount;
+    private BatchTransferResultDto.Status status;
+    private String message;
+    // True when the command had already been applied; status and message are from that time
+    private boolean duplicate;
+    private LocalDateTime processedAt;
+
+    public TransferCommandResultDto() {}
+
+    public TransferCommandResultDto(UUID commandId, UUID fromAccountId, UUID toAccountId, BigDecimal amount,
+                                    BatchTransferResultDto.Status status, String message, boolean duplicate,
+                                    LocalDateTime processedAt) {
+        this.commandId = commandId;
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.amount = amount;
+        this.status = status;
+        this.message = message;
+        this.duplicate = duplicate;
+        this.processedAt = processedAt;
+    }
+
+    public UUID getCommandId() {
+        return commandId;
+    }
+
+    public void setCommandId(UUID commandId) {
+        this.commandId = commandId;
+    }
+
+    public UUID getFromAccountId() {
+        return fromAccountId;
+    }
+
+    public void setFromAccountId(UUID fromAccountId) {
+        this.fromAccountId = fromAccountId;
+    }
+
+    public UUID getToAccountId() {
+        return toAccountId;
+    }
+
+    public void setToAccountId(UUID toAccountId) {
+        this.toAccountId = toAccountId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public BatchTransferResultDto.Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(BatchTransferResultDto.Status status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public boolean isDuplicate() {
+        return duplicate;
+    }
+
+    public void setDuplicate(boolean duplicate) {
+        this.duplicate = duplicate;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(LocalDateTime processedAt) {
+        this.processedAt = processedAt;
+    }
+}
@@ -0,0 +1,49 @@
+package com.banking.accountservice.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public class TransferRequestDto {
+    @NotNull(message = "From account ID cannot be null")
+    private UUID fromAccountId;
+
+    @NotNull(message = "To account ID cannot be null")
+    private UUID toAccountId;
+
+    @NotNull(message = "Amount cannot be null")
+    private BigDecimal amount;
+
+    public TransferRequestDto() {}
+
+    public TransferRequestDto(UUID fromAccountId, UUID toAccountId, BigDecimal amount) {
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.amount = amount;
+    }
+
+    public UUID getFromAccountId() {
+        return fromAccountId;
+    }
+
+    public void setFromAccountId(UUID fromAccountId) {
+        this.fromAccountId = fromAccountId;
+    }
+
+    public UUID getToAccountId() {
+        return toAccountId;
+    }
+
+    public void setToAccountId(UUID toAccountId) {
+        this.toAccountId = toAccountId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,92 @@
+package com.banking.accountservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Response of POST /accounts/transfers: a result code instead of an error status, and on success the
+// balances of both accounts right after the transfer
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransferResultDto {
+    public enum Code {
+        SUCCESS, INSUFFICIENT_FUNDS, ACCOUNT_INACTIVE, ACCOUNT_NOT_FOUND, INVALID_REQUEST
+    }
+
+    private Code code;
+    private String message;
+    private UUID fromAccountId;
+    private UUID toAccountId;
+    private BigDecimal amount;
+    private BigDecimal fromBalance;
+    private BigDecimal toBalance;
+
+    public TransferResultDto() {}
+
+    public TransferResultDto(Code code, String message, UUID fromAccountId, UUID toAccountId, BigDecimal amount,
+                             BigDecimal fromBalance, BigDecimal toBalance) {
+        this.code = code;
+        this.message = message;
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.amount = amount;
+        this.fromBalance = fromBalance;
+        this.toBalance = toBalance;
+    }
+
+    public Code getCode() {
+        return code;
+    }
+
+    public void setCode(Code code) {
+        this.code = code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public UUID getFromAccountId() {
+        return fromAccountId;
+    }
+
+    public void setFromAccountId(UUID fromAccountId) {
+        this.fromAccountId = fromAccountId;
+    }
+
+    public UUID getToAccountId() {
+        return toAccountId;
+    }
+
+    public void setToAccountId(UUID toAccountId) {
+        this.toAccountId = toAccountId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public BigDecimal getFromBalance() {
+        return fromBalance;
+    }
+
+    public void setFromBalance(BigDecimal fromBalance) {
+        this.fromBalance = fromBalance;
+    }
+
+    public BigDecimal getToBalance() {
+        return toBalance;
+    }
+
+    public void setToBalance(BigDecimal toBalance) {
+        this.toBalance = toBalance;
+    }
+}
@@ -0,0 +1,8 @@
+package com.banking.accountservice.exception;
+
+// Subclass of InvalidAccountDataException so it is still reported as 400 Bad Request
+public class InsufficientFundsException extends InvalidAccountDataException {
+    public InsufficientFundsException(String message) {
+        super(message);
+    }
+}
@@ -9,7 +9,12 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "accounts")
+@Table(name = "accounts", indexes = {
+        // Serves the stale-account inactivation job
+        @Index(name = "idx_accounts_status_last_tx", columnList = "status, last_transaction_date"),
+        // Keyset pages of a user's accounts (WHERE user_id = ? AND account_id > ? ORDER BY account_id)
+        @Index(name = "idx_accounts_user_account", columnList = "user_id, account_id")
+})
 public class Account {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -48,6 +53,15 @@ public class Account {
     @Column(name="last_transaction_date")
     private LocalDateTime lastTransactionDate;
 
+    // Optimistic lock for the read-modify-write balance path; the atomic UPDATE queries bump it too
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version = 0L;
+
+    // Journal mode: id of the last account_journal entry already folded into balance
+    @Column(name = "journal_position", nullable = false, columnDefinition = "bigint default 0")
+    private Long journalPosition = 0L;
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
@@ -141,4 +155,20 @@ public class Account {
     public void setLastTransactionDate(LocalDateTime lastTransactionDate) {
         this.lastTransactionDate = lastTransactionDate;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getJournalPosition() {
+        return journalPosition;
+    }
+
+    public void setJournalPosition(Long journalPosition) {
+        this.journalPosition = journalPosition;
+    }
 }
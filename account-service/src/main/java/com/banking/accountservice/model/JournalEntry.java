@@ -0,0 +1,71 @@
+package com.banking.accountservice.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One row of the append-only balance journal (banking.accounts.journal.enabled=true).
+ * Rows are written with JDBC batch inserts by JournalBalanceStore; the entity only defines the table.
+ */
+@Entity
+@Table(name = "account_journal", indexes = {
+        @Index(name = "idx_account_journal_account_entry", columnList = "account_id, entry_id")
+})
+public class JournalEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "entry_id")
+    private Long entryId;
+
+    @Column(name = "account_id", columnDefinition = "uuid", nullable = false, updatable = false)
+    private UUID accountId;
+
+    // Shared by the debit and credit rows of one transfer, null for single-account entries
+    @Column(name = "transfer_id", columnDefinition = "uuid", updatable = false)
+    private UUID transferId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, updatable = false, length = 16)
+    private EntryType entryType;
+
+    // Signed: debits are negative
+    @Column(nullable = false, updatable = false, precision = 15, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public enum EntryType {
+        OPENING, DEBIT, CREDIT, ADJUSTMENT
+    }
+
+    public JournalEntry() {}
+
+    public Long getEntryId() {
+        return entryId;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public UUID getTransferId() {
+        return transferId;
+    }
+
+    public EntryType getEntryType() {
+        return entryType;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,116 @@
+package com.banking.accountservice.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money as a whole number of cents, for the transfer and validation paths.
+ *
+ * BigDecimal is only used at the edges (JSON in, JPA/JDBC out); in between, comparisons and
+ * arithmetic are plain long operations. The range matches the numeric(15, 2) balance and amount
+ * columns, and every operation that would leave it throws ArithmeticException instead of wrapping.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+
+    // numeric(15, 2): at most 13 integer digits
+    public static final long MAX_CENTS = 999_999_999_999_999L;
+
+    public static final Money ZERO = new Money(0L);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return new Money(checkRange(cents));
+    }
+
+    // Rejects amounts with more than two decimal places rather than silently rounding them
+    public static Money of(BigDecimal amount) {
+        if (amount == null) {
+            throw new ArithmeticException("Amount is required");
+        }
+        BigDecimal scaled;
+        try {
+            scaled = amount.setScale(SCALE, RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Amount cannot have more than " + SCALE + " decimal places: " + amount);
+        }
+        if (scaled.precision() > 18) {
+            throw new ArithmeticException("Amount out of range: " + amount);
+        }
+        return ofCents(scaled.unscaledValue().longValue());
+    }
+
+    public long cents() {
+        return cents;
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return new Money(-cents);
+    }
+
+    public int signum() {
+        return Long.signum(cents);
+    }
+
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    public boolean isNegative() {
+        return cents < 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return cents < other.cents;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && cents == other.cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    // Static forms for code that keeps raw cents in fields and must not allocate per operation
+    public static long addCents(long a, long b) {
+        return checkRange(Math.addExact(a, b));
+    }
+
+    private static long checkRange(long cents) {
+        if (cents > MAX_CENTS || cents < -MAX_CENTS) {
+            throw new ArithmeticException("Amount out of range: " + BigDecimal.valueOf(cents, SCALE));
+        }
+        return cents;
+    }
+}
@@ -0,0 +1,87 @@
+package com.banking.accountservice.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A BalanceChanged event waiting to be published (transactional outbox).
+ * Rows are inserted by BalanceOutbox in the transaction that changes the balance and deleted by
+ * OutboxRelay once Kafka has acknowledged them; the entity only defines the table.
+ */
+@Entity
+@Table(name = "account_outbox")
+public class OutboxEvent {
+
+    // Publish order
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(name = "account_id", columnDefinition = "uuid", nullable = false, updatable = false)
+    private UUID accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, updatable = false, length = 16)
+    private EventType eventType;
+
+    // Signed change: debits are negative, OPENED carries the initial balance
+    @Column(nullable = false, updatable = false, precision = 15, scale = 2)
+    private BigDecimal amount;
+
+    // Balance as seen by the writing transaction right after the change
+    @Column(nullable = false, updatable = false, precision = 15, scale = 2)
+    private BigDecimal balance;
+
+    @Column(nullable = false, updatable = false, length = 16)
+    private String status;
+
+    // Shared by the debit and credit events of one transfer
+    @Column(name = "transfer_id", columnDefinition = "uuid", updatable = false)
+    private UUID transferId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // STATUS: the account's status changed, amount is zero
+    public enum EventType {
+        OPENED, DEBIT, CREDIT, ADJUSTMENT, STATUS
+    }
+
+    public OutboxEvent() {}
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public EventType getEventType() {
+        return eventType;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public UUID getTransferId() {
+        return transferId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
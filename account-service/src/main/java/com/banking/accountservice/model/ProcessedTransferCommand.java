@@ -0,0 +1,49 @@
+package com.banking.accountservice.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Outcome of a transfer command taken from Kafka, kept for deduplication.
+ * Rows are inserted by TransferCommandProcessor in the transaction that applies the command and
+ * purged after the retention period; the entity only defines the table.
+ */
+@Entity
+@Table(name = "processed_transfer_commands",
+        indexes = @Index(name = "idx_processed_transfer_commands_processed_at", columnList = "processed_at"))
+public class ProcessedTransferCommand {
+
+    @Id
+    @Column(name = "command_id", columnDefinition = "uuid")
+    private UUID commandId;
+
+    @Column(nullable = false, updatable = false, length = 16)
+    private String status;
+
+    // Rejection reason, null when applied
+    @Column(updatable = false, length = 255)
+    private String message;
+
+    @Column(name = "processed_at", nullable = false, updatable = false)
+    private LocalDateTime processedAt;
+
+    public ProcessedTransferCommand() {}
+
+    public UUID getCommandId() {
+        return commandId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+}
@@ -0,0 +1,68 @@
+package com.banking.accountservice.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * One credit bucket of a hot account. An account is hot while it has bucket rows; its balance is
+ * accounts.balance plus the buckets until the sweeper merges them back.
+ * Rows are written with JDBC by HotAccountService; the entity only defines the table.
+ */
+@Entity
+@Table(name = "account_sub_balances")
+@IdClass(SubBalance.Key.class)
+public class SubBalance {
+
+    @Id
+    @Column(name = "account_id", columnDefinition = "uuid", nullable = false)
+    private UUID accountId;
+
+    @Id
+    @Column(nullable = false)
+    private Integer bucket;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    public SubBalance() {}
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public Integer getBucket() {
+        return bucket;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public static class Key implements Serializable {
+        private UUID accountId;
+        private Integer bucket;
+
+        public Key() {}
+
+        public Key(UUID accountId, Integer bucket) {
+            this.accountId = accountId;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(accountId, key.accountId) && Objects.equals(bucket, key.bucket);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(accountId, bucket);
+        }
+    }
+}
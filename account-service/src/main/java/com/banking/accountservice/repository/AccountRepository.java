@@ -1,18 +1,149 @@
 package com.banking.accountservice.repository;
 
+import com.banking.accountservice.dto.AccountResponseDto;
 import com.banking.accountservice.model.Account;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account,UUID> {
     List<Account> findByUserId(UUID userId);
 
+    // DTO projections: only the listed columns are read and nothing enters the persistence context.
+    // The balance is the one reads report: the column plus unmerged hot-account buckets and journal
+    // entries not yet folded in (both sums are empty for ordinary accounts).
+    String CURRENT_BALANCE = "a.balance" +
+            " + COALESCE((SELECT SUM(s.balance) FROM SubBalance s WHERE s.accountId = a.accountId), 0)" +
+            " + COALESCE((SELECT SUM(j.amount) FROM JournalEntry j WHERE j.accountId = a.accountId AND j.entryId > a.journalPosition), 0)";
+    String DETAILS = "SELECT new com.banking.accountservice.dto.AccountResponseDto(a.accountId, a.userId, a.accountNumber, " +
+            "a.accountType, " + CURRENT_BALANCE + ", a.status, a.createdAt) FROM Account a ";
+    String SUMMARY = "SELECT new com.banking.accountservice.dto.AccountResponseDto(a.accountId, a.accountNumber, " +
+            "a.accountType, " + CURRENT_BALANCE + ", a.status) FROM Account a ";
+
+    @Query(DETAILS + "WHERE a.userId = :userId ORDER BY a.accountId")
+    List<AccountResponseDto> findDetailsByUserId(@Param("userId") UUID userId);
+
+    // Keyset page: the user's accounts strictly after :after, in accountId order
+    @Query(SUMMARY + "WHERE a.userId = :userId AND a.accountId > :after ORDER BY a.accountId")
+    List<AccountResponseDto> findSummariesByUserIdAfter(@Param("userId") UUID userId,
+                                                        @Param("after") UUID after,
+                                                        Pageable page);
+
+    // Keyset page over all accounts, for consumers that keep their own copy (GET /accounts/snapshot)
+    @Query(SUMMARY + "WHERE a.accountId > :after ORDER BY a.accountId")
+    List<AccountResponseDto> findSummariesAfter(@Param("after") UUID after, Pageable page);
+
+    // Current balances of a few accounts, e.g. right after a transfer
+    @Query(SUMMARY + "WHERE a.accountId IN :accountIds")
+    List<AccountResponseDto> findSummariesByIds(@Param("accountIds") Collection<UUID> accountIds);
+
+    // accountId -> current balance; inside a write transaction this includes its own changes
+    default Map<UUID, BigDecimal> findBalancesByIds(Collection<UUID> accountIds) {
+        return findSummariesByIds(accountIds).stream()
+                .collect(Collectors.toMap(AccountResponseDto::getAccountId, AccountResponseDto::getBalance));
+    }
+
+    // Server-side cursor; must be consumed (and closed) inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY + "WHERE a.userId = :userId ORDER BY a.accountId")
+    Stream<AccountResponseDto> streamSummariesByUserId(@Param("userId") UUID userId);
+
 //Already provided in JpaRepository Library
 //    Optional<Account> findAccountByAccountId(UUID accountId);
     Optional<Account> findByAccountNumber(String accountNumber);
+
+    // Single-statement balance updates: the WHERE clause does the checks, the affected-row count says if they passed
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.lastTransactionDate = :now, a.updatedAt = :now, a.version = a.version + 1 " +
+           "WHERE a.accountId = :accountId AND a.balance >= :amount AND a.status = :status")
+    int debitIfSufficient(@Param("accountId") UUID accountId,
+                          @Param("amount") BigDecimal amount,
+                          @Param("status") Account.AccountStatus status,
+                          @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.lastTransactionDate = :now, a.updatedAt = :now, a.version = a.version + 1 " +
+           "WHERE a.accountId = :accountId AND a.status = :status")
+    int creditIfStatus(@Param("accountId") UUID accountId,
+                       @Param("amount") BigDecimal amount,
+                       @Param("status") Account.AccountStatus status,
+                       @Param("now") LocalDateTime now);
+
+    // Signed adjustment that never takes the balance below zero (no status check, same as updateAccountBalance)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.lastTransactionDate = :now, a.updatedAt = :now, a.version = a.version + 1 " +
+           "WHERE a.accountId = :accountId AND a.balance + :amount >= 0")
+    int adjustIfNonNegative(@Param("accountId") UUID accountId,
+                            @Param("amount") BigDecimal amount,
+                            @Param("now") LocalDateTime now);
+
+    // SELECT ... FOR UPDATE in accountId order, so batches touching overlapping accounts lock them in the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountId IN :accountIds ORDER BY a.accountId")
+    List<Account> lockAllInOrder(@Param("accountIds") Collection<UUID> accountIds);
+
+    // Journal mode: debits and compaction take the row exclusively, credits share it (FOR SHARE on PostgreSQL)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountId = :accountId")
+    Optional<Account> findForUpdate(@Param("accountId") UUID accountId);
+
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT a FROM Account a WHERE a.accountId = :accountId")
+    Optional<Account> findForShare(@Param("accountId") UUID accountId);
+
+    // Used only after a conditional update matched no row, to report why
+    @Query("SELECT a.status FROM Account a WHERE a.accountId = :accountId")
+    Optional<Account.AccountStatus> findStatusByAccountId(@Param("accountId") UUID accountId);
+
+    // Stale = ACTIVE with no transaction since the cutoff (createdAt when lastTransactionDate is NULL).
+    // Written as an OR rather than COALESCE(...) so the (status, last_transaction_date) index can be used.
+    String STALE_PREDICATE = "a.status = :active AND (a.lastTransactionDate < :cutoff " +
+            "OR (a.lastTransactionDate IS NULL AND a.createdAt < :cutoff))";
+
+    @Query("SELECT COUNT(a) FROM Account a WHERE " + STALE_PREDICATE)
+    long countStale(@Param("active") Account.AccountStatus active,
+                    @Param("cutoff") LocalDateTime cutoff);
+
+    // Keyset page: the next stale ids strictly after :after, in accountId order
+    @Query("SELECT a.accountId FROM Account a WHERE " + STALE_PREDICATE + " AND a.accountId > :after ORDER BY a.accountId")
+    List<UUID> findStaleIdsAfter(@Param("active") Account.AccountStatus active,
+                                 @Param("cutoff") LocalDateTime cutoff,
+                                 @Param("after") UUID after,
+                                 Pageable page);
+
+    // The accounts of a page that are still stale, locked in accountId order until the transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountId IN :accountIds AND " + STALE_PREDICATE + " ORDER BY a.accountId")
+    List<Account> lockStale(@Param("accountIds") Collection<UUID> accountIds,
+                            @Param("active") Account.AccountStatus active,
+                            @Param("cutoff") LocalDateTime cutoff);
+
+    // Re-checks the predicate so an account that transacted since the page was read stays active
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.status = :inactive, a.updatedAt = :now, a.version = a.version + 1 " +
+           "WHERE a.accountId IN :accountIds AND " + STALE_PREDICATE)
+    int inactivateIfStale(@Param("accountIds") Collection<UUID> accountIds,
+                          @Param("active") Account.AccountStatus active,
+                          @Param("inactive") Account.AccountStatus inactive,
+                          @Param("cutoff") LocalDateTime cutoff,
+                          @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,267 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.exception.AccountInactiveException;
+import com.banking.accountservice.exception.AccountNotFoundException;
+import com.banking.accountservice.exception.InsufficientFundsException;
+import com.banking.accountservice.exception.InvalidAccountDataException;
+import com.banking.accountservice.model.Account;
+import com.banking.accountservice.model.Money;
+import com.banking.accountservice.model.OutboxEvent;
+import com.banking.accountservice.repository.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Database-side balance changes for AccountService.
+ *
+ * ATOMIC (default): one conditional UPDATE per account, the affected-row count tells whether the
+ * funds/status checks passed. OPTIMISTIC: read the entity, check in Java and save, relying on
+ * Account.version to detect a concurrent writer. Both retry a bounded number of times on
+ * optimistic-lock conflicts and deadlocks, each attempt in its own transaction.
+ * Credits to a hot account (see HotAccountService) go to one of its buckets on the ATOMIC path.
+ * Amounts arrive as Money; they become BigDecimal only as query parameters and entity fields.
+ * Every change writes its BalanceChanged outbox events in the same transaction.
+ */
+@Service
+public class AccountBalanceUpdater {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountBalanceUpdater.class);
+
+    public enum Strategy {
+        ATOMIC, OPTIMISTIC
+    }
+
+    private final AccountRepository accountRepository;
+    private final HotAccountService hotAccountService;
+    private final BalanceOutbox balanceOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Strategy strategy;
+    private final int maxAttempts;
+
+    public AccountBalanceUpdater(AccountRepository accountRepository,
+                                 HotAccountService hotAccountService,
+                                 BalanceOutbox balanceOutbox,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${banking.accounts.balance-update.strategy:ATOMIC}") Strategy strategy,
+                                 @Value("${banking.accounts.balance-update.max-attempts:5}") int maxAttempts) {
+        this.accountRepository = accountRepository;
+        this.hotAccountService = hotAccountService;
+        this.balanceOutbox = balanceOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.strategy = strategy;
+        this.maxAttempts = maxAttempts;
+    }
+
+    //1. Move money between two accounts in one transaction
+    public void transfer(UUID fromAccountId, UUID toAccountId, Money amount) {
+        transfer(fromAccountId, toAccountId, amount, false);
+    }
+
+    //1b. Same, returning both balances read inside that transaction (so never from a lagging replica)
+    public Map<UUID, BigDecimal> transferAndReadBalances(UUID fromAccountId, UUID toAccountId, Money amount) {
+        return transfer(fromAccountId, toAccountId, amount, true);
+    }
+
+    private Map<UUID, BigDecimal> transfer(UUID fromAccountId, UUID toAccountId, Money amount, boolean readBalances) {
+        return withRetry("transfer", () -> transactionTemplate.execute(status -> {
+            if (strategy == Strategy.ATOMIC) {
+                transferAtomically(fromAccountId, toAccountId, amount);
+            } else {
+                transferOptimistically(fromAccountId, toAccountId, amount);
+            }
+            balanceOutbox.recordTransfer(fromAccountId, toAccountId, amount);
+            return readBalances ? accountRepository.findBalancesByIds(List.of(fromAccountId, toAccountId)) : null;
+        }));
+    }
+
+    //2. Apply a signed amount to one account, returns the updated entity
+    public Account adjust(UUID accountId, Money amount) {
+        return withRetry("adjust", () -> transactionTemplate.execute(status -> {
+            Account account = strategy == Strategy.ATOMIC
+                    ? adjustAtomically(accountId, amount)
+                    : adjustOptimistically(accountId, amount);
+            balanceOutbox.record(accountId, OutboxEvent.EventType.ADJUSTMENT, amount);
+            return account;
+        }));
+    }
+
+    private void transferAtomically(UUID fromAccountId, UUID toAccountId, Money money) {
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal amount = money.toBigDecimal();
+        // Touch rows in accountId order (as the database sorts them) so opposite transfers cannot deadlock
+        if (AccountLockOrder.compare(fromAccountId, toAccountId) < 0) {
+            debit(fromAccountId, amount, now);
+            credit(toAccountId, amount, now);
+        } else {
+            credit(toAccountId, amount, now);
+            debit(fromAccountId, amount, now);
+        }
+    }
+
+    private void debit(UUID accountId, BigDecimal amount, LocalDateTime now) {
+        if (debitRow(accountId, amount, now)) {
+            return;
+        }
+        Account.AccountStatus status = accountRepository.findStatusByAccountId(accountId)
+                .orElseThrow(() -> reject("not_found",
+                        new AccountNotFoundException("Source account not found with ID: " + accountId)));
+        if (status != Account.AccountStatus.ACTIVE) {
+            throw reject("inactive", new AccountInactiveException("One or both accounts are not active"));
+        }
+        throw reject("insufficient_funds", new InsufficientFundsException("Insufficient funds in source account"));
+    }
+
+    private boolean debitRow(UUID accountId, BigDecimal amount, LocalDateTime now) {
+        if (accountRepository.debitIfSufficient(accountId, amount, Account.AccountStatus.ACTIVE, now) == 1) {
+            return true;
+        }
+        // A hot account's recent credits may still sit in its buckets
+        return hotAccountService.isHot(accountId)
+                && hotAccountService.mergeInCurrentTransaction(accountId).signum() > 0
+                && accountRepository.debitIfSufficient(accountId, amount, Account.AccountStatus.ACTIVE, now) == 1;
+    }
+
+    private void credit(UUID accountId, BigDecimal amount, LocalDateTime now) {
+        if (hotAccountService.credit(accountId, amount)) {
+            return;
+        }
+        if (accountRepository.creditIfStatus(accountId, amount, Account.AccountStatus.ACTIVE, now) == 1) {
+            return;
+        }
+        if (accountRepository.findStatusByAccountId(accountId).isEmpty()) {
+            throw reject("not_found",
+                    new AccountNotFoundException("Destination account not found with ID: " + accountId));
+        }
+        throw reject("inactive", new AccountInactiveException("One or both accounts are not active"));
+    }
+
+    private Account adjustAtomically(UUID accountId, Money amount) {
+        if (!adjustRow(accountId, amount.toBigDecimal())) {
+            if (accountRepository.findStatusByAccountId(accountId).isEmpty()) {
+                throw reject("not_found", new AccountNotFoundException("Account not found with ID: " + accountId));
+            }
+            throw reject("insufficient_funds", new InsufficientFundsException("Insufficient funds for this operation"));
+        }
+        // The update cleared the persistence context, so this reads the committed-to-be row
+        return accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found with ID: " + accountId));
+    }
+
+    private boolean adjustRow(UUID accountId, BigDecimal amount) {
+        if (accountRepository.adjustIfNonNegative(accountId, amount, LocalDateTime.now()) == 1) {
+            return true;
+        }
+        return hotAccountService.isHot(accountId)
+                && hotAccountService.mergeInCurrentTransaction(accountId).signum() > 0
+                && accountRepository.adjustIfNonNegative(accountId, amount, LocalDateTime.now()) == 1;
+    }
+
+    private void transferOptimistically(UUID fromAccountId, UUID toAccountId, Money amount) {
+        // Buckets are only credited by the atomic path; fold any into the row before checking funds
+        hotAccountService.mergeInCurrentTransaction(fromAccountId);
+        // Get source account
+        Account fromAccount = accountRepository.findById(fromAccountId)
+                .orElseThrow(() -> reject("not_found",
+                        new AccountNotFoundException("Source account not found with ID: " + fromAccountId)));
+
+        // Get destination account
+        Account toAccount = accountRepository.findById(toAccountId)
+                .orElseThrow(() -> reject("not_found",
+                        new AccountNotFoundException("Destination account not found with ID: " + toAccountId)));
+
+        // Check if both accounts are active
+        if (fromAccount.getStatus() != Account.AccountStatus.ACTIVE ||
+            toAccount.getStatus() != Account.AccountStatus.ACTIVE) {
+            throw reject("inactive", new AccountInactiveException("One or both accounts are not active"));
+        }
+
+        // Check sufficient funds
+        Money fromBalance = Money.of(fromAccount.getBalance());
+        if (fromBalance.isLessThan(amount)) {
+            throw reject("insufficient_funds", new InsufficientFundsException("Insufficient funds in source account"));
+        }
+
+        // Perform the transfer; the version check on flush rejects it if either row changed meanwhile
+        Money toBalance = Money.of(toAccount.getBalance()).plus(amount);
+        fromAccount.setBalance(fromBalance.minus(amount).toBigDecimal());
+        toAccount.setBalance(toBalance.toBigDecimal());
+
+        LocalDateTime now = LocalDateTime.now();
+        fromAccount.setLastTransactionDate(now);
+        toAccount.setLastTransactionDate(now);
+
+        accountRepository.save(fromAccount);
+        // Flushed here so a version conflict surfaces as a ConcurrencyFailureException and is retried,
+        // not as a raw OptimisticLockException from the outbox's flush
+        accountRepository.saveAndFlush(toAccount);
+    }
+
+    private Account adjustOptimistically(UUID accountId, Money amount) {
+        hotAccountService.mergeInCurrentTransaction(accountId);
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> reject("not_found", new AccountNotFoundException("Account not found with ID: " + accountId)));
+
+        Money newBalance = Money.of(account.getBalance()).plus(amount);
+        if (newBalance.isNegative()) {
+            throw reject("insufficient_funds", new InsufficientFundsException("Insufficient funds for this operation"));
+        }
+        account.setBalance(newBalance.toBigDecimal());
+        account.setLastTransactionDate(LocalDateTime.now());
+        // saveAndFlush so a version conflict surfaces here and not at commit
+        return accountRepository.saveAndFlush(account);
+    }
+
+    private <T> T withRetry(String operation, Supplier<T> attempt) {
+        for (int i = 1; ; i++) {
+            try {
+                return attempt.get();
+            } catch (ConcurrencyFailureException e) {
+                // Optimistic-lock conflicts and deadlock victims both end up here
+                counter("accounts.balance.update.conflicts", operation).increment();
+                if (i >= maxAttempts) {
+                    logger.warn("Giving up on {} after {} conflicting attempts", operation, i);
+                    throw new InvalidAccountDataException("Account is being updated concurrently, please retry");
+                }
+                counter("accounts.balance.update.retries", operation).increment();
+                backOff(i);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        // Jittered exponential pause so that colliding writers do not retry in lockstep
+        long maxMillis = 1L << Math.min(attempt, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidAccountDataException("Interrupted while retrying balance update");
+        }
+    }
+
+    private RuntimeException reject(String reason, RuntimeException e) {
+        meterRegistry.counter("accounts.balance.update.rejections", "reason", reason).increment();
+        return e;
+    }
+
+    private Counter counter(String name, String operation) {
+        return meterRegistry.counter(name, "operation", operation, "strategy", strategy.name());
+    }
+}
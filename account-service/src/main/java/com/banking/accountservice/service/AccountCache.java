@@ -0,0 +1,111 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.dto.AccountResponseDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache for account lookups.
+ *
+ * byId holds the full AccountResponseDto per accountId. byUser only holds the accountIds of a
+ * user, so a balance or status change touches a single byId entry and the user listing is
+ * rebuilt from byId. Writers evict right away and again after their transaction commits, so a
+ * reader that loaded the old row in between cannot leave it cached; the TTL bounds anything else.
+ * Hit/miss/eviction counts are published as cache.* meters (cache=accounts.byId / accounts.byUser).
+ */
+@Component
+public class AccountCache {
+
+    private final boolean enabled;
+    private final Cache<UUID, AccountResponseDto> byId;
+    private final Cache<UUID, List<UUID>> byUser;
+
+    public AccountCache(MeterRegistry meterRegistry,
+                        @Value("${banking.accounts.cache.enabled:true}") boolean enabled,
+                        @Value("${banking.accounts.cache.max-size:100000}") long maxSize,
+                        @Value("${banking.accounts.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.byUser = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "accounts.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, byUser, "accounts.byUser");
+    }
+
+    // The loader may throw (e.g. AccountNotFoundException); nothing is cached in that case
+    public AccountResponseDto getById(UUID accountId, Function<UUID, AccountResponseDto> loader) {
+        return enabled ? byId.get(accountId, loader) : loader.apply(accountId);
+    }
+
+    // Ids missing from the loader's map are simply absent from the result
+    public Map<UUID, AccountResponseDto> getAllById(Collection<UUID> accountIds,
+                                                    Function<Set<UUID>, Map<UUID, AccountResponseDto>> loader) {
+        return enabled
+                ? byId.getAll(accountIds, missing -> loader.apply(Set.copyOf(missing)))
+                : loader.apply(Set.copyOf(accountIds));
+    }
+
+    // The loader returns null when the user has no accounts, which is not cached
+    public List<UUID> getIdsByUser(UUID userId, Function<UUID, List<UUID>> loader) {
+        return enabled ? byUser.get(userId, loader) : loader.apply(userId);
+    }
+
+    // Lets a user listing seed byId without overwriting an entry loaded by a single-account read
+    public void putIfAbsent(AccountResponseDto account) {
+        if (enabled) {
+            byId.asMap().putIfAbsent(account.getAccountId(), account);
+        }
+    }
+
+    public void evictAccount(UUID accountId) {
+        if (enabled) {
+            evictNowAndAfterCommit(() -> byId.invalidate(accountId));
+        }
+    }
+
+    public void evictAccounts(Collection<UUID> accountIds) {
+        if (enabled && !accountIds.isEmpty()) {
+            List<UUID> ids = List.copyOf(accountIds);
+            evictNowAndAfterCommit(() -> byId.invalidateAll(ids));
+        }
+    }
+
+    public void evictUser(UUID userId) {
+        if (enabled && userId != null) {
+            evictNowAndAfterCommit(() -> byUser.invalidate(userId));
+        }
+    }
+
+    private void evictNowAndAfterCommit(Runnable evict) {
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+    }
+}
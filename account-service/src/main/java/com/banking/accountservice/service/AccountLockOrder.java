@@ -0,0 +1,21 @@
+package com.banking.accountservice.service;
+
+import java.util.UUID;
+
+/**
+ * The order in which account rows are locked when one transaction needs several of them.
+ *
+ * It has to match the database's uuid ordering, because the multi-row paths lock with
+ * SELECT ... ORDER BY account_id FOR UPDATE. PostgreSQL and H2 compare uuids as unsigned bytes,
+ * while UUID.compareTo compares the two halves as signed longs, so it cannot be used directly.
+ */
+final class AccountLockOrder {
+
+    private AccountLockOrder() {
+    }
+
+    static int compare(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
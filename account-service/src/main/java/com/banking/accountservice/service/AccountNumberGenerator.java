@@ -0,0 +1,133 @@
+package com.banking.accountservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out unique account numbers without asking the database whether a number is taken.
+ *
+ * Blocks of serials are reserved from account_number_seq (one nextval per block-size numbers,
+ * so every instance gets disjoint ranges) and then given out from memory with a single
+ * getAndIncrement. A number is the 11-digit zero-padded serial followed by a Luhn check digit;
+ * at 12 characters it can never clash with the 10-digit random numbers issued before.
+ */
+@Component
+public class AccountNumberGenerator {
+
+    static final int SERIAL_DIGITS = 11;
+    static final long MAX_SERIAL = 99_999_999_999L;
+
+    private static final String INCREMENT_SQL =
+            "SELECT increment FROM information_schema.sequences WHERE sequence_schema = current_schema AND sequence_name = 'account_number_seq'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+    private final Counter blocksReserved;
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+
+    public AccountNumberGenerator(JdbcTemplate jdbcTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${banking.accounts.number.block-size:100}") int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("banking.accounts.number.block-size must be greater than zero");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = blockSize;
+        this.blocksReserved = Counter.builder("accounts.number.blocks.reserved")
+                .description("Blocks of account numbers reserved from account_number_seq")
+                .register(meterRegistry);
+        // Not an entity, so Hibernate's ddl-auto does not manage it. The increment is the block size.
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS account_number_seq START WITH 1 INCREMENT BY " + blockSize);
+        // An existing sequence keeps the increment it was created with, and blocks of another size
+        // would overlap the ones already handed out
+        String increment = jdbcTemplate.queryForObject(INCREMENT_SQL, String.class);
+        if (increment == null || Long.parseLong(increment.trim()) != blockSize) {
+            throw new IllegalStateException("account_number_seq increments by " + increment
+                    + " but banking.accounts.number.block-size is " + blockSize + ". Keep the old block size,"
+                    + " or with every instance stopped run ALTER SEQUENCE account_number_seq INCREMENT BY "
+                    + blockSize + " RESTART WITH <last_value + old increment>");
+        }
+    }
+
+    public String next() {
+        while (true) {
+            Block block = current.get();
+            long serial = block.next.getAndIncrement();
+            if (serial < block.end) {
+                return format(serial);
+            }
+            refill(block);
+        }
+    }
+
+    // Only the first thread to find the block exhausted reserves a new one, the others just retry
+    private synchronized void refill(Block exhausted) {
+        if (current.get() != exhausted) {
+            return;
+        }
+        Long start = jdbcTemplate.queryForObject("SELECT nextval('account_number_seq')", Long.class);
+        if (start == null || start + blockSize - 1 > MAX_SERIAL) {
+            throw new IllegalStateException("Account number sequence exhausted");
+        }
+        blocksReserved.increment();
+        current.set(new Block(start, start + blockSize));
+    }
+
+    static String format(long serial) {
+        char[] digits = new char[SERIAL_DIGITS + 1];
+        long rest = serial;
+        for (int i = SERIAL_DIGITS - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + rest % 10);
+            rest /= 10;
+        }
+        digits[SERIAL_DIGITS] = (char) ('0' + luhnCheckDigit(digits, SERIAL_DIGITS));
+        return new String(digits);
+    }
+
+    static int luhnCheckDigit(char[] digits, int length) {
+        // Double every second digit starting from the rightmost payload digit
+        int sum = 0;
+        boolean doubleIt = true;
+        for (int i = length - 1; i >= 0; i--) {
+            int d = digits[i] - '0';
+            if (doubleIt) {
+                d *= 2;
+                if (d > 9) {
+                    d -= 9;
+                }
+            }
+            sum += d;
+            doubleIt = !doubleIt;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    public static boolean isValid(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() != SERIAL_DIGITS + 1) {
+            return false;
+        }
+        char[] digits = accountNumber.toCharArray();
+        for (char c : digits) {
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return luhnCheckDigit(digits, SERIAL_DIGITS) == digits[SERIAL_DIGITS] - '0';
+    }
+
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
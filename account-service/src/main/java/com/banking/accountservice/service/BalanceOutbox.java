@@ -0,0 +1,102 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.model.Money;
+import com.banking.accountservice.model.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes BalanceChanged events to account_outbox in the caller's transaction, so an event exists
+ * exactly when its balance change commits. OutboxRelay publishes them to Kafka.
+ *
+ * The event's balance is read from the account in the INSERT itself, after the change. Writers
+ * that lock the account row exclusively produce events in commit order with exact balances;
+ * credits that do not (hot-account buckets, journal-mode credits) can interleave with each other,
+ * so their balance may miss a concurrent credit until the account's next event.
+ */
+@Service
+public class BalanceOutbox {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO account_outbox (account_id, event_type, amount, balance, status, transfer_id, created_at) " +
+            "SELECT a.account_id, ?, ?, a.balance" +
+            " + COALESCE((SELECT SUM(s.balance) FROM account_sub_balances s WHERE s.account_id = a.account_id), 0)" +
+            " + COALESCE((SELECT SUM(j.amount) FROM account_journal j WHERE j.account_id = a.account_id AND j.entry_id > a.journal_position), 0)" +
+            ", a.status, ?, ? FROM accounts a WHERE a.account_id = ?";
+
+    public record Change(UUID accountId, OutboxEvent.EventType type, Money amount, UUID transferId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final boolean enabled;
+    private final Counter written;
+
+    public BalanceOutbox(JdbcTemplate jdbcTemplate,
+                         EntityManager entityManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${banking.accounts.outbox.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.enabled = enabled;
+        this.written = Counter.builder("accounts.outbox.written")
+                .description("BalanceChanged events written to account_outbox")
+                .register(meterRegistry);
+    }
+
+    //1. Debit and credit events of one transfer
+    public void recordTransfer(UUID fromAccountId, UUID toAccountId, Money amount) {
+        recordAll(transferChanges(fromAccountId, toAccountId, amount, new ArrayList<>(2)));
+    }
+
+    //2. A single-account change (OPENED, ADJUSTMENT)
+    public void record(UUID accountId, OutboxEvent.EventType type, Money amount) {
+        recordAll(List.of(new Change(accountId, type, amount, null)));
+    }
+
+    //2b. STATUS events for accounts whose status was changed in bulk (e.g. inactivation)
+    public void recordStatusChanges(List<UUID> accountIds) {
+        List<Change> changes = new ArrayList<>(accountIds.size());
+        for (UUID accountId : accountIds) {
+            changes.add(new Change(accountId, OutboxEvent.EventType.STATUS, Money.ZERO, null));
+        }
+        recordAll(changes);
+    }
+
+    //3. Many changes with one flush and one JDBC batch
+    public void recordAll(List<Change> changes) {
+        if (!enabled || changes.isEmpty()) {
+            return;
+        }
+        // Entity changes made earlier in the transaction have to be visible to the INSERT ... SELECT
+        entityManager.flush();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            rows.add(new Object[]{change.type().name(), change.amount().toBigDecimal(), change.transferId(), now,
+                    change.accountId()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        written.increment(changes.size());
+    }
+
+    static List<Change> transferChanges(UUID fromAccountId, UUID toAccountId, Money amount, List<Change> into) {
+        return transferChanges(UUID.randomUUID(), fromAccountId, toAccountId, amount, into);
+    }
+
+    static List<Change> transferChanges(UUID transferId, UUID fromAccountId, UUID toAccountId, Money amount,
+                                        List<Change> into) {
+        into.add(new Change(fromAccountId, OutboxEvent.EventType.DEBIT, amount.negate(), transferId));
+        into.add(new Change(toAccountId, OutboxEvent.EventType.CREDIT, amount, transferId));
+        return into;
+    }
+}
@@ -0,0 +1,312 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.dto.BatchTransferResultDto;
+import com.banking.accountservice.dto.TransferCommandDto;
+import com.banking.accountservice.dto.TransferRequestDto;
+import com.banking.accountservice.exception.InvalidAccountDataException;
+import com.banking.accountservice.model.Account;
+import com.banking.accountservice.model.Money;
+import com.banking.accountservice.repository.AccountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Applies many transfers with a handful of round trips.
+ *
+ * The request is cut into chunks; each chunk runs in one transaction that locks every account it
+ * touches with a single ordered SELECT ... FOR UPDATE, applies the transfers in memory in request
+ * order (in cents, written back to the entities once per chunk) and lets Hibernate flush the
+ * dirty accounts as ordered JDBC batches on commit.
+ * A rejected item (unknown account, inactive, insufficient funds) does not affect the others.
+ */
+@Service
+public class BatchTransferService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchTransferService.class);
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private HotAccountService hotAccountService;
+
+    @Autowired
+    private BalanceOutbox balanceOutbox;
+
+    // Only present when banking.ledger.enabled=true
+    @Autowired(required = false)
+    private LedgerEngine ledgerEngine;
+
+    // Only present when banking.accounts.journal.enabled=true
+    @Autowired(required = false)
+    private JournalBalanceStore journal;
+
+    @Value("${banking.accounts.batch-transfer.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${banking.accounts.batch-transfer.max-items:100000}")
+    private int maxItems;
+
+    public List<BatchTransferResultDto> transferBatch(List<TransferRequestDto> transfers) {
+        if (transfers == null || transfers.isEmpty()) {
+            throw new InvalidAccountDataException("Batch must contain at least one transfer");
+        }
+        if (transfers.size() > maxItems) {
+            throw new InvalidAccountDataException("Batch cannot contain more than " + maxItems + " transfers");
+        }
+
+        List<BatchTransferResultDto> results = new ArrayList<>(transfers.size());
+        for (int start = 0; start < transfers.size(); start += chunkSize) {
+            int end = Math.min(start + chunkSize, transfers.size());
+            if (ledgerEngine != null) {
+                results.addAll(applyChunkWithLedger(transfers, start, end));
+            } else if (journal != null) {
+                results.addAll(applyChunkWithJournal(transfers, start, end));
+            } else {
+                results.addAll(applyChunk(transfers, start, end));
+            }
+            evictTouchedAccounts(transfers, start, end);
+        }
+        return results;
+    }
+
+    // All transfers in one transaction, as a single chunk of transferBatch, with beforeCommit run on
+    // their results inside it. A failure is thrown rather than reported per item, so the caller can
+    // retry the whole lot. Only for the default balance mode.
+    public List<BatchTransferResultDto> transferInOneTransaction(List<TransferRequestDto> transfers,
+                                                                 Consumer<List<BatchTransferResultDto>> beforeCommit) {
+        if (ledgerEngine != null || journal != null) {
+            throw new IllegalStateException("Single-transaction batches need the default balance mode");
+        }
+        List<BatchTransferResultDto> results = transactionTemplate.execute(status -> {
+            List<BatchTransferResultDto> applied = applyLocked(transfers, 0, transfers.size());
+            beforeCommit.accept(applied);
+            return applied;
+        });
+        evictTouchedAccounts(transfers, 0, transfers.size());
+        return results;
+    }
+
+    private List<BatchTransferResultDto> applyChunk(List<TransferRequestDto> transfers, int start, int end) {
+        try {
+            return transactionTemplate.execute(status -> applyLocked(transfers, start, end));
+        } catch (RuntimeException e) {
+            logger.error("Batch transfer chunk [{}, {}) failed", start, end, e);
+            return failChunk(transfers, start, end, "Chunk could not be committed: " + e.getMessage());
+        }
+    }
+
+    // Runs in the caller's transaction
+    private List<BatchTransferResultDto> applyLocked(List<TransferRequestDto> transfers, int start, int end) {
+        Set<UUID> accountIds = new HashSet<>();
+        for (int i = start; i < end; i++) {
+            TransferRequestDto transfer = transfers.get(i);
+            if (transfer.getFromAccountId() != null) accountIds.add(transfer.getFromAccountId());
+            if (transfer.getToAccountId() != null) accountIds.add(transfer.getToAccountId());
+        }
+
+        Map<UUID, LockedAccount> accounts = new HashMap<>();
+        if (!accountIds.isEmpty()) {
+            for (Account account : accountRepository.lockAllInOrder(accountIds)) {
+                // Hot accounts: pull the buckets into the locked row so the funds checks see them
+                BigDecimal drained = hotAccountService.drainBuckets(account.getAccountId());
+                LockedAccount locked = new LockedAccount(account, Money.of(account.getBalance().add(drained)));
+                locked.changed = drained.signum() != 0;
+                accounts.put(account.getAccountId(), locked);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BatchTransferResultDto> results = new ArrayList<>(end - start);
+        List<BalanceOutbox.Change> events = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+            TransferRequestDto transfer = transfers.get(i);
+            String rejection = apply(transfer, accounts, events);
+            results.add(result(i, transfer, rejection));
+        }
+        for (LockedAccount locked : accounts.values()) {
+            if (locked.changed) {
+                locked.account.setBalance(Money.ofCents(locked.cents).toBigDecimal());
+            }
+            if (locked.transferred) {
+                locked.account.setLastTransactionDate(now);
+            }
+        }
+        // Flushes the accounts first, so the events read the chunk's final balances
+        balanceOutbox.recordAll(events);
+        // Dirty accounts are flushed on commit as batched UPDATEs (hibernate.jdbc.batch_size, order_updates)
+        return results;
+    }
+
+    // Returns null when applied, otherwise the reason the transfer was rejected
+    private String apply(TransferRequestDto transfer, Map<UUID, LockedAccount> accounts, List<BalanceOutbox.Change> events) {
+        String invalid = validate(transfer);
+        if (invalid != null) {
+            return invalid;
+        }
+        LockedAccount from = accounts.get(transfer.getFromAccountId());
+        if (from == null) {
+            return "Source account not found with ID: " + transfer.getFromAccountId();
+        }
+        LockedAccount to = accounts.get(transfer.getToAccountId());
+        if (to == null) {
+            return "Destination account not found with ID: " + transfer.getToAccountId();
+        }
+        if (from.account.getStatus() != Account.AccountStatus.ACTIVE || to.account.getStatus() != Account.AccountStatus.ACTIVE) {
+            return "One or both accounts are not active";
+        }
+        Money money = Money.of(transfer.getAmount());
+        long amount = money.cents();
+        if (from.cents < amount) {
+            return "Insufficient funds in source account";
+        }
+        try {
+            to.cents = Money.addCents(to.cents, amount);
+        } catch (ArithmeticException e) {
+            return "Destination balance would exceed the maximum allowed";
+        }
+        from.cents -= amount;
+        from.changed = from.transferred = true;
+        to.changed = to.transferred = true;
+        // A command's id doubles as the transfer id of its events
+        UUID transferId = transfer instanceof TransferCommandDto command && command.getCommandId() != null
+                ? command.getCommandId() : UUID.randomUUID();
+        BalanceOutbox.transferChanges(transferId, transfer.getFromAccountId(), transfer.getToAccountId(), money, events);
+        return null;
+    }
+
+    private List<BatchTransferResultDto> applyChunkWithLedger(List<TransferRequestDto> transfers, int start, int end) {
+        // Apply the whole chunk in memory first, then wait once for the group commits to land
+        List<CompletableFuture<Void>> commits = new ArrayList<>(end - start);
+        List<String> rejections = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            TransferRequestDto transfer = transfers.get(i);
+            String invalid = validate(transfer);
+            CompletableFuture<Void> commit = null;
+            if (invalid == null) {
+                try {
+                    commit = ledgerEngine.applyTransfer(transfer.getFromAccountId(), transfer.getToAccountId(),
+                            Money.of(transfer.getAmount()));
+                } catch (RuntimeException e) {
+                    invalid = e.getMessage();
+                }
+            }
+            commits.add(commit);
+            rejections.add(invalid);
+        }
+
+        List<BatchTransferResultDto> results = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            String rejection = rejections.get(i - start);
+            CompletableFuture<Void> commit = commits.get(i - start);
+            if (commit != null) {
+                try {
+                    ledgerEngine.await(commit);
+                } catch (RuntimeException e) {
+                    rejection = e.getMessage();
+                }
+            }
+            results.add(result(i, transfers.get(i), rejection));
+        }
+        return results;
+    }
+
+    private void evictTouchedAccounts(List<TransferRequestDto> transfers, int start, int end) {
+        Set<UUID> touched = new HashSet<>();
+        for (int i = start; i < end; i++) {
+            TransferRequestDto transfer = transfers.get(i);
+            if (transfer != null && transfer.getFromAccountId() != null) touched.add(transfer.getFromAccountId());
+            if (transfer != null && transfer.getToAccountId() != null) touched.add(transfer.getToAccountId());
+        }
+        accountCache.evictAccounts(touched);
+    }
+
+    // The balance column is only a snapshot in journal mode, so each item goes through the journal
+    private List<BatchTransferResultDto> applyChunkWithJournal(List<TransferRequestDto> transfers, int start, int end) {
+        List<BatchTransferResultDto> results = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            TransferRequestDto transfer = transfers.get(i);
+            String rejection = validate(transfer);
+            if (rejection == null) {
+                try {
+                    journal.transfer(transfer.getFromAccountId(), transfer.getToAccountId(), Money.of(transfer.getAmount()));
+                } catch (RuntimeException e) {
+                    rejection = e.getMessage();
+                }
+            }
+            results.add(result(i, transfer, rejection));
+        }
+        return results;
+    }
+
+    private String validate(TransferRequestDto transfer) {
+        if (transfer == null || transfer.getFromAccountId() == null || transfer.getToAccountId() == null
+                || transfer.getAmount() == null) {
+            return "fromAccountId, toAccountId and amount are required";
+        }
+        Money amount;
+        try {
+            amount = Money.of(transfer.getAmount());
+        } catch (ArithmeticException e) {
+            return e.getMessage();
+        }
+        if (!amount.isPositive()) {
+            return "Transfer amount must be greater than zero";
+        }
+        if (transfer.getFromAccountId().equals(transfer.getToAccountId())) {
+            return "Cannot transfer to the same account";
+        }
+        return null;
+    }
+
+    private BatchTransferResultDto result(int index, TransferRequestDto transfer, String rejection) {
+        UUID from = transfer != null ? transfer.getFromAccountId() : null;
+        UUID to = transfer != null ? transfer.getToAccountId() : null;
+        return rejection == null
+                ? new BatchTransferResultDto(index, from, to, BatchTransferResultDto.Status.SUCCESS, null)
+                : new BatchTransferResultDto(index, from, to, BatchTransferResultDto.Status.FAILED, rejection);
+    }
+
+    private List<BatchTransferResultDto> failChunk(List<TransferRequestDto> transfers, int start, int end, String message) {
+        List<BatchTransferResultDto> results = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            results.add(result(i, transfers.get(i), message));
+        }
+        return results;
+    }
+
+    // A row locked for the chunk, with its working balance in cents
+    private static final class LockedAccount {
+        private final Account account;
+        private long cents;
+        private boolean changed;
+        private boolean transferred;
+
+        private LockedAccount(Account account, Money balance) {
+            this.account = account;
+            this.cents = balance.cents();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.exception.AccountInactiveException;
+import com.banking.accountservice.exception.AccountNotFoundException;
+import com.banking.accountservice.exception.InvalidAccountDataException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hot accounts: accounts that receive so many concurrent credits that their row lock becomes the
+ * bottleneck. A hot account's credits land on one of N account_sub_balances rows picked at
+ * random, so N payments can commit in parallel. Reads add the buckets to accounts.balance, a
+ * debit that finds the main row short merges the buckets first, and the sweeper merges them
+ * periodically. Applies to the default (non-ledger, non-journal) balance path.
+ */
+@Service
+public class HotAccountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotAccountService.class);
+
+    private static final int MAX_BUCKETS = 256;
+
+    // The EXISTS check reads the account's status without locking its row
+    private static final String CREDIT_SQL =
+            "UPDATE account_sub_balances SET balance = balance + ? WHERE account_id = ? AND bucket = ? " +
+            "AND EXISTS (SELECT 1 FROM accounts a WHERE a.account_id = ? AND a.status = 'ACTIVE')";
+    private static final String LOCK_MAIN_SQL =
+            "SELECT account_id FROM accounts WHERE account_id = ? FOR UPDATE";
+    private static final String LOCK_BUCKETS_SQL =
+            "SELECT balance FROM account_sub_balances WHERE account_id = ? ORDER BY bucket FOR UPDATE";
+    private static final String MERGE_SQL =
+            "UPDATE accounts SET balance = balance + ?, last_transaction_date = ?, updated_at = ?, version = version + 1 " +
+            "WHERE account_id = ?";
+    private static final String PENDING_SQL =
+            "SELECT account_id, SUM(balance) FROM account_sub_balances WHERE account_id IN (:accountIds) GROUP BY account_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountCache accountCache;
+    private final boolean available;
+    private final List<UUID> configuredAccountIds;
+    private final int defaultBuckets;
+    private final Counter bucketCredits;
+    private final Counter merges;
+
+    // accountId -> bucket count, mirrors account_sub_balances (refreshed by the sweeper for other instances' changes)
+    private final Map<UUID, Integer> hotAccounts = new ConcurrentHashMap<>();
+
+    public HotAccountService(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             AccountCache accountCache,
+                             @Autowired(required = false) LedgerEngine ledgerEngine,
+                             @Autowired(required = false) JournalBalanceStore journal,
+                             @Value("${banking.accounts.hot.account-ids:}") List<UUID> configuredAccountIds,
+                             @Value("${banking.accounts.hot.buckets:16}") int defaultBuckets) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.accountCache = accountCache;
+        this.available = ledgerEngine == null && journal == null;
+        this.configuredAccountIds = configuredAccountIds;
+        this.defaultBuckets = defaultBuckets;
+        this.bucketCredits = Counter.builder("accounts.hot.credits")
+                .description("Credits applied to a hot account's sub-balance bucket")
+                .register(meterRegistry);
+        this.merges = Counter.builder("accounts.hot.merges")
+                .description("Bucket merges into the main account row")
+                .register(meterRegistry);
+        Gauge.builder("accounts.hot.count", hotAccounts, Map::size)
+                .description("Accounts currently in hot mode")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        if (!available) {
+            return;
+        }
+        refresh();
+        for (UUID accountId : configuredAccountIds) {
+            if (!hotAccounts.containsKey(accountId)) {
+                markHot(accountId, defaultBuckets);
+            }
+        }
+    }
+
+    public boolean isHot(UUID accountId) {
+        return hotAccounts.containsKey(accountId);
+    }
+
+    public Map<UUID, Integer> hotAccounts() {
+        return Map.copyOf(hotAccounts);
+    }
+
+    // banking.accounts.hot.buckets: the bucket count when none is given
+    public int defaultBuckets() {
+        return defaultBuckets;
+    }
+
+    //1. Split an account's credit side into buckets (re-marking with another count merges first)
+    public void markHot(UUID accountId, int buckets) {
+        if (!available) {
+            throw new InvalidAccountDataException("Hot accounts are not supported with the ledger or journal balance modes");
+        }
+        if (buckets < 1 || buckets > MAX_BUCKETS) {
+            throw new InvalidAccountDataException("Bucket count must be between 1 and " + MAX_BUCKETS);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            lockMainRow(accountId);
+            mergeBuckets(accountId);
+            jdbcTemplate.update("DELETE FROM account_sub_balances WHERE account_id = ?", accountId);
+            List<Object[]> rows = new ArrayList<>(buckets);
+            for (int i = 0; i < buckets; i++) {
+                rows.add(new Object[]{accountId, i});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO account_sub_balances (account_id, bucket, balance) VALUES (?, ?, 0)", rows);
+        });
+        hotAccounts.put(accountId, buckets);
+        logger.info("Account {} marked hot with {} buckets", accountId, buckets);
+    }
+
+    //2. Merge the buckets back and return the account to the single-row model
+    public void unmarkHot(UUID accountId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            lockMainRow(accountId);
+            mergeBuckets(accountId);
+            jdbcTemplate.update("DELETE FROM account_sub_balances WHERE account_id = ?", accountId);
+        });
+        hotAccounts.remove(accountId);
+        accountCache.evictAccount(accountId);
+        logger.info("Account {} is no longer hot", accountId);
+    }
+
+    // Credits a random bucket inside the caller's transaction. Returns false when the account is not
+    // hot, in which case the caller credits the main row as usual.
+    boolean credit(UUID accountId, BigDecimal amount) {
+        Integer buckets = hotAccounts.get(accountId);
+        if (buckets == null) {
+            return false;
+        }
+        int bucket = ThreadLocalRandom.current().nextInt(buckets);
+        if (jdbcTemplate.update(CREDIT_SQL, amount, accountId, bucket, accountId) == 1) {
+            bucketCredits.increment();
+            return true;
+        }
+        List<String> status = jdbcTemplate.queryForList("SELECT status FROM accounts WHERE account_id = ?", String.class, accountId);
+        if (status.isEmpty()) {
+            throw new AccountNotFoundException("Destination account not found with ID: " + accountId);
+        }
+        if (!"ACTIVE".equals(status.get(0))) {
+            throw new AccountInactiveException("One or both accounts are not active");
+        }
+        // Unmarked (possibly by another instance) since we last looked
+        hotAccounts.remove(accountId);
+        return false;
+    }
+
+    // Moves the buckets into accounts.balance inside the caller's transaction, returns the amount moved
+    BigDecimal mergeInCurrentTransaction(UUID accountId) {
+        if (!hotAccounts.containsKey(accountId)) {
+            return BigDecimal.ZERO;
+        }
+        lockMainRow(accountId);
+        return mergeBuckets(accountId);
+    }
+
+    // For callers that already hold the main row (as a loaded entity): zero the buckets and return
+    // their total, which the caller adds to the entity's balance itself
+    BigDecimal drainBuckets(UUID accountId) {
+        if (!hotAccounts.containsKey(accountId)) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal total = lockBuckets(accountId);
+        if (total.signum() != 0) {
+            jdbcTemplate.update("UPDATE account_sub_balances SET balance = 0 WHERE account_id = ?", accountId);
+            merges.increment();
+        }
+        return total;
+    }
+
+    // Bucket totals not yet merged into accounts.balance; non-hot and unknown ids are left out
+    public Map<UUID, BigDecimal> pendingBalances(Collection<UUID> accountIds) {
+        Map<UUID, BigDecimal> pending = new HashMap<>();
+        List<UUID> hot = accountIds.stream().filter(hotAccounts::containsKey).toList();
+        if (hot.isEmpty()) {
+            return pending;
+        }
+        namedJdbcTemplate.query(PENDING_SQL, new MapSqlParameterSource("accountIds", hot),
+                rs -> {
+                    pending.put(rs.getObject(1, UUID.class), rs.getBigDecimal(2));
+                });
+        return pending;
+    }
+
+    @Scheduled(fixedDelayString = "${banking.accounts.hot.sweep-interval-ms:5000}")
+    public void sweep() {
+        if (!available) {
+            return;
+        }
+        refresh();
+        for (UUID accountId : Set.copyOf(hotAccounts.keySet())) {
+            try {
+                BigDecimal merged = transactionTemplate.execute(status -> mergeInCurrentTransaction(accountId));
+                if (merged != null && merged.signum() != 0) {
+                    accountCache.evictAccount(accountId);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Sweeping hot account {} failed, will retry on the next run", accountId, e);
+            }
+        }
+    }
+
+    private void refresh() {
+        Map<UUID, Integer> current = new HashMap<>();
+        jdbcTemplate.query("SELECT account_id, COUNT(*) FROM account_sub_balances GROUP BY account_id", rs -> {
+            current.put(rs.getObject(1, UUID.class), rs.getInt(2));
+        });
+        hotAccounts.keySet().retainAll(current.keySet());
+        hotAccounts.putAll(current);
+    }
+
+    private void lockMainRow(UUID accountId) {
+        if (jdbcTemplate.queryForList(LOCK_MAIN_SQL, UUID.class, accountId).isEmpty()) {
+            throw new AccountNotFoundException("Account not found with ID: " + accountId);
+        }
+    }
+
+    private BigDecimal mergeBuckets(UUID accountId) {
+        BigDecimal total = lockBuckets(accountId);
+        if (total.signum() != 0) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.update("UPDATE account_sub_balances SET balance = 0 WHERE account_id = ?", accountId);
+            jdbcTemplate.update(MERGE_SQL, total, now, now, accountId);
+            merges.increment();
+        }
+        return total;
+    }
+
+    private BigDecimal lockBuckets(UUID accountId) {
+        return jdbcTemplate.queryForList(LOCK_BUCKETS_SQL, BigDecimal.class, accountId).stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
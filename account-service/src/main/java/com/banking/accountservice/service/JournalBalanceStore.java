@@ -0,0 +1,187 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.exception.AccountInactiveException;
+import com.banking.accountservice.exception.AccountNotFoundException;
+import com.banking.accountservice.exception.InsufficientFundsException;
+import com.banking.accountservice.model.Account;
+import com.banking.accountservice.model.JournalEntry;
+import com.banking.accountservice.model.Money;
+import com.banking.accountservice.model.OutboxEvent;
+import com.banking.accountservice.repository.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Journal balance mode (banking.accounts.journal.enabled=true).
+ *
+ * Instead of overwriting accounts.balance, every debit and credit is appended to account_journal.
+ * accounts.balance becomes a snapshot that already includes every entry up to
+ * accounts.journal_position, so the current balance is the snapshot plus the newer entries.
+ * JournalCompactor folds new entries into the snapshot in the background.
+ *
+ * Credits only take a shared lock on the account row, so concurrent payments into the same
+ * account do not queue behind each other; a debit locks its row exclusively for the funds check.
+ * Nothing here writes to the accounts row: last_transaction_date is set by the compactor.
+ */
+@Service
+@ConditionalOnProperty(name = "banking.accounts.journal.enabled", havingValue = "true")
+public class JournalBalanceStore {
+
+    static final String INSERT_SQL =
+            "INSERT INTO account_journal (account_id, transfer_id, entry_type, amount, created_at) VALUES (?, ?, ?, ?, ?)";
+    // One statement, so the snapshot and the unfolded entries are read consistently with the compactor
+    private static final String BALANCES_SQL =
+            "SELECT a.account_id, a.balance + COALESCE((SELECT SUM(j.amount) FROM account_journal j " +
+            "WHERE j.account_id = a.account_id AND j.entry_id > a.journal_position), 0) " +
+            "FROM accounts a WHERE a.account_id IN (:accountIds)";
+
+    private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceOutbox balanceOutbox;
+    private final Counter entriesWritten;
+
+    public JournalBalanceStore(AccountRepository accountRepository,
+                               JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               BalanceOutbox balanceOutbox,
+                               MeterRegistry meterRegistry,
+                               @Autowired(required = false) LedgerEngine ledgerEngine) {
+        if (ledgerEngine != null) {
+            throw new IllegalStateException("banking.accounts.journal.enabled and banking.ledger.enabled cannot both be true");
+        }
+        this.accountRepository = accountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.balanceOutbox = balanceOutbox;
+        this.entriesWritten = Counter.builder("accounts.journal.entries")
+                .description("Entries appended to account_journal")
+                .register(meterRegistry);
+    }
+
+    //1. Record the opening balance of a new account; runs in the caller's transaction
+    public void open(UUID accountId, BigDecimal initialBalance) {
+        append(new Object[][]{entry(accountId, null, JournalEntry.EntryType.OPENING, initialBalance, LocalDateTime.now())});
+        // The snapshot column already holds the initial balance, so the opening entry counts as folded
+        jdbcTemplate.update("UPDATE accounts SET journal_position = " +
+                "(SELECT MAX(entry_id) FROM account_journal WHERE account_id = ?) WHERE account_id = ?", accountId, accountId);
+    }
+
+    //2. Debit + credit pair, appended in one batch
+    public void transfer(UUID fromAccountId, UUID toAccountId, Money amount) {
+        transfer(fromAccountId, toAccountId, amount, false);
+    }
+
+    //2b. Same, returning both balances read inside that transaction
+    public Map<UUID, BigDecimal> transferAndReadBalances(UUID fromAccountId, UUID toAccountId, Money amount) {
+        return transfer(fromAccountId, toAccountId, amount, true);
+    }
+
+    private Map<UUID, BigDecimal> transfer(UUID fromAccountId, UUID toAccountId, Money amount, boolean readBalances) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            // Same ordering rule as the atomic path: lock in accountId order
+            Account from;
+            Account to;
+            if (AccountLockOrder.compare(fromAccountId, toAccountId) < 0) {
+                from = lockForDebit(fromAccountId);
+                to = lockForCredit(toAccountId);
+            } else {
+                to = lockForCredit(toAccountId);
+                from = lockForDebit(fromAccountId);
+            }
+            if (from.getStatus() != Account.AccountStatus.ACTIVE || to.getStatus() != Account.AccountStatus.ACTIVE) {
+                throw new AccountInactiveException("One or both accounts are not active");
+            }
+            if (Money.of(balanceOf(fromAccountId)).isLessThan(amount)) {
+                throw new InsufficientFundsException("Insufficient funds in source account");
+            }
+            UUID transferId = UUID.randomUUID();
+            append(new Object[][]{
+                    entry(fromAccountId, transferId, JournalEntry.EntryType.DEBIT, amount.negate().toBigDecimal(), now),
+                    entry(toAccountId, transferId, JournalEntry.EntryType.CREDIT, amount.toBigDecimal(), now)
+            });
+            balanceOutbox.recordTransfer(fromAccountId, toAccountId, amount);
+            return readBalances ? balancesOf(List.of(fromAccountId, toAccountId)) : null;
+        });
+    }
+
+    //3. Signed single-account adjustment, returns the new balance
+    public Money adjust(UUID accountId, Money amount) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (amount.isNegative()) {
+                accountRepository.findForUpdate(accountId)
+                        .orElseThrow(() -> new AccountNotFoundException("Account not found with ID: " + accountId));
+            } else {
+                accountRepository.findForShare(accountId)
+                        .orElseThrow(() -> new AccountNotFoundException("Account not found with ID: " + accountId));
+            }
+            Money newBalance = Money.of(balanceOf(accountId)).plus(amount);
+            if (newBalance.isNegative()) {
+                throw new InsufficientFundsException("Insufficient funds for this operation");
+            }
+            append(new Object[][]{entry(accountId, null, JournalEntry.EntryType.ADJUSTMENT, amount.toBigDecimal(), now)});
+            balanceOutbox.record(accountId, OutboxEvent.EventType.ADJUSTMENT, amount);
+            return newBalance;
+        });
+    }
+
+    // Snapshot + entries not yet folded in
+    public BigDecimal balanceOf(UUID accountId) {
+        BigDecimal balance = balancesOf(List.of(accountId)).get(accountId);
+        if (balance == null) {
+            throw new AccountNotFoundException("Account not found with ID: " + accountId);
+        }
+        return balance;
+    }
+
+    // Unknown ids are absent from the result
+    public Map<UUID, BigDecimal> balancesOf(Collection<UUID> accountIds) {
+        Map<UUID, BigDecimal> balances = new HashMap<>();
+        if (accountIds.isEmpty()) {
+            return balances;
+        }
+        namedJdbcTemplate.query(BALANCES_SQL, new MapSqlParameterSource("accountIds", accountIds), rs -> {
+            balances.put(rs.getObject(1, UUID.class), rs.getBigDecimal(2));
+        });
+        return balances;
+    }
+
+    private Account lockForDebit(UUID accountId) {
+        return accountRepository.findForUpdate(accountId)
+                .orElseThrow(() -> new AccountNotFoundException("Source account not found with ID: " + accountId));
+    }
+
+    private Account lockForCredit(UUID accountId) {
+        return accountRepository.findForShare(accountId)
+                .orElseThrow(() -> new AccountNotFoundException("Destination account not found with ID: " + accountId));
+    }
+
+    private void append(Object[][] entries) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, List.of(entries));
+        entriesWritten.increment(entries.length);
+    }
+
+    private Object[] entry(UUID accountId, UUID transferId, JournalEntry.EntryType type, BigDecimal amount, LocalDateTime at) {
+        return new Object[]{accountId, transferId, type.name(), amount, Timestamp.valueOf(at)};
+    }
+}
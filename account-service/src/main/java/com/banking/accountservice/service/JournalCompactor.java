@@ -0,0 +1,204 @@
+package com.banking.accountservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background side of journal mode: folds new account_journal entries into the accounts.balance
+ * snapshot, and rebuilds snapshots from the full journal when asked to.
+ *
+ * Each chunk of accounts is locked in accountId order before folding, which waits for any
+ * in-flight debit or credit on those accounts, so no entry can commit below the new position.
+ */
+@Service
+@ConditionalOnProperty(name = "banking.accounts.journal.enabled", havingValue = "true")
+public class JournalCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalCompactor.class);
+
+    private static final String LOCK_SQL =
+            "SELECT account_id FROM accounts WHERE account_id IN (:accountIds) ORDER BY account_id FOR UPDATE";
+    private static final String FOLD_SQL =
+            "SELECT j.account_id, SUM(j.amount), MAX(j.entry_id), MAX(j.created_at) " +
+            "FROM account_journal j JOIN accounts a ON a.account_id = j.account_id " +
+            "WHERE j.account_id IN (:accountIds) AND j.entry_id > a.journal_position GROUP BY j.account_id";
+    private static final String APPLY_SQL =
+            "UPDATE accounts SET balance = balance + ?, journal_position = ?, " +
+            "last_transaction_date = CASE WHEN last_transaction_date IS NULL OR last_transaction_date < ? THEN ? ELSE last_transaction_date END, " +
+            "updated_at = ?, version = version + 1 WHERE account_id = ?";
+    private static final String REBUILD_SQL =
+            "SELECT account_id, SUM(amount), MAX(entry_id), MAX(created_at) FROM account_journal " +
+            "WHERE account_id IN (:accountIds) GROUP BY account_id";
+    private static final String REBUILD_APPLY_SQL =
+            "UPDATE accounts SET balance = ?, journal_position = ?, updated_at = ?, version = version + 1 WHERE account_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountCache accountCache;
+    private final int chunkSize;
+    private final boolean rebuildOnStartup;
+    private final Timer compactionTimer;
+    private final Counter foldedAccounts;
+
+    // Highest entry id already scanned for work. Entries that commit out of id order below it are
+    // still counted by reads and get folded the next time their account is compacted or rebuilt.
+    private final AtomicLong scannedUpTo = new AtomicLong();
+
+    public JournalCompactor(JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            AccountCache accountCache,
+                            @Value("${banking.accounts.journal.chunk-size:500}") int chunkSize,
+                            @Value("${banking.accounts.journal.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.accountCache = accountCache;
+        this.chunkSize = chunkSize;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.compactionTimer = Timer.builder("accounts.journal.compaction")
+                .description("Duration of a journal compaction run")
+                .register(meterRegistry);
+        this.foldedAccounts = Counter.builder("accounts.journal.compaction.accounts")
+                .description("Account snapshots advanced by the compactor")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        seedOpeningEntries();
+        if (rebuildOnStartup) {
+            rebuildAll();
+        }
+    }
+
+    // Fold everything on shutdown so accounts.balance is complete if journal mode is switched off
+    @PreDestroy
+    void stop() {
+        compact();
+    }
+
+    @Scheduled(fixedDelayString = "${banking.accounts.journal.compaction-interval-ms:10000}")
+    public void compact() {
+        compactionTimer.record(() -> {
+            long from = scannedUpTo.get();
+            while (true) {
+                List<UUID> accountIds = new ArrayList<>();
+                long[] maxSeen = {from};
+                jdbcTemplate.query("SELECT account_id, MAX(entry_id) FROM account_journal WHERE entry_id > ? " +
+                        "GROUP BY account_id ORDER BY MAX(entry_id) FETCH FIRST " + chunkSize + " ROWS ONLY", rs -> {
+                    accountIds.add(rs.getObject(1, UUID.class));
+                    maxSeen[0] = Math.max(maxSeen[0], rs.getLong(2));
+                }, from);
+                if (accountIds.isEmpty()) {
+                    break;
+                }
+                fold(accountIds);
+                from = maxSeen[0];
+                scannedUpTo.set(from);
+                if (accountIds.size() < chunkSize) {
+                    break;
+                }
+            }
+        });
+    }
+
+    private void fold(List<UUID> accountIds) {
+        transactionTemplate.executeWithoutResult(status -> {
+            MapSqlParameterSource params = new MapSqlParameterSource("accountIds", accountIds);
+            namedJdbcTemplate.queryForList(LOCK_SQL, params, UUID.class);
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            List<Object[]> updates = new ArrayList<>();
+            namedJdbcTemplate.query(FOLD_SQL, params, rs -> {
+                Timestamp lastEntryAt = rs.getTimestamp(4);
+                updates.add(new Object[]{rs.getBigDecimal(2), rs.getLong(3), lastEntryAt, lastEntryAt, now,
+                        rs.getObject(1, UUID.class)});
+            });
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(APPLY_SQL, updates);
+                foldedAccounts.increment(updates.size());
+            }
+        });
+    }
+
+    /**
+     * Recovery: recomputes every journaled account's snapshot from its full journal history,
+     * one locked chunk at a time. Returns the number of accounts rebuilt.
+     */
+    public long rebuildAll() {
+        long rebuilt = 0;
+        UUID after = new UUID(0L, 0L);
+        while (true) {
+            List<UUID> accountIds = jdbcTemplate.queryForList(
+                    "SELECT account_id FROM accounts WHERE account_id > ? ORDER BY account_id FETCH FIRST " + chunkSize + " ROWS ONLY",
+                    UUID.class, after);
+            if (accountIds.isEmpty()) {
+                break;
+            }
+            Integer count = transactionTemplate.execute(status -> {
+                MapSqlParameterSource params = new MapSqlParameterSource("accountIds", accountIds);
+                namedJdbcTemplate.queryForList(LOCK_SQL, params, UUID.class);
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                List<Object[]> updates = new ArrayList<>();
+                namedJdbcTemplate.query(REBUILD_SQL, params, rs -> {
+                    BigDecimal total = rs.getBigDecimal(2);
+                    updates.add(new Object[]{total, rs.getLong(3), now, rs.getObject(1, UUID.class)});
+                });
+                if (!updates.isEmpty()) {
+                    jdbcTemplate.batchUpdate(REBUILD_APPLY_SQL, updates);
+                }
+                return updates.size();
+            });
+            rebuilt += count == null ? 0 : count;
+            accountCache.evictAccounts(accountIds);
+            if (accountIds.size() < chunkSize) {
+                break;
+            }
+            after = accountIds.get(accountIds.size() - 1);
+        }
+        logger.info("Rebuilt {} account balances from the journal", rebuilt);
+        return rebuilt;
+    }
+
+    // Accounts that existed before journal mode get an OPENING entry for their current balance, so
+    // that the journal alone can rebuild them
+    private void seedOpeningEntries() {
+        int seeded = transactionTemplate.execute(status -> {
+            int inserted = jdbcTemplate.update(
+                    "INSERT INTO account_journal (account_id, transfer_id, entry_type, amount, created_at) " +
+                    "SELECT a.account_id, NULL, 'OPENING', a.balance, CURRENT_TIMESTAMP FROM accounts a " +
+                    "WHERE a.journal_position = 0 AND NOT EXISTS (SELECT 1 FROM account_journal j WHERE j.account_id = a.account_id)");
+            if (inserted > 0) {
+                jdbcTemplate.update("UPDATE accounts a SET journal_position = " +
+                        "(SELECT MAX(j.entry_id) FROM account_journal j WHERE j.account_id = a.account_id AND j.entry_type = 'OPENING') " +
+                        "WHERE a.journal_position = 0 AND EXISTS (SELECT 1 FROM account_journal j WHERE j.account_id = a.account_id " +
+                        "AND j.entry_type = 'OPENING')");
+            }
+            return inserted;
+        });
+        if (seeded > 0) {
+            logger.info("Seeded opening journal entries for {} existing accounts", seeded);
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.exception.AccountInactiveException;
+import com.banking.accountservice.exception.AccountNotFoundException;
+import com.banking.accountservice.exception.InsufficientFundsException;
+import com.banking.accountservice.model.Account;
+import com.banking.accountservice.model.Money;
+import com.banking.accountservice.model.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional in-memory ledger for hot accounts (banking.ledger.enabled=true).
+ *
+ * Balances are kept in memory and guarded by striped locks, so a transfer never waits on a
+ * database row lock. Every change is queued for a single writer thread that applies the
+ * queued deltas to the accounts table in ordered JDBC batches (group commit). Callers only
+ * return once the batch holding their transfer is committed, so the accounts table is always
+ * the durable copy: after a restart (or a failed batch) balances are simply re-read from it.
+ * Balances and deltas are held as long cents; BigDecimal only appears when reading or writing rows.
+ * Each batch writes the BalanceChanged outbox events of its changes in the same transaction.
+ *
+ * Funds are checked against this instance's cache only. Anything else that moves money on a cached
+ * account (another instance with the ledger, or the database paths of AccountService) is not seen
+ * until the account is reloaded, so the batch UPDATE re-checks balance + delta >= 0 itself. A batch
+ * where that check fails is rejected as a whole and the cache is dropped, like any failed batch:
+ * its callers get an error and nothing of it is written. Correct, but every such conflict costs a
+ * batch, so the ledger pays off only where it is the (near) only writer of its hot accounts.
+ */
+@Service
+@ConditionalOnProperty(name = "banking.ledger.enabled", havingValue = "true")
+public class LedgerEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerEngine.class);
+
+    private static final String LOAD_SQL =
+            "SELECT balance, status FROM accounts WHERE account_id = ?";
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE accounts SET balance = balance + ?, last_transaction_date = ?, updated_at = ?, version = version + 1 "
+                    + "WHERE account_id = ? AND balance + ? >= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceOutbox balanceOutbox;
+    private final StripedLocks locks;
+    private final Map<UUID, LedgerAccount> accounts = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+
+    private final int batchSize;
+    private final long commitTimeoutMs;
+    private final int maxCachedAccounts;
+
+    private final Timer flushTimer;
+    private final Counter flushFailures;
+    private final Counter cacheMisses;
+    private final Counter slowCommits;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public LedgerEngine(JdbcTemplate jdbcTemplate,
+                        TransactionTemplate transactionTemplate,
+                        BalanceOutbox balanceOutbox,
+                        MeterRegistry meterRegistry,
+                        @Value("${banking.ledger.stripes:64}") int stripes,
+                        @Value("${banking.ledger.batch-size:500}") int batchSize,
+                        @Value("${banking.ledger.commit-timeout-ms:5000}") long commitTimeoutMs,
+                        @Value("${banking.ledger.max-cached-accounts:100000}") int maxCachedAccounts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.balanceOutbox = balanceOutbox;
+        this.locks = new StripedLocks(stripes, meterRegistry, "ledger.stripe");
+        this.batchSize = batchSize;
+        this.commitTimeoutMs = commitTimeoutMs;
+        this.maxCachedAccounts = maxCachedAccounts;
+
+        this.flushTimer = Timer.builder("ledger.flush")
+                .description("Time to write one ordered batch to the accounts table")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("ledger.flush.failures")
+                .description("Batches that could not be written and forced a reload from the database")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("ledger.cache.misses")
+                .description("Accounts loaded from the database into the ledger")
+                .register(meterRegistry);
+        this.slowCommits = Counter.builder("ledger.commit.slow")
+                .description("Callers still waiting for their batch after commit-timeout-ms")
+                .register(meterRegistry);
+        Gauge.builder("ledger.accounts.cached", accounts, Map::size).register(meterRegistry);
+        Gauge.builder("ledger.queue.depth", queue, LinkedBlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        // Nothing to replay: acknowledged changes are already in the accounts table,
+        // so recovery after a restart is just loading balances lazily on first use.
+        running = true;
+        writer = new Thread(this::writeBehindLoop, "ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Ledger engine started with {} stripes, batch size {}", locks.size(), batchSize);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(commitTimeoutMs);
+    }
+
+    //1. Transfer between two accounts, returns both balances right after it once the change is durable
+    public Map<UUID, BigDecimal> transfer(UUID fromAccountId, UUID toAccountId, Money amount) {
+        Map<UUID, BigDecimal> balances = new HashMap<>(4);
+        await(applyTransfer(fromAccountId, toAccountId, amount, balances));
+        return balances;
+    }
+
+    //2. Apply a signed amount to one account (credit if positive, debit if negative)
+    public Money adjust(UUID accountId, Money amount) {
+        int stripe = locks.stripeFor(accountId);
+        PendingWrite write;
+        long newBalance;
+        locks.lock(stripe);
+        try {
+            LedgerAccount account = load(accountId, "Account not found with ID: ");
+            newBalance = Money.addCents(account.balance, amount.cents());
+            if (newBalance < 0) {
+                throw new InsufficientFundsException("Insufficient funds for this operation");
+            }
+            account.balance = newBalance;
+            write = enqueue(List.of(new PendingChange(accountId, amount.cents(), account, OutboxEvent.EventType.ADJUSTMENT, null)));
+        } finally {
+            locks.unlock(stripe);
+        }
+        await(write.committed);
+        return Money.ofCents(newBalance);
+    }
+
+    //3. Keep cached status in line with status changes made elsewhere (e.g. the inactivation job)
+    public void markInactive(Collection<UUID> accountIds) {
+        for (UUID accountId : accountIds) {
+            int stripe = locks.stripeFor(accountId);
+            locks.lock(stripe);
+            try {
+                LedgerAccount account = accounts.get(accountId);
+                if (account != null) {
+                    account.status = Account.AccountStatus.INACTIVE;
+                }
+            } finally {
+                locks.unlock(stripe);
+            }
+        }
+    }
+
+    CompletableFuture<Void> applyTransfer(UUID fromAccountId, UUID toAccountId, Money amount) {
+        return applyTransfer(fromAccountId, toAccountId, amount, null);
+    }
+
+    // Fills balances (if given) with both accounts' balances as applied
+    private CompletableFuture<Void> applyTransfer(UUID fromAccountId, UUID toAccountId, Money amount,
+                                                  Map<UUID, BigDecimal> balances) {
+        int[] held = locks.lockPair(fromAccountId, toAccountId);
+        try {
+            LedgerAccount from = load(fromAccountId, "Source account not found with ID: ");
+            LedgerAccount to = load(toAccountId, "Destination account not found with ID: ");
+
+            if (from.status != Account.AccountStatus.ACTIVE || to.status != Account.AccountStatus.ACTIVE) {
+                throw new AccountInactiveException("One or both accounts are not active");
+            }
+            long cents = amount.cents();
+            if (from.balance < cents) {
+                throw new InsufficientFundsException("Insufficient funds in source account");
+            }
+
+            // Credit first: it is the only step that can overflow, and nothing has changed yet if it does
+            to.balance = Money.addCents(to.balance, cents);
+            from.balance -= cents;
+            if (balances != null) {
+                balances.put(fromAccountId, Money.ofCents(from.balance).toBigDecimal());
+                balances.put(toAccountId, Money.ofCents(to.balance).toBigDecimal());
+            }
+
+            // Enqueued while the stripes are held so the writer sees changes in apply order, and as one
+            // entry so both legs always land in the same batch
+            UUID transferId = UUID.randomUUID();
+            return enqueue(List.of(
+                    new PendingChange(fromAccountId, -cents, from, OutboxEvent.EventType.DEBIT, transferId),
+                    new PendingChange(toAccountId, cents, to, OutboxEvent.EventType.CREDIT, transferId))).committed;
+        } finally {
+            locks.unlock(held);
+        }
+    }
+
+    private LedgerAccount load(UUID accountId, String notFoundMessage) {
+        LedgerAccount account = accounts.get(accountId);
+        if (account != null) {
+            return account;
+        }
+        cacheMisses.increment();
+        List<LedgerAccount> rows = jdbcTemplate.query(LOAD_SQL,
+                (rs, rowNum) -> new LedgerAccount(
+                        Money.of(rs.getBigDecimal("balance")).cents(),
+                        Account.AccountStatus.valueOf(rs.getString("status"))),
+                accountId);
+        if (rows.isEmpty()) {
+            throw new AccountNotFoundException(notFoundMessage + accountId);
+        }
+        if (accounts.size() >= maxCachedAccounts) {
+            evictIdle();
+        }
+        account = rows.get(0);
+        accounts.put(accountId, account);
+        return account;
+    }
+
+    // Drops cached accounts with nothing waiting to be written. Uses tryLock only, since the
+    // caller already holds stripes and blocking here could break the global lock order.
+    // Stripes the caller holds are skipped: the locks are reentrant, so tryLock would succeed
+    // there and could evict the other account of the transfer being applied.
+    private void evictIdle() {
+        for (Map.Entry<UUID, LedgerAccount> entry : accounts.entrySet()) {
+            int stripe = locks.stripeFor(entry.getKey());
+            if (locks.isHeldByCurrentThread(stripe) || !locks.tryLock(stripe)) {
+                continue;
+            }
+            try {
+                if (entry.getValue().unflushed.get() == 0) {
+                    accounts.remove(entry.getKey());
+                }
+            } finally {
+                locks.unlock(stripe);
+            }
+            if (accounts.size() < maxCachedAccounts / 2) {
+                return;
+            }
+        }
+    }
+
+    private PendingWrite enqueue(List<PendingChange> changes) {
+        for (PendingChange change : changes) {
+            change.account.unflushed.incrementAndGet();
+        }
+        PendingWrite write = new PendingWrite(changes);
+        queue.add(write);
+        return write;
+    }
+
+    void await(CompletableFuture<Void> committed) {
+        try {
+            try {
+                committed.get(commitTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // The change is already applied and queued, so failing here would invite a retry that
+                // applies it twice. The writer always completes it, either committed or rejected.
+                slowCommits.increment();
+                logger.warn("Ledger commit still pending after {} ms, waiting for the writer", commitTimeoutMs);
+                committed.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Ledger commit failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for ledger commit", e);
+        }
+    }
+
+    private void writeBehindLoop() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Everything that queued up while the previous batch was being written goes together
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                if (running) {
+                    Thread.currentThread().interrupt();
+                    logger.warn("Ledger writer interrupted while running");
+                    // Nothing would complete the queued writes any more
+                    reset(batch, new IllegalStateException("Ledger writer stopped"));
+                    return;
+                }
+            } catch (RuntimeException e) {
+                flushFailures.increment();
+                logger.error("Ledger batch of {} writes failed, reloading balances from the database", batch.size(), e);
+                reset(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        List<PendingChange> changes = new ArrayList<>(batch.size() * 2);
+        for (PendingWrite write : batch) {
+            changes.addAll(write.changes);
+        }
+        // Net delta per account, sorted by accountId so concurrent writers lock rows in the same order
+        TreeMap<UUID, Long> deltas = new TreeMap<>();
+        for (PendingChange change : changes) {
+            deltas.merge(change.accountId, change.delta, Long::sum);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((accountId, delta) -> {
+            BigDecimal amount = Money.ofCents(delta).toBigDecimal();
+            args.add(new Object[]{amount, now, now, accountId, amount});
+        });
+        List<BalanceOutbox.Change> events = new ArrayList<>(changes.size());
+        for (PendingChange change : changes) {
+            events.add(new BalanceOutbox.Change(change.accountId, change.type, Money.ofCents(change.delta), change.transferId));
+        }
+
+        flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            int[] counts = jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, args);
+            for (int count : counts) {
+                if (count == 0) {
+                    // Deleted, or debited by another writer since it was cached: memory is stale
+                    throw new IllegalStateException("Account disappeared or would be overdrawn by a ledger batch");
+                }
+            }
+            // Written after the whole batch, so every event carries its account's balance as of this commit
+            balanceOutbox.recordAll(events);
+        }));
+
+        for (PendingChange change : changes) {
+            change.account.unflushed.decrementAndGet();
+        }
+        for (PendingWrite write : batch) {
+            write.committed.complete(null);
+        }
+    }
+
+    // A failed batch leaves memory ahead of the database. Reject it together with everything
+    // queued after it and drop the cache, so the next call reloads the committed balances.
+    private void reset(List<PendingWrite> failed, RuntimeException cause) {
+        locks.lockAll();
+        try {
+            List<PendingWrite> rejected = new ArrayList<>(failed);
+            queue.drainTo(rejected);
+            IllegalStateException error = new IllegalStateException("Ledger write failed, transfer was not applied", cause);
+            for (PendingWrite write : rejected) {
+                write.committed.completeExceptionally(error);
+            }
+            accounts.clear();
+        } finally {
+            locks.unlockAll();
+        }
+    }
+
+    private static final class LedgerAccount {
+        // Both guarded by the account's stripe lock; balance in cents
+        private long balance;
+        private Account.AccountStatus status;
+        // Changes applied in memory but not yet written; only idle accounts may be evicted
+        private final AtomicInteger unflushed = new AtomicInteger();
+
+        private LedgerAccount(long balance, Account.AccountStatus status) {
+            this.balance = balance;
+            this.status = status;
+        }
+    }
+
+    private static final class PendingChange {
+        private final UUID accountId;
+        private final long delta;
+        private final LedgerAccount account;
+        private final OutboxEvent.EventType type;
+        private final UUID transferId;
+
+        private PendingChange(UUID accountId, long delta, LedgerAccount account, OutboxEvent.EventType type, UUID transferId) {
+            this.accountId = accountId;
+            this.delta = delta;
+            this.account = account;
+            this.type = type;
+            this.transferId = transferId;
+        }
+    }
+
+    // The changes of one transfer or adjustment: always written in the same batch
+    private static final class PendingWrite {
+        private final List<PendingChange> changes;
+        private final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+        private PendingWrite(List<PendingChange> changes) {
+            this.changes = changes;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.dto.BalanceChangedEventDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes account_outbox rows to Kafka, oldest first, keyed by accountId so that all events of
+ * an account land on one partition in order.
+ *
+ * A batch is locked with SELECT ... FOR UPDATE, sent, and deleted only after every send in it has
+ * been acknowledged, all in one transaction: a failure leaves the rows for the next run
+ * (at-least-once, consumers dedupe on eventId). The lock is deliberately not SKIP LOCKED, so a
+ * second instance waits for the first batch instead of publishing later events ahead of it.
+ * Runs on its own thread because a Kafka outage blocks sends for up to max.block.ms.
+ */
+@Service
+@ConditionalOnProperty(name = "banking.accounts.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final String DELETE_SQL = "DELETE FROM account_outbox WHERE event_id IN (:eventIds)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final String topic;
+    private final int batchSize;
+    private final long intervalMs;
+    private final long sendTimeoutMs;
+    private final Counter published;
+    private final Counter failures;
+    private final Timer deliveryLag;
+
+    private ScheduledExecutorService executor;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       KafkaTemplate<String, String> kafkaTemplate,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       @Value("${banking.kafka.topic.balance-events:account-balance-events}") String topic,
+                       @Value("${banking.accounts.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${banking.accounts.outbox.relay.interval-ms:200}") long intervalMs,
+                       @Value("${banking.accounts.outbox.relay.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+        this.batchSize = batchSize;
+        this.intervalMs = intervalMs;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.published = Counter.builder("accounts.outbox.published")
+                .description("BalanceChanged events acknowledged by Kafka and removed from the outbox")
+                .register(meterRegistry);
+        this.failures = Counter.builder("accounts.outbox.relay.failures")
+                .description("Relay batches that failed and will be retried")
+                .register(meterRegistry);
+        this.deliveryLag = Timer.builder("accounts.outbox.delivery.lag")
+                .description("Time from writing an event to its Kafka acknowledgement")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::drain, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(sendTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Publishes batches until the outbox is empty or a batch fails
+    public void drain() {
+        try {
+            while (publishBatch() == batchSize) {
+                // full batch, there may be more
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            logger.warn("Publishing account_outbox failed, will retry", e);
+        }
+    }
+
+    int publishBatch() {
+        Integer sent = transactionTemplate.execute(status -> {
+            List<BalanceChangedEventDto> events = jdbcTemplate.query(
+                    "SELECT event_id, account_id, event_type, amount, balance, status, transfer_id, created_at " +
+                    "FROM account_outbox ORDER BY event_id FETCH FIRST " + batchSize + " ROWS ONLY FOR UPDATE",
+                    (rs, rowNum) -> new BalanceChangedEventDto(
+                            rs.getLong("event_id"),
+                            rs.getObject("account_id", UUID.class),
+                            rs.getString("event_type"),
+                            rs.getBigDecimal("amount"),
+                            rs.getBigDecimal("balance"),
+                            rs.getString("status"),
+                            rs.getObject("transfer_id", UUID.class),
+                            rs.getTimestamp("created_at").toLocalDateTime()));
+            if (events.isEmpty()) {
+                return 0;
+            }
+            List<CompletableFuture<?>> acks = new ArrayList<>(events.size());
+            for (BalanceChangedEventDto event : events) {
+                acks.add(kafkaTemplate.send(topic, event.getAccountId().toString(), toJson(event)));
+            }
+            try {
+                CompletableFuture.allOf(acks.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                // Rolls back: the rows stay and the whole batch is sent again
+                throw new IllegalStateException("Kafka did not acknowledge the outbox batch", e);
+            }
+            List<Long> eventIds = events.stream().map(BalanceChangedEventDto::getEventId).toList();
+            namedJdbcTemplate.update(DELETE_SQL, new MapSqlParameterSource("eventIds", eventIds));
+            LocalDateTime now = LocalDateTime.now();
+            for (BalanceChangedEventDto event : events) {
+                deliveryLag.record(Duration.between(event.getOccurredAt(), now));
+            }
+            return events.size();
+        });
+        int count = sent == null ? 0 : sent;
+        published.increment(count);
+        return count;
+    }
+
+    private String toJson(BalanceChangedEventDto event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize outbox event " + event.getEventId(), e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.model.Account;
+import com.banking.accountservice.repository.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Set-based inactivation of accounts with no recent transactions.
+ *
+ * Stale ids are read in keyset pages (accountId > last id seen) and each page is flipped to
+ * INACTIVE with one bulk UPDATE in its own short transaction, so a run never loads the whole
+ * table nor holds locks on more than one chunk. Dry-run mode only counts what would be changed.
+ * The scan itself is read-only (so it can run on a replica); the UPDATE re-checks staleness on the
+ * primary, so ids from a lagging replica are harmless.
+ */
+@Service
+public class StaleAccountInactivator {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaleAccountInactivator.class);
+
+    // Smallest UUID, the keyset starting point
+    private static final UUID FIRST = new UUID(0L, 0L);
+
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AccountCache accountCache;
+    private final BalanceOutbox balanceOutbox;
+    private final LedgerEngine ledgerEngine;
+    private final int chunkSize;
+    private final boolean dryRun;
+    private final Timer runTimer;
+    private final Counter inactivatedCounter;
+    private final Counter candidatesCounter;
+
+    public StaleAccountInactivator(AccountRepository accountRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry,
+                                   AccountCache accountCache,
+                                   BalanceOutbox balanceOutbox,
+                                   @Autowired(required = false) LedgerEngine ledgerEngine,
+                                   @Value("${banking.accounts.inactivation.chunk-size:1000}") int chunkSize,
+                                   @Value("${banking.accounts.inactivation.dry-run:false}") boolean dryRun) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("banking.accounts.inactivation.chunk-size must be greater than zero");
+        }
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.accountCache = accountCache;
+        this.balanceOutbox = balanceOutbox;
+        this.ledgerEngine = ledgerEngine;
+        this.chunkSize = chunkSize;
+        this.dryRun = dryRun;
+        this.runTimer = Timer.builder("accounts.inactivation.duration")
+                .description("Duration of a stale-account inactivation run")
+                .tag("dry_run", String.valueOf(dryRun))
+                .register(meterRegistry);
+        this.inactivatedCounter = Counter.builder("accounts.inactivation.rows")
+                .description("Accounts switched to INACTIVE by the inactivation job")
+                .register(meterRegistry);
+        this.candidatesCounter = Counter.builder("accounts.inactivation.candidates")
+                .description("Stale accounts found by dry runs")
+                .register(meterRegistry);
+    }
+
+    // Returns the number of accounts inactivated, or in dry-run mode the number that would be
+    public long inactivateBefore(LocalDateTime cutoff) {
+        return runTimer.record(() -> dryRun ? count(cutoff) : inactivate(cutoff));
+    }
+
+    private long count(LocalDateTime cutoff) {
+        Long counted = readOnlyTransaction.execute(status -> accountRepository.countStale(Account.AccountStatus.ACTIVE, cutoff));
+        long stale = counted == null ? 0 : counted;
+        candidatesCounter.increment(stale);
+        logger.info("Dry run: {} accounts with no transactions since {} would be inactivated", stale, cutoff);
+        return stale;
+    }
+
+    private long inactivate(LocalDateTime cutoff) {
+        long total = 0;
+        int chunks = 0;
+        UUID after = FIRST;
+        while (true) {
+            UUID from = after;
+            List<UUID> ids = readOnlyTransaction.execute(status -> accountRepository.findStaleIdsAfter(
+                    Account.AccountStatus.ACTIVE, cutoff, from, PageRequest.of(0, chunkSize)));
+            if (ids.isEmpty()) {
+                break;
+            }
+            // Only the rows the UPDATE actually changes: the ones still stale, locked so that nothing
+            // can transact on them (or inactivate them) between the check and the UPDATE. Their STATUS
+            // events commit with the UPDATE, so subscribers to balance events see the change.
+            List<UUID> inactivated = transactionTemplate.execute(status -> {
+                List<UUID> changed = accountRepository.lockStale(ids, Account.AccountStatus.ACTIVE, cutoff).stream()
+                        .map(Account::getAccountId)
+                        .toList();
+                if (changed.isEmpty()) {
+                    return changed;
+                }
+                accountRepository.inactivateIfStale(changed, Account.AccountStatus.ACTIVE,
+                        Account.AccountStatus.INACTIVE, cutoff, LocalDateTime.now());
+                balanceOutbox.recordStatusChanges(changed);
+                return changed;
+            });
+            int rows = inactivated == null ? 0 : inactivated.size();
+            accountCache.evictAccounts(ids);
+            if (ledgerEngine != null && rows > 0) {
+                ledgerEngine.markInactive(inactivated);
+            }
+            inactivatedCounter.increment(rows);
+            total += rows;
+            chunks++;
+            if (ids.size() < chunkSize) {
+                break;
+            }
+            after = ids.get(ids.size() - 1);
+        }
+        logger.info("Inactivated {} accounts with no transactions since {} in {} chunks", total, cutoff, chunks);
+        return total;
+    }
+}
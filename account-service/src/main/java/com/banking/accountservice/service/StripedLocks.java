@@ -0,0 +1,115 @@
+package com.banking.accountservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed array of locks keyed by accountId.
+ * Locks are always taken in ascending stripe index, so two transfers touching the same
+ * pair of accounts (in any direction) can never deadlock.
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final Counter[] contended;
+    private final Timer[] waitTimers;
+
+    public StripedLocks(int stripes, MeterRegistry meterRegistry, String metricPrefix) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Stripe count must be greater than zero");
+        }
+        this.locks = new ReentrantLock[stripes];
+        this.contended = new Counter[stripes];
+        this.waitTimers = new Timer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            String stripe = String.valueOf(i);
+            locks[i] = new ReentrantLock();
+            contended[i] = Counter.builder(metricPrefix + ".contended")
+                    .description("Lock acquisitions that had to wait for another holder")
+                    .tag("stripe", stripe)
+                    .register(meterRegistry);
+            waitTimers[i] = Timer.builder(metricPrefix + ".wait")
+                    .description("Time spent waiting for a contended stripe")
+                    .tag("stripe", stripe)
+                    .register(meterRegistry);
+        }
+    }
+
+    public int size() {
+        return locks.length;
+    }
+
+    public int stripeFor(UUID accountId) {
+        // Spread the hash so that sequential UUIDs do not pile onto neighbouring stripes
+        int h = accountId.hashCode();
+        h ^= (h >>> 16);
+        return Math.floorMod(h, locks.length);
+    }
+
+    // Locks the stripes of both accounts in ascending order and returns them in that order
+    public int[] lockPair(UUID first, UUID second) {
+        int a = stripeFor(first);
+        int b = stripeFor(second);
+        if (a == b) {
+            lock(a);
+            return new int[]{a};
+        }
+        int low = Math.min(a, b);
+        int high = Math.max(a, b);
+        lock(low);
+        try {
+            lock(high);
+        } catch (RuntimeException e) {
+            locks[low].unlock();
+            throw e;
+        }
+        return new int[]{low, high};
+    }
+
+    public void unlock(int[] stripes) {
+        // Release in reverse acquisition order
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            locks[stripes[i]].unlock();
+        }
+    }
+
+    public void lock(int stripe) {
+        ReentrantLock lock = locks[stripe];
+        if (lock.tryLock()) {
+            return;
+        }
+        contended[stripe].increment();
+        long start = System.nanoTime();
+        lock.lock();
+        waitTimers[stripe].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    public boolean tryLock(int stripe) {
+        return locks[stripe].tryLock();
+    }
+
+    public boolean isHeldByCurrentThread(int stripe) {
+        return locks[stripe].isHeldByCurrentThread();
+    }
+
+    public void unlock(int stripe) {
+        locks[stripe].unlock();
+    }
+
+    public void lockAll() {
+        for (int i = 0; i < locks.length; i++) {
+            lock(i);
+        }
+    }
+
+    public void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+}
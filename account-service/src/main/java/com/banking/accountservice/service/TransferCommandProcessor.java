@@ -0,0 +1,243 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.dto.BatchTransferResultDto;
+import com.banking.accountservice.dto.TransferCommandDto;
+import com.banking.accountservice.dto.TransferCommandResultDto;
+import com.banking.accountservice.dto.TransferRequestDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous transfer path: applies transfer commands taken from Kafka and answers each one on
+ * the result topic.
+ *
+ * Commands are keyed by fromAccountId, so all debits of an account arrive on one partition and
+ * are applied by the one listener thread that owns it. Every poll is applied as a micro-batch in a
+ * single transaction (BatchTransferService.transferInOneTransaction: one ordered lock round trip,
+ * one flush, one commit), together with a processed_transfer_commands row per command. A command
+ * whose id is already there is not applied again but answered with its recorded outcome, which
+ * makes Kafka redelivery and client resends harmless. Offsets are committed after the replies
+ * have been acknowledged, so a crash in between only causes duplicate replies.
+ */
+@Service
+@ConditionalOnProperty(name = "banking.accounts.transfer-commands.enabled", havingValue = "true")
+public class TransferCommandProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferCommandProcessor.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO processed_transfer_commands (command_id, status, message, processed_at) VALUES (?, ?, ?, ?)";
+
+    private record Outcome(BatchTransferResultDto.Status status, String message, LocalDateTime processedAt) {
+    }
+
+    private final BatchTransferService batchTransferService;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final String resultTopic;
+    private final long sendTimeoutMs;
+    private final long retentionHours;
+    private final Timer batchTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter duplicates;
+    private final Counter malformed;
+
+    public TransferCommandProcessor(BatchTransferService batchTransferService,
+                                    JdbcTemplate jdbcTemplate,
+                                    KafkaTemplate<String, String> kafkaTemplate,
+                                    ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry,
+                                    @Autowired(required = false) LedgerEngine ledgerEngine,
+                                    @Autowired(required = false) JournalBalanceStore journal,
+                                    @Value("${banking.kafka.topic.transfer-results:account-transfer-results}") String resultTopic,
+                                    @Value("${banking.accounts.transfer-commands.send-timeout-ms:10000}") long sendTimeoutMs,
+                                    @Value("${banking.accounts.transfer-commands.dedupe-retention-hours:168}") long retentionHours) {
+        if (ledgerEngine != null || journal != null) {
+            throw new IllegalStateException(
+                    "banking.accounts.transfer-commands.enabled cannot be combined with the ledger or journal balance modes");
+        }
+        this.batchTransferService = batchTransferService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.resultTopic = resultTopic;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.retentionHours = retentionHours;
+        this.batchTimer = Timer.builder("accounts.transfer-commands.batch")
+                .description("Time to apply and answer one micro-batch of transfer commands")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("accounts.transfer-commands.batch.size")
+                .description("Commands per micro-batch")
+                .register(meterRegistry);
+        this.duplicates = Counter.builder("accounts.transfer-commands.duplicates")
+                .description("Commands answered from an earlier outcome instead of being applied again")
+                .register(meterRegistry);
+        this.malformed = Counter.builder("accounts.transfer-commands.malformed")
+                .description("Records skipped because they are not a transfer command with a commandId")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(id = "transfer-commands",
+            topics = "${banking.kafka.topic.transfer-commands:account-transfer-commands}",
+            containerFactory = "transferCommandListenerFactory")
+    public void onCommands(List<ConsumerRecord<String, String>> records) {
+        batchTimer.record(() -> process(records));
+    }
+
+    private void process(List<ConsumerRecord<String, String>> records) {
+        batchSizes.record(records.size());
+        List<TransferCommandDto> commands = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            TransferCommandDto command = parse(record);
+            if (command != null) {
+                commands.add(command);
+            }
+        }
+        if (commands.isEmpty()) {
+            return;
+        }
+
+        Set<UUID> commandIds = new HashSet<>();
+        commands.forEach(command -> commandIds.add(command.getCommandId()));
+        Map<UUID, Outcome> outcomes = findProcessed(commandIds);
+
+        // First occurrence of each id not seen before; repeats within the poll are answered as duplicates
+        Set<UUID> queued = new HashSet<>();
+        List<TransferCommandDto> toApply = new ArrayList<>();
+        for (TransferCommandDto command : commands) {
+            if (!outcomes.containsKey(command.getCommandId()) && queued.add(command.getCommandId())) {
+                toApply.add(command);
+            }
+        }
+        if (!toApply.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            List<BatchTransferResultDto> results = batchTransferService.transferInOneTransaction(
+                    new ArrayList<TransferRequestDto>(toApply), applied -> markProcessed(toApply, applied, now));
+            for (int i = 0; i < toApply.size(); i++) {
+                BatchTransferResultDto result = results.get(i);
+                outcomes.put(toApply.get(i).getCommandId(), new Outcome(result.getStatus(), result.getMessage(), now));
+                meterRegistry.counter("accounts.transfer-commands.applied", "status", result.getStatus().name()).increment();
+            }
+        }
+        reply(commands, outcomes, queued);
+    }
+
+    // Sends one result per command and waits for all of them; a failure makes Kafka redeliver the batch
+    private void reply(List<TransferCommandDto> commands, Map<UUID, Outcome> outcomes, Set<UUID> appliedNow) {
+        List<CompletableFuture<?>> acks = new ArrayList<>(commands.size());
+        for (TransferCommandDto command : commands) {
+            Outcome outcome = outcomes.get(command.getCommandId());
+            boolean duplicate = !appliedNow.remove(command.getCommandId());
+            if (duplicate) {
+                duplicates.increment();
+            }
+            TransferCommandResultDto result = new TransferCommandResultDto(command.getCommandId(),
+                    command.getFromAccountId(), command.getToAccountId(), command.getAmount(),
+                    outcome.status(), outcome.message(), duplicate, outcome.processedAt());
+            String key = command.getFromAccountId() != null
+                    ? command.getFromAccountId().toString() : command.getCommandId().toString();
+            acks.add(kafkaTemplate.send(resultTopic, key, toJson(result)));
+        }
+        try {
+            CompletableFuture.allOf(acks.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Kafka did not acknowledge the transfer results", e);
+        }
+    }
+
+    private TransferCommandDto parse(ConsumerRecord<String, String> record) {
+        try {
+            TransferCommandDto command = objectMapper.readValue(record.value(), TransferCommandDto.class);
+            if (command.getCommandId() != null) {
+                return command;
+            }
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            // handled below
+        }
+        malformed.increment();
+        logger.warn("Skipping record {}-{}@{}: not a transfer command with a commandId",
+                record.topic(), record.partition(), record.offset());
+        return null;
+    }
+
+    private Map<UUID, Outcome> findProcessed(Set<UUID> commandIds) {
+        Map<UUID, Outcome> outcomes = new HashMap<>();
+        namedJdbcTemplate.query(
+                "SELECT command_id, status, message, processed_at FROM processed_transfer_commands WHERE command_id IN (:ids)",
+                new MapSqlParameterSource("ids", commandIds),
+                rs -> {
+                    outcomes.put(rs.getObject("command_id", UUID.class), new Outcome(
+                            BatchTransferResultDto.Status.valueOf(rs.getString("status")),
+                            rs.getString("message"),
+                            rs.getTimestamp("processed_at").toLocalDateTime()));
+                });
+        return outcomes;
+    }
+
+    // Runs inside the batch transaction; a concurrent insert of the same id fails it and the batch is retried
+    private void markProcessed(List<TransferCommandDto> commands, List<BatchTransferResultDto> results, LocalDateTime now) {
+        Timestamp processedAt = Timestamp.valueOf(now);
+        List<Object[]> rows = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            BatchTransferResultDto result = results.get(i);
+            String message = result.getMessage();
+            if (message != null && message.length() > 255) {
+                message = message.substring(0, 255);
+            }
+            rows.add(new Object[]{commands.get(i).getCommandId(), result.getStatus().name(), message, processedAt});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    // Command ids are remembered for dedupe-retention-hours; a resend after that would apply again
+    @Scheduled(fixedDelayString = "${banking.accounts.transfer-commands.purge-interval-ms:3600000}")
+    public void purgeProcessed() {
+        int purged = jdbcTemplate.update("DELETE FROM processed_transfer_commands WHERE processed_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours)));
+        if (purged > 0) {
+            logger.info("Purged {} processed transfer commands older than {} hours", purged, retentionHours);
+        }
+    }
+
+    private String toJson(TransferCommandResultDto result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize transfer result " + result.getCommandId(), e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.banking.accountservice.config;
+
+import com.banking.accountservice.model.Account;
+import com.banking.accountservice.repository.AccountRepository;
+import com.banking.accountservice.service.AccountFixture;
+import com.banking.accountservice.service.AccountService;
+import com.banking.accountservice.service.StaleAccountInactivator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The replica is a second H2 database that only sees the primary's data when replicate() copies it
+@SpringBootTest(properties = {
+        "banking.datasource.replicas.enabled=true",
+        "banking.datasource.replicas.urls=" + ReadReplicaRoutingTest.REPLICA_URL + ",jdbc:h2:tcp://localhost:1/unreachable",
+        "banking.datasource.replicas.connection-timeout-ms=250",
+        "banking.datasource.replicas.check-interval-ms=600000",
+        "banking.datasource.replicas.max-lag-ms=1000",
+        "banking.datasource.replicas.lag-query=SELECT lag_ms FROM replica_lag",
+        "banking.accounts.cache.enabled=false"
+})
+@ActiveProfiles("test")
+class ReadReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:banking_account_replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private StaleAccountInactivator staleAccountInactivator;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @TempDir
+    Path tempDir;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Test
+    void readsUseTheReplicaUntilItFallsBehind() {
+        UUID accountId = fixture.createAccount("100.00");
+        replicate();
+        setLag(0);
+        // Written to the primary only
+        accountService.updateAccountBalance(accountId, new BigDecimal("-40.00"));
+
+        double replicaReads = routed("replica-1");
+        assertEquals(0, new BigDecimal("100.00").compareTo(accountService.getAccountById(accountId).getBalance()));
+        assertTrue(routed("replica-1") > replicaReads);
+        // The unreachable replica never got past its lag check
+        assertEquals(0.0, meterRegistry.get("accounts.datasource.replica.healthy").tag("target", "replica-2").gauge().value());
+
+        setLag(5_000);
+        double fallbacks = fallbacks("unavailable");
+        assertEquals(0, new BigDecimal("60.00").compareTo(accountService.getAccountById(accountId).getBalance()));
+        assertEquals(fallbacks + 1, fallbacks("unavailable"));
+    }
+
+    @Test
+    void staleScanReadsTheReplicaAndUpdatesThePrimary() {
+        UUID accountId = fixture.createAccount("10.00");
+        jdbcTemplate.update("UPDATE accounts SET last_transaction_date = ? WHERE account_id = ?",
+                LocalDateTime.now().minusDays(30), accountId);
+        replicate();
+        setLag(0);
+
+        double replicaReads = routed("replica-1");
+        assertTrue(staleAccountInactivator.inactivateBefore(LocalDateTime.now().minusDays(7)) >= 1);
+        assertTrue(routed("replica-1") > replicaReads);
+        assertEquals(Account.AccountStatus.INACTIVE, accountRepository.findStatusByAccountId(accountId).orElseThrow());
+    }
+
+    // Replaces the replica's contents with a copy of the primary
+    private void replicate() {
+        String script = tempDir.resolve("primary-" + System.nanoTime() + ".sql").toString();
+        jdbcTemplate.execute("SCRIPT TO '" + script + "'");
+        replica.execute("DROP ALL OBJECTS");
+        replica.execute("RUNSCRIPT FROM '" + script + "'");
+        replica.execute("CREATE TABLE replica_lag (lag_ms BIGINT)");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+    }
+
+    private void setLag(long lagMs) {
+        replica.update("UPDATE replica_lag SET lag_ms = ?", lagMs);
+        replicaRoutingDataSource.checkReplicas();
+    }
+
+    private double routed(String target) {
+        return meterRegistry.counter("accounts.datasource.connections.routed", "target", target).count();
+    }
+
+    private double fallbacks(String reason) {
+        return meterRegistry.counter("accounts.datasource.replica.fallbacks", "reason", reason).count();
+    }
+}
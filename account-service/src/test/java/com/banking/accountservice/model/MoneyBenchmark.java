@@ -0,0 +1,103 @@
+package com.banking.accountservice.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The checks and updates a transfer does on the in-memory path (amount > 0, funds check, debit,
+ * credit), once with BigDecimal as before and once with Money / raw cents. The GC profiler reports
+ * gc.alloc.rate.norm, the bytes allocated per transfer.
+ * Opt-in: mvn test -Dtest=MoneyBenchmark -Dbenchmarks=true
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final int ACCOUNTS = 1024;
+
+    private final BigDecimal[] decimalBalances = new BigDecimal[ACCOUNTS];
+    private final long[] centBalances = new long[ACCOUNTS];
+    private final Money[] moneyBalances = new Money[ACCOUNTS];
+    private BigDecimal decimalAmount;
+    private Money moneyAmount;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            decimalBalances[i] = new BigDecimal("1000000.00");
+            centBalances[i] = 100_000_000L;
+            moneyBalances[i] = Money.ofCents(100_000_000L);
+        }
+        decimalAmount = new BigDecimal("12.34");
+        moneyAmount = Money.of(decimalAmount);
+    }
+
+    @Benchmark
+    public boolean bigDecimal() {
+        int from = next++ & (ACCOUNTS - 1);
+        int to = (from + 1) & (ACCOUNTS - 1);
+        if (decimalAmount.compareTo(BigDecimal.ZERO) <= 0 || decimalBalances[from].compareTo(decimalAmount) < 0) {
+            return false;
+        }
+        decimalBalances[from] = decimalBalances[from].subtract(decimalAmount);
+        decimalBalances[to] = decimalBalances[to].add(decimalAmount);
+        return true;
+    }
+
+    // What LedgerEngine and BatchTransferService do: balances held as long cents
+    @Benchmark
+    public boolean cents() {
+        int from = next++ & (ACCOUNTS - 1);
+        int to = (from + 1) & (ACCOUNTS - 1);
+        long amount = moneyAmount.cents();
+        if (!moneyAmount.isPositive() || centBalances[from] < amount) {
+            return false;
+        }
+        centBalances[to] = Money.addCents(centBalances[to], amount);
+        centBalances[from] -= amount;
+        return true;
+    }
+
+    // Money objects stored per balance, for comparison with keeping raw cents
+    @Benchmark
+    public boolean moneyObjects() {
+        int from = next++ & (ACCOUNTS - 1);
+        int to = (from + 1) & (ACCOUNTS - 1);
+        if (!moneyAmount.isPositive() || moneyBalances[from].isLessThan(moneyAmount)) {
+            return false;
+        }
+        moneyBalances[from] = moneyBalances[from].minus(moneyAmount);
+        moneyBalances[to] = moneyBalances[to].plus(moneyAmount);
+        return true;
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(MoneyBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,36 @@
+package com.banking.accountservice.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyTest {
+
+    @Test
+    void convertsAtTheEdgesWithoutLosingCents() {
+        assertEquals(1234, Money.of(new BigDecimal("12.34")).cents());
+        assertEquals(1200, Money.of(new BigDecimal("12")).cents());
+        assertEquals(new BigDecimal("12.30"), Money.of(new BigDecimal("12.3")).toBigDecimal());
+        assertEquals(Money.ofCents(-5), Money.of(new BigDecimal("0.10")).minus(Money.of(new BigDecimal("0.15"))));
+        assertTrue(Money.ofCents(99).isLessThan(Money.ofCents(100)));
+    }
+
+    @Test
+    void rejectsFractionsOfACent() {
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("0.001")));
+    }
+
+    @Test
+    void staysWithinTheColumnRange() {
+        Money max = Money.ofCents(Money.MAX_CENTS);
+        assertEquals(new BigDecimal("9999999999999.99"), max.toBigDecimal());
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofCents(1)));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("10000000000000.00")));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1E+30")));
+        assertThrows(ArithmeticException.class, () -> Money.addCents(Long.MAX_VALUE, 1));
+    }
+}
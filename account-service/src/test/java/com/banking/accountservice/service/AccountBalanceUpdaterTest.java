@@ -0,0 +1,220 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.exception.AccountInactiveException;
+import com.banking.accountservice.exception.InsufficientFundsException;
+import com.banking.accountservice.exception.InvalidAccountDataException;
+import com.banking.accountservice.model.Account;
+import com.banking.accountservice.model.Money;
+import com.banking.accountservice.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.banking.accountservice.service.AccountFixture.assertBalance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AccountBalanceUpdaterTest {
+
+    private static final Money TEN = Money.of(new BigDecimal("10.00"));
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private HotAccountService hotAccountService;
+
+    @Autowired
+    private BalanceOutbox balanceOutbox;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Each test counts on a registry of its own
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void atomicTransferRejectsInsufficientFundsAndInactiveAccounts() {
+        AccountBalanceUpdater updater = updater(AccountBalanceUpdater.Strategy.ATOMIC, accountRepository, 5);
+        UUID source = fixture.createAccount("5.00");
+        UUID target = fixture.createAccount("0.00");
+
+        assertThrows(InsufficientFundsException.class, () -> updater.transfer(source, target, TEN));
+        assertEquals(1.0, rejections("insufficient_funds"));
+
+        jdbcTemplate.update("UPDATE accounts SET balance = 100, status = 'INACTIVE' WHERE account_id = ?", source);
+        assertThrows(AccountInactiveException.class, () -> updater.transfer(source, target, TEN));
+        jdbcTemplate.update("UPDATE accounts SET status = 'ACTIVE' WHERE account_id = ?", source);
+        jdbcTemplate.update("UPDATE accounts SET status = 'INACTIVE' WHERE account_id = ?", target);
+        assertThrows(AccountInactiveException.class, () -> updater.transfer(source, target, TEN));
+        assertEquals(2.0, rejections("inactive"));
+
+        // Nothing of a rejected transfer is kept, the debit included
+        assertBalance("100.00", fixture.storedBalance(source));
+        assertBalance("0.00", fixture.storedBalance(target));
+    }
+
+    @Test
+    void debitIfSufficientOnlyMatchesAnActiveAccountWithTheFunds() {
+        UUID account = fixture.createAccount("10.00");
+        LocalDateTime now = LocalDateTime.now();
+
+        assertEquals(0, debit(account, "10.01", Account.AccountStatus.ACTIVE, now));
+        assertEquals(0, debit(account, "10.00", Account.AccountStatus.INACTIVE, now));
+        assertEquals(1, debit(account, "10.00", Account.AccountStatus.ACTIVE, now));
+        assertBalance("0.00", fixture.storedBalance(account));
+    }
+
+    @Test
+    void optimisticTransferRetriesAfterAVersionConflict() {
+        UUID source = fixture.createAccount("100.00");
+        UUID target = fixture.createAccount("0.00");
+        AccountBalanceUpdater updater = updater(AccountBalanceUpdater.Strategy.OPTIMISTIC,
+                debitedBehindItsBack(source, 1), 5);
+
+        updater.transfer(source, target, TEN);
+
+        // The retry read the balance left by the concurrent debit
+        assertBalance("80.00", fixture.storedBalance(source));
+        assertBalance("10.00", fixture.storedBalance(target));
+        assertEquals(1.0, attempts("accounts.balance.update.conflicts"));
+        assertEquals(1.0, attempts("accounts.balance.update.retries"));
+    }
+
+    @Test
+    void optimisticTransferGivesUpAfterMaxAttempts() {
+        UUID source = fixture.createAccount("100.00");
+        UUID target = fixture.createAccount("0.00");
+        AccountBalanceUpdater updater = updater(AccountBalanceUpdater.Strategy.OPTIMISTIC,
+                debitedBehindItsBack(source, Integer.MAX_VALUE), 3);
+
+        assertThrows(InvalidAccountDataException.class, () -> updater.transfer(source, target, TEN));
+
+        // Only the three concurrent debits went through
+        assertBalance("70.00", fixture.storedBalance(source));
+        assertBalance("0.00", fixture.storedBalance(target));
+        assertEquals(3.0, attempts("accounts.balance.update.conflicts"));
+        assertEquals(2.0, attempts("accounts.balance.update.retries"));
+    }
+
+    @Test
+    void concurrentDebitsNeverOverdraw() throws Exception {
+        for (AccountBalanceUpdater.Strategy strategy : AccountBalanceUpdater.Strategy.values()) {
+            AccountBalanceUpdater updater = updater(strategy, accountRepository, 5);
+            UUID source = fixture.createAccount("100.00");
+            List<UUID> targets = fixture.createAccounts(4, "0.00");
+            AtomicInteger succeeded = new AtomicInteger();
+
+            // 40 debits of 10.00 against 100.00, started together from 8 threads
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                UUID target = targets.get(t % targets.size());
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 5; i++) {
+                        try {
+                            updater.transfer(source, target, TEN);
+                            succeeded.incrementAndGet();
+                        } catch (InvalidAccountDataException e) {
+                            // Out of funds, or given up on after conflicts
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            pool.shutdown();
+
+            BigDecimal remaining = fixture.storedBalance(source);
+            assertTrue(remaining.signum() >= 0, strategy + " overdrew to " + remaining);
+            assertBalance(new BigDecimal("100.00").subtract(BigDecimal.TEN.multiply(BigDecimal.valueOf(succeeded.get())))
+                    .toPlainString(), remaining);
+            BigDecimal credited = BigDecimal.ZERO;
+            for (UUID target : targets) {
+                credited = credited.add(fixture.storedBalance(target));
+            }
+            assertBalance(BigDecimal.TEN.multiply(BigDecimal.valueOf(succeeded.get())).toPlainString(), credited);
+            if (strategy == AccountBalanceUpdater.Strategy.ATOMIC) {
+                // The conditional UPDATE waits for the row instead of conflicting: exactly the funds are spent
+                assertEquals(10, succeeded.get());
+                assertEquals(30.0, rejections("insufficient_funds"));
+            }
+        }
+    }
+
+    private AccountBalanceUpdater updater(AccountBalanceUpdater.Strategy strategy, AccountRepository repository,
+                                          int maxAttempts) {
+        return new AccountBalanceUpdater(repository, hotAccountService, balanceOutbox, transactionTemplate,
+                meterRegistry, strategy, maxAttempts);
+    }
+
+    // The repository, except that the first `times` reads of the account are each followed by a
+    // committed debit of 10.00 from another transaction, before the reader gets to write
+    private AccountRepository debitedBehindItsBack(UUID accountId, int times) {
+        TransactionTemplate otherTransaction = new TransactionTemplate(transactionManager);
+        otherTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger remaining = new AtomicInteger(times);
+        AccountRepository repository = mock(AccountRepository.class, delegatesTo(accountRepository));
+        doAnswer(invocation -> {
+            UUID id = invocation.getArgument(0);
+            Optional<Account> account = accountRepository.findById(id);
+            if (id.equals(accountId) && remaining.getAndDecrement() > 0) {
+                otherTransaction.executeWithoutResult(status -> jdbcTemplate.update(
+                        "UPDATE accounts SET balance = balance - 10, version = version + 1 WHERE account_id = ?", id));
+            }
+            return account;
+        }).when(repository).findById(any());
+        return repository;
+    }
+
+    private int debit(UUID accountId, String amount, Account.AccountStatus status, LocalDateTime now) {
+        return transactionTemplate.execute(tx -> accountRepository.debitIfSufficient(accountId, new BigDecimal(amount), status, now));
+    }
+
+    private double rejections(String reason) {
+        return meterRegistry.counter("accounts.balance.update.rejections", "reason", reason).count();
+    }
+
+    private double attempts(String name) {
+        return meterRegistry.counter(name, "operation", "transfer", "strategy", "OPTIMISTIC").count();
+    }
+}
@@ -0,0 +1,53 @@
+package com.banking.accountservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AccountCacheTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void readsAreCachedAndWritesInvalidate() {
+        UUID userId = UUID.randomUUID();
+        UUID from = fixture.createAccount(userId, "100.00");
+        UUID to = fixture.createAccount(userId, "0.00");
+
+        double hitsBefore = hits("accounts.byId");
+        accountService.getAccountById(from);
+        accountService.getAccountById(from);
+        assertEquals(hitsBefore + 1, hits("accounts.byId"));
+
+        assertEquals(2, accountService.getAccountsByUserId(userId).size());
+
+        accountService.transferBetweenAccounts(from, to, new BigDecimal("40.00"));
+        assertEquals(0, new BigDecimal("60.00").compareTo(accountService.getAccountById(from).getBalance()));
+        assertEquals(0, new BigDecimal("40.00").compareTo(accountService.getAccountsByUserId(userId).stream()
+                .filter(acc -> acc.getAccountId().equals(to)).findFirst().orElseThrow().getBalance()));
+
+        // A new account shows up in the user's listing straight away
+        fixture.createAccount(userId, "1.00");
+        assertEquals(3, accountService.getAccountsByUserId(userId).size());
+    }
+
+    private double hits(String cache) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", "hit").functionCounter().count();
+    }
+}
@@ -0,0 +1,60 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.dto.AccountCreationDto;
+import com.banking.accountservice.model.Account;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Account setup and balance checks shared by the account-service tests. Picked up by component
+ * scanning, so any @SpringBootTest can autowire it.
+ */
+@Component
+public class AccountFixture {
+
+    private final AccountService accountService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccountFixture(AccountService accountService, JdbcTemplate jdbcTemplate) {
+        this.accountService = accountService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // A checking account of a new user
+    public UUID createAccount(String balance) {
+        return createAccount(UUID.randomUUID(), balance);
+    }
+
+    public UUID createAccount(UUID userId, String balance) {
+        return accountService.createAccount(new AccountCreationDto(
+                userId, Account.AccountType.CHECKING, new BigDecimal(balance))).getAccountId();
+    }
+
+    public List<UUID> createAccounts(int count, String balance) {
+        List<UUID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(createAccount(balance));
+        }
+        return ids;
+    }
+
+    // The balance column as stored, without hot-account buckets or unfolded journal entries
+    public BigDecimal storedBalance(UUID accountId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE account_id = ?", BigDecimal.class, accountId);
+    }
+
+    public BigDecimal totalStoredBalance() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(balance), 0) FROM accounts", BigDecimal.class);
+    }
+
+    public static void assertBalance(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), "expected " + expected + " but was " + actual);
+    }
+}
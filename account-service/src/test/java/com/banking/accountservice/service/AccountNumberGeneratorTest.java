@@ -0,0 +1,81 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.dto.AccountCreationDto;
+import com.banking.accountservice.dto.AccountResponseDto;
+import com.banking.accountservice.model.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AccountNumberGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int ACCOUNTS_PER_THREAD = 250;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void parallelAccountCreationGetsUniqueValidNumbers() throws Exception {
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < ACCOUNTS_PER_THREAD; i++) {
+                    AccountResponseDto created = accountService.createAccount(new AccountCreationDto(
+                            UUID.randomUUID(), Account.AccountType.CHECKING, BigDecimal.ZERO));
+                    numbers.add(created.getAccountNumber());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(THREADS * ACCOUNTS_PER_THREAD, numbers.size());
+        for (String number : numbers) {
+            assertTrue(AccountNumberGenerator.isValid(number), number);
+        }
+    }
+
+    @Test
+    void checkDigitCatchesSingleDigitTypos() {
+        String number = AccountNumberGenerator.format(12_345_678_901L);
+        assertEquals("123456789015", number);
+        assertTrue(AccountNumberGenerator.isValid(number));
+        assertFalse(AccountNumberGenerator.isValid("123456789025"));
+        assertFalse(AccountNumberGenerator.isValid("1234567890"));
+    }
+
+    @Test
+    void blockSizeMustMatchTheExistingSequence() {
+        // The context already created the sequence with the configured block size (100)
+        assertThrows(IllegalStateException.class,
+                () -> new AccountNumberGenerator(jdbcTemplate, new SimpleMeterRegistry(), 50));
+    }
+}
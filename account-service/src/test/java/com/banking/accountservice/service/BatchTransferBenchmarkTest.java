@@ -0,0 +1,83 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.dto.BatchTransferResultDto;
+import com.banking.accountservice.dto.TransferRequestDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares POST /accounts/transfers/batch with looping over transferBetweenAccounts.
+ * Opt-in: mvn test -Dtest=BatchTransferBenchmarkTest -Dbenchmarks=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class BatchTransferBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchTransferBenchmarkTest.class);
+
+    private static final int ACCOUNTS = 200;
+    private static final int TRANSFERS = 5000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private BatchTransferService batchTransferService;
+
+    @Test
+    void batchVersusLoop() {
+        List<UUID> accounts = fixture.createAccounts(ACCOUNTS, "1000000.00");
+        BigDecimal totalBefore = fixture.totalStoredBalance();
+        List<TransferRequestDto> transfers = randomTransfers(accounts);
+
+        long start = System.nanoTime();
+        for (TransferRequestDto transfer : transfers) {
+            accountService.transferBetweenAccounts(transfer.getFromAccountId(), transfer.getToAccountId(), transfer.getAmount());
+        }
+        long loopNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<BatchTransferResultDto> results = batchTransferService.transferBatch(transfers);
+        long batchNanos = System.nanoTime() - start;
+
+        logger.info("Loop:  {} transfers/s", TRANSFERS * 1_000_000_000L / Math.max(loopNanos, 1));
+        logger.info("Batch: {} transfers/s", TRANSFERS * 1_000_000_000L / Math.max(batchNanos, 1));
+
+        assertEquals(TRANSFERS, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals(BatchTransferResultDto.Status.SUCCESS, results.get(i).getStatus());
+        }
+        assertEquals(0, totalBefore.compareTo(fixture.totalStoredBalance()));
+    }
+
+    private List<TransferRequestDto> randomTransfers(List<UUID> accounts) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<TransferRequestDto> transfers = new ArrayList<>(TRANSFERS);
+        while (transfers.size() < TRANSFERS) {
+            UUID from = accounts.get(random.nextInt(accounts.size()));
+            UUID to = accounts.get(random.nextInt(accounts.size()));
+            if (!from.equals(to)) {
+                transfers.add(new TransferRequestDto(from, to, BigDecimal.ONE));
+            }
+        }
+        return transfers;
+    }
+}
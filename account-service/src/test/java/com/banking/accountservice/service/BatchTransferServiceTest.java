@@ -0,0 +1,196 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.dto.BatchTransferResultDto;
+import com.banking.accountservice.dto.TransferRequestDto;
+import com.banking.accountservice.exception.InvalidAccountDataException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.banking.accountservice.service.AccountFixture.assertBalance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "banking.accounts.batch-transfer.chunk-size=3",
+        "banking.accounts.batch-transfer.max-items=40"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BatchTransferServiceTest {
+
+    @Autowired
+    private BatchTransferService batchTransferService;
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Request/response logging would wait a minute per message for the absent Kafka broker
+    @MockitoBean
+    private KafkaLoggingService kafkaLoggingService;
+
+    @Test
+    void resultsComeBackInRequestOrderWithRejectionsInPlace() {
+        UUID a = fixture.createAccount("100.00");
+        UUID b = fixture.createAccount("0.00");
+        UUID inactive = fixture.createAccount("0.00");
+        jdbcTemplate.update("UPDATE accounts SET status = 'INACTIVE' WHERE account_id = ?", inactive);
+
+        List<BatchTransferResultDto> results = batchTransferService.transferBatch(List.of(
+                transfer(a, b, "30.00"),
+                transfer(a, b, "100.00"),
+                transfer(b, a, "10.00"),
+                transfer(UUID.randomUUID(), b, "1.00"),
+                transfer(a, inactive, "1.00"),
+                transfer(a, b, "0.00"),
+                transfer(b, a, "20.00")));
+
+        assertEquals(7, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        assertSucceeded(results.get(0));
+        assertFailed(results.get(1), "Insufficient funds in source account");
+        // Later items see the earlier ones, in either direction
+        assertSucceeded(results.get(2));
+        assertFailed(results.get(3), "Source account not found");
+        assertFailed(results.get(4), "One or both accounts are not active");
+        assertFailed(results.get(5), "Transfer amount must be greater than zero");
+        assertSucceeded(results.get(6));
+
+        assertBalance("100.00", fixture.storedBalance(a));
+        assertBalance("0.00", fixture.storedBalance(b));
+    }
+
+    @Test
+    void oppositeBatchesOverTheSameAccountsDoNotDeadlock() throws Exception {
+        UUID a = fixture.createAccount("1000.00");
+        UUID b = fixture.createAccount("1000.00");
+        List<TransferRequestDto> aToB = Collections.nCopies(30, transfer(a, b, "1.00"));
+        List<TransferRequestDto> bToA = Collections.nCopies(30, transfer(b, a, "1.00"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<BatchTransferResultDto>> first = pool.submit(() -> batchTransferService.transferBatch(aToB));
+            Future<List<BatchTransferResultDto>> second = pool.submit(() -> batchTransferService.transferBatch(bToA));
+            for (Future<List<BatchTransferResultDto>> batch : List.of(first, second)) {
+                for (BatchTransferResultDto result : batch.get(30, TimeUnit.SECONDS)) {
+                    assertSucceeded(result);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertBalance("1000.00", fixture.storedBalance(a));
+        assertBalance("1000.00", fixture.storedBalance(b));
+    }
+
+    @Test
+    void aChunkThatFailsToCommitLeavesTheOtherChunksCommitted() {
+        UUID a = fixture.createAccount("100.00");
+        UUID b = fixture.createAccount("0.00");
+        UUID capped = fixture.createAccount("0.00");
+        // Only the database knows this account cannot take 50.00: the chunk crediting it fails at flush
+        jdbcTemplate.execute("ALTER TABLE accounts ADD CONSTRAINT test_capped_balance CHECK (account_id <> '"
+                + capped + "' OR balance < 50)");
+        List<BatchTransferResultDto> results;
+        try {
+            results = batchTransferService.transferBatch(List.of(
+                    transfer(a, b, "1.00"), transfer(a, b, "1.00"), transfer(a, b, "1.00"),
+                    transfer(a, b, "1.00"), transfer(a, capped, "60.00"), transfer(a, b, "1.00"),
+                    transfer(a, b, "1.00")));
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE accounts DROP CONSTRAINT test_capped_balance");
+        }
+
+        for (int i : List.of(0, 1, 2, 6)) {
+            assertSucceeded(results.get(i));
+        }
+        for (int i : List.of(3, 4, 5)) {
+            assertFailed(results.get(i), "Chunk could not be committed");
+        }
+        assertBalance("96.00", fixture.storedBalance(a));
+        assertBalance("4.00", fixture.storedBalance(b));
+        assertBalance("0.00", fixture.storedBalance(capped));
+    }
+
+    @Test
+    void batchSizeIsLimited() {
+        UUID a = fixture.createAccount("100.00");
+        UUID b = fixture.createAccount("0.00");
+
+        assertThrows(InvalidAccountDataException.class,
+                () -> batchTransferService.transferBatch(Collections.nCopies(41, transfer(a, b, "1.00"))));
+        assertThrows(InvalidAccountDataException.class, () -> batchTransferService.transferBatch(List.of()));
+        assertEquals(40, batchTransferService.transferBatch(Collections.nCopies(40, transfer(a, b, "1.00"))).size());
+        assertBalance("60.00", fixture.storedBalance(a));
+    }
+
+    @Test
+    void batchEndpointAnswersPerItemAndRejectsOversizedBatches() throws Exception {
+        UUID a = fixture.createAccount("10.00");
+        UUID b = fixture.createAccount("0.00");
+
+        mockMvc.perform(post("/accounts/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(transfer(a, b, "4.00"), transfer(a, b, "7.00")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].status").value("SUCCESS"))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("FAILED"))
+                .andExpect(jsonPath("$[1].message").value("Insufficient funds in source account"));
+        assertBalance("6.00", fixture.storedBalance(a));
+
+        List<TransferRequestDto> oversized = Collections.nCopies(41, transfer(a, b, "0.01"));
+        mockMvc.perform(post("/accounts/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(oversized)))
+                .andExpect(status().isBadRequest());
+        assertBalance("6.00", fixture.storedBalance(a));
+    }
+
+    private static TransferRequestDto transfer(UUID from, UUID to, String amount) {
+        return new TransferRequestDto(from, to, new BigDecimal(amount));
+    }
+
+    private static void assertSucceeded(BatchTransferResultDto result) {
+        assertEquals(BatchTransferResultDto.Status.SUCCESS, result.getStatus(), "item " + result.getIndex() + ": " + result.getMessage());
+    }
+
+    private static void assertFailed(BatchTransferResultDto result, String reason) {
+        assertEquals(BatchTransferResultDto.Status.FAILED, result.getStatus(), "item " + result.getIndex());
+        assertTrue(result.getMessage().startsWith(reason), "item " + result.getIndex() + ": " + result.getMessage());
+    }
+}
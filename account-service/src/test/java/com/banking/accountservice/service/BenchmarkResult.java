@@ -0,0 +1,9 @@
+package com.banking.accountservice.service;
+
+// Outcome of one timed benchmark run
+record BenchmarkResult(int attempted, int failed, long nanos) {
+
+    long throughput() {
+        return attempted * 1_000_000_000L / Math.max(nanos, 1);
+    }
+}
@@ -0,0 +1,95 @@
+package com.banking.accountservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Many payers crediting one merchant account, for an increasing number of buckets (0 = not hot).
+ * Opt-in: mvn test -Dtest=HotAccountBenchmarkTest -Dbenchmarks=true
+ */
+@SpringBootTest(properties = "banking.accounts.hot.sweep-interval-ms=5000")
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class HotAccountBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotAccountBenchmarkTest.class);
+
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 300;
+    private static final int[] BUCKETS = {0, 1, 4, 16};
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private HotAccountService hotAccountService;
+
+    @Test
+    void throughputByBucketCount() throws Exception {
+        // Warm-up on a plain account so the first measured run is not paying for JIT and pool start-up
+        List<UUID> warmUpPayers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            warmUpPayers.add(fixture.createAccount("1000000.00"));
+        }
+        run(fixture.createAccount("0.00"), warmUpPayers);
+
+        for (int buckets : BUCKETS) {
+            UUID merchant = fixture.createAccount("0.00");
+            List<UUID> payers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                payers.add(fixture.createAccount("1000000.00"));
+            }
+            if (buckets > 0) {
+                hotAccountService.markHot(merchant, buckets);
+            }
+            BenchmarkResult result = run(merchant, payers);
+            logger.info("buckets={}: {} transfers/s, {} failed", buckets, result.throughput(), result.failed());
+
+            assertEquals(0, result.failed());
+            BigDecimal expected = BigDecimal.valueOf((long) THREADS * TRANSFERS_PER_THREAD);
+            assertEquals(0, expected.compareTo(accountService.getAccountById(merchant).getBalance()));
+        }
+    }
+
+    private BenchmarkResult run(UUID merchant, List<UUID> payers) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (UUID payer : payers) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    try {
+                        accountService.transferBetweenAccounts(payer, merchant, BigDecimal.ONE);
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        return new BenchmarkResult(payers.size() * TRANSFERS_PER_THREAD, failed.get(), System.nanoTime() - start);
+    }
+}
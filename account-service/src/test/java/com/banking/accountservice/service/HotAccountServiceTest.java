@@ -0,0 +1,53 @@
+package com.banking.accountservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static com.banking.accountservice.service.AccountFixture.assertBalance;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class HotAccountServiceTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private HotAccountService hotAccountService;
+
+    @Test
+    void creditsLandInBucketsAndStayVisible() {
+        UUID merchant = fixture.createAccount("0.00");
+        UUID customer = fixture.createAccount("100.00");
+        UUID supplier = fixture.createAccount("0.00");
+        hotAccountService.markHot(merchant, 4);
+
+        for (int i = 0; i < 10; i++) {
+            accountService.transferBetweenAccounts(customer, merchant, new BigDecimal("5.00"));
+        }
+        // The main row has not moved, the read API sums the buckets
+        assertBalance("0.00", fixture.storedBalance(merchant));
+        assertBalance("50.00", accountService.getAccountById(merchant).getBalance());
+
+        // A debit larger than the main row merges the buckets first
+        accountService.transferBetweenAccounts(merchant, supplier, new BigDecimal("30.00"));
+        assertBalance("20.00", accountService.getAccountById(merchant).getBalance());
+
+        accountService.transferBetweenAccounts(customer, merchant, new BigDecimal("1.00"));
+        hotAccountService.sweep();
+        assertBalance("21.00", fixture.storedBalance(merchant));
+
+        hotAccountService.unmarkHot(merchant);
+        assertFalse(hotAccountService.isHot(merchant));
+        assertBalance("21.00", accountService.getAccountById(merchant).getBalance());
+    }
+}
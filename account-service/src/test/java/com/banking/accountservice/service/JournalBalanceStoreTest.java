@@ -0,0 +1,57 @@
+package com.banking.accountservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static com.banking.accountservice.service.AccountFixture.assertBalance;
+
+@SpringBootTest(properties = "banking.accounts.journal.enabled=true")
+@ActiveProfiles("test")
+class JournalBalanceStoreTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private JournalBalanceStore journal;
+
+    @Autowired
+    private JournalCompactor compactor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void balancesSurviveCompactionAndRebuild() {
+        UUID from = fixture.createAccount("100.00");
+        UUID to = fixture.createAccount("5.00");
+
+        accountService.transferBetweenAccounts(from, to, new BigDecimal("30.00"));
+        accountService.updateAccountBalance(to, new BigDecimal("-10.00"));
+
+        // Not folded yet: the snapshot column still holds the opening balance
+        assertBalance("100.00", fixture.storedBalance(from));
+        assertBalance("70.00", journal.balanceOf(from));
+        assertBalance("25.00", accountService.getAccountById(to).getBalance());
+
+        compactor.compact();
+        assertBalance("70.00", fixture.storedBalance(from));
+        assertBalance("25.00", fixture.storedBalance(to));
+        assertBalance("70.00", journal.balanceOf(from));
+
+        // Lose the snapshots, then recover them from the journal
+        jdbcTemplate.update("UPDATE accounts SET balance = 0, journal_position = 0 WHERE account_id IN (?, ?)", from, to);
+        compactor.rebuildAll();
+        assertBalance("70.00", journal.balanceOf(from));
+        assertBalance("25.00", journal.balanceOf(to));
+    }
+}
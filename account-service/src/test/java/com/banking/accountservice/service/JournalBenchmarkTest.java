@@ -0,0 +1,97 @@
+package com.banking.accountservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the overwrite model with journal mode when many writers pay into one hot account.
+ * Opt-in: mvn test -Dtest=JournalBenchmarkTest -Dbenchmarks=true
+ */
+@SpringBootTest(properties = "banking.accounts.journal.enabled=true")
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class JournalBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalBenchmarkTest.class);
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 500;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private JournalBalanceStore journal;
+
+    @Test
+    void hotAccountCredits() throws Exception {
+        UUID hot = fixture.createAccount("1000000.00");
+        List<UUID> payers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            payers.add(fixture.createAccount("1000000.00"));
+        }
+        List<UUID> all = new ArrayList<>(payers);
+        all.add(hot);
+        BigDecimal totalBefore = total(all);
+
+        run(hot, payers, 50);
+        ReflectionTestUtils.setField(accountService, "journal", null);
+        BenchmarkResult overwrite = run(hot, payers, TRANSFERS_PER_THREAD);
+        ReflectionTestUtils.setField(accountService, "journal", journal);
+        BenchmarkResult journaled = run(hot, payers, TRANSFERS_PER_THREAD);
+
+        logger.info("Overwrite: {} transfers/s, {} failed", overwrite.throughput(), overwrite.failed());
+        logger.info("Journal:   {} transfers/s, {} failed", journaled.throughput(), journaled.failed());
+
+        assertEquals(0, overwrite.failed());
+        assertEquals(0, journaled.failed());
+        assertEquals(0, totalBefore.compareTo(total(all)));
+    }
+
+    private BenchmarkResult run(UUID hot, List<UUID> payers, int perThread) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (UUID payer : payers) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    try {
+                        accountService.transferBetweenAccounts(payer, hot, BigDecimal.ONE);
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        return new BenchmarkResult(payers.size() * perThread, failed.get(), System.nanoTime() - start);
+    }
+
+    private BigDecimal total(List<UUID> accountIds) {
+        return journal.balancesOf(accountIds).values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,119 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.model.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the JPA transfer path with the in-memory ledger when a few hot accounts take
+ * most of the traffic. Opt-in: mvn test -Dtest=LedgerEngineBenchmarkTest -Dbenchmarks=true
+ */
+@SpringBootTest(properties = "banking.ledger.enabled=true")
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class LedgerEngineBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerEngineBenchmarkTest.class);
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 500;
+    private static final int HOT_ACCOUNTS = 2;
+    private static final int COLD_ACCOUNTS = 100;
+    private static final double HOT_SHARE = 0.8;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountFixture fixture;
+
+    // The database path AccountService takes when the ledger is disabled
+    @Autowired
+    private AccountBalanceUpdater accountBalanceUpdater;
+
+    @Test
+    void hotAccountTransfers() throws Exception {
+        // Each path gets accounts of its own: the ledger caches balances, so database transfers on
+        // its accounts would only make its batches fail
+        List<UUID> jpaHot = fixture.createAccounts(HOT_ACCOUNTS, "1000000.00");
+        List<UUID> jpaCold = fixture.createAccounts(COLD_ACCOUNTS, "1000000.00");
+        List<UUID> ledgerHot = fixture.createAccounts(HOT_ACCOUNTS, "1000000.00");
+        List<UUID> ledgerCold = fixture.createAccounts(COLD_ACCOUNTS, "1000000.00");
+        BigDecimal totalBefore = fixture.totalStoredBalance();
+        Transfer viaDatabase = (from, to) -> accountBalanceUpdater.transfer(from, to, Money.of(BigDecimal.ONE));
+        Transfer viaService = (from, to) -> accountService.transferBetweenAccounts(from, to, BigDecimal.ONE);
+
+        // Warm-up, then measure each path
+        run(jpaHot, jpaCold, 50, viaDatabase);
+        run(ledgerHot, ledgerCold, 50, viaService);
+        BenchmarkResult jpa = run(jpaHot, jpaCold, TRANSFERS_PER_THREAD, viaDatabase);
+        BenchmarkResult ledger = run(ledgerHot, ledgerCold, TRANSFERS_PER_THREAD, viaService);
+
+        logger.info("JPA path:    {} transfers/s, {} failed", jpa.throughput(), jpa.failed());
+        logger.info("Ledger path: {} transfers/s, {} failed", ledger.throughput(), ledger.failed());
+
+        assertEquals(0, ledger.failed());
+        assertEquals(0, jpa.failed());
+        // Money is only moved around, never created or lost
+        assertEquals(0, totalBefore.compareTo(fixture.totalStoredBalance()));
+    }
+
+    private interface Transfer {
+        void apply(UUID from, UUID to);
+    }
+
+    private BenchmarkResult run(List<UUID> hot, List<UUID> cold, int perThread, Transfer transfer) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < perThread; i++) {
+                    UUID from = pick(random, hot, cold);
+                    UUID to = pick(random, hot, cold);
+                    if (from.equals(to)) {
+                        to = cold.get(random.nextInt(cold.size()));
+                        if (from.equals(to)) {
+                            continue;
+                        }
+                    }
+                    try {
+                        transfer.apply(from, to);
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        return new BenchmarkResult(THREADS * perThread, failed.get(), System.nanoTime() - start);
+    }
+
+    private UUID pick(ThreadLocalRandom random, List<UUID> hot, List<UUID> cold) {
+        return random.nextDouble() < HOT_SHARE
+                ? hot.get(random.nextInt(hot.size()))
+                : cold.get(random.nextInt(cold.size()));
+    }
+}
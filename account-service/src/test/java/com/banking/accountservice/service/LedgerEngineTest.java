@@ -0,0 +1,131 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.exception.InsufficientFundsException;
+import com.banking.accountservice.model.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.banking.accountservice.service.AccountFixture.assertBalance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "banking.ledger.enabled=true",
+        "banking.ledger.max-cached-accounts=2",
+        "banking.ledger.commit-timeout-ms=100"
+})
+@ActiveProfiles("test")
+class LedgerEngineTest {
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void evictionKeepsTheAccountsOfTheTransferBeingApplied() {
+        UUID other = fixture.createAccount("0.00");
+        UUID source = fixture.createAccount("100.00");
+        UUID first = fixture.createAccount("0.00");
+        UUID second = fixture.createAccount("0.00");
+        // Fills the cache to one below the limit, so loading the destination below has to evict
+        ledgerEngine.adjust(other, Money.of(new BigDecimal("1.00")));
+
+        AtomicReference<CompletableFuture<Void>> committed = new AtomicReference<>();
+        // Holding the source row keeps the writer from committing, so a source reloaded from the
+        // database would still show the full 100.00
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE account_id = ? FOR UPDATE",
+                    BigDecimal.class, source);
+            committed.set(ledgerEngine.applyTransfer(source, first, Money.of(new BigDecimal("60.00"))));
+            assertThrows(InsufficientFundsException.class,
+                    () -> ledgerEngine.applyTransfer(source, second, Money.of(new BigDecimal("60.00"))));
+        });
+        ledgerEngine.await(committed.get());
+
+        assertBalance("40.00", fixture.storedBalance(source));
+        assertBalance("60.00", fixture.storedBalance(first));
+        assertBalance("0.00", fixture.storedBalance(second));
+    }
+
+    @Test
+    void slowCommitIsWaitedForInsteadOfReportedAsFailed() throws Exception {
+        UUID source = fixture.createAccount("100.00");
+        UUID target = fixture.createAccount("0.00");
+        double slowBefore = meterRegistry.counter("ledger.commit.slow").count();
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            // The writer cannot commit while the source row is held, well past commit-timeout-ms
+            Future<?> transfer = transactionTemplate.execute(status -> {
+                jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE account_id = ? FOR UPDATE",
+                        BigDecimal.class, source);
+                Future<?> pending = caller.submit(
+                        () -> ledgerEngine.transfer(source, target, Money.of(new BigDecimal("10.00"))));
+                sleep(300);
+                return pending;
+            });
+            transfer.get(10, TimeUnit.SECONDS);
+        } finally {
+            caller.shutdown();
+        }
+
+        // The caller did run into the timeout, and still got a success
+        assertTrue(meterRegistry.counter("ledger.commit.slow").count() > slowBefore);
+        assertBalance("90.00", fixture.storedBalance(source));
+        assertBalance("10.00", fixture.storedBalance(target));
+    }
+
+    @Test
+    void batchIsRejectedWhenAnotherWriterSpentTheCachedBalance() {
+        UUID source = fixture.createAccount("100.00");
+        UUID target = fixture.createAccount("0.00");
+        // Cached at 100.00, then emptied behind the ledger's back
+        ledgerEngine.adjust(source, Money.of(new BigDecimal("0.01")));
+        jdbcTemplate.update("UPDATE accounts SET balance = 0 WHERE account_id = ?", source);
+        double failuresBefore = meterRegistry.counter("ledger.flush.failures").count();
+
+        assertThrows(IllegalStateException.class,
+                () -> ledgerEngine.transfer(source, target, Money.of(new BigDecimal("60.00"))));
+
+        assertEquals(failuresBefore + 1, meterRegistry.counter("ledger.flush.failures").count());
+        assertBalance("0.00", fixture.storedBalance(source));
+        assertBalance("0.00", fixture.storedBalance(target));
+        // The cache was dropped, so the next transfer sees the stored balance
+        assertThrows(InsufficientFundsException.class,
+                () -> ledgerEngine.transfer(source, target, Money.of(new BigDecimal("60.00"))));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
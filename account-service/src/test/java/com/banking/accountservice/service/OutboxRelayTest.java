@@ -0,0 +1,94 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.dto.BalanceChangedEventDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "banking.accounts.outbox.relay.enabled=true"
+})
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 3, topics = "account-balance-events")
+class OutboxRelayTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Test
+    void balanceChangesArePublishedInOrderPerAccount() throws Exception {
+        UUID from = fixture.createAccount("100.00");
+        UUID to = fixture.createAccount("0.00");
+        accountService.transferBetweenAccounts(from, to, new BigDecimal("30.00"));
+        accountService.transferBetweenAccounts(from, to, new BigDecimal("20.00"));
+        accountService.updateAccountBalance(to, new BigDecimal("-5.00"));
+
+        outboxRelay.drain();
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM account_outbox WHERE account_id IN (?, ?)", Integer.class, from, to));
+
+        List<BalanceChangedEventDto> fromEvents = new ArrayList<>();
+        List<BalanceChangedEventDto> toEvents = new ArrayList<>();
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(
+                KafkaTestUtils.consumerProps("outbox-relay-test", "false", embeddedKafka),
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            embeddedKafka.consumeFromAnEmbeddedTopic(consumer, "account-balance-events");
+            long deadline = System.currentTimeMillis() + 20_000;
+            while (fromEvents.size() + toEvents.size() < 7 && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, String> record : KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(2))) {
+                    BalanceChangedEventDto event = objectMapper.readValue(record.value(), BalanceChangedEventDto.class);
+                    assertEquals(event.getAccountId().toString(), record.key());
+                    if (event.getAccountId().equals(from)) fromEvents.add(event);
+                    if (event.getAccountId().equals(to)) toEvents.add(event);
+                }
+            }
+        }
+
+        assertEquals(List.of("OPENED", "DEBIT", "DEBIT"), fromEvents.stream().map(BalanceChangedEventDto::getType).toList());
+        assertEquals(List.of("OPENED", "CREDIT", "CREDIT", "ADJUSTMENT"), toEvents.stream().map(BalanceChangedEventDto::getType).toList());
+        assertBalances(List.of("100.00", "70.00", "50.00"), fromEvents);
+        assertBalances(List.of("0.00", "30.00", "50.00", "45.00"), toEvents);
+        // The two legs of a transfer share its id
+        assertEquals(Set.of(fromEvents.get(1).getTransferId()), Set.of(toEvents.get(1).getTransferId()));
+    }
+
+    private void assertBalances(List<String> expected, List<BalanceChangedEventDto> events) {
+        assertEquals(expected.stream().map(BigDecimal::new).map(b -> b.setScale(2)).toList(),
+                events.stream().map(e -> e.getBalance().setScale(2)).toList());
+    }
+}
@@ -0,0 +1,118 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.model.Account;
+import com.banking.accountservice.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest(properties = "banking.accounts.inactivation.chunk-size=3")
+@ActiveProfiles("test")
+class StaleAccountInactivatorTest {
+
+    @Autowired
+    private StaleAccountInactivator staleAccountInactivator;
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private BalanceOutbox balanceOutbox;
+
+    @Test
+    void inactivatesOnlyStaleAccountsAcrossChunks() {
+        LocalDateTime longAgo = LocalDateTime.now().minusDays(2);
+        List<UUID> stale = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            UUID id = fixture.createAccount("100.00");
+            jdbcTemplate.update("UPDATE accounts SET last_transaction_date = ? WHERE account_id = ?", longAgo, id);
+            stale.add(id);
+        }
+        // NULL lastTransactionDate falls back to createdAt
+        UUID staleByCreation = fixture.createAccount("100.00");
+        jdbcTemplate.update("UPDATE accounts SET last_transaction_date = NULL, created_at = ? WHERE account_id = ?",
+                longAgo, staleByCreation);
+        stale.add(staleByCreation);
+        UUID recent = fixture.createAccount("100.00");
+
+        double writtenBefore = meterRegistry.get("accounts.outbox.written").counter().count();
+        long inactivated = staleAccountInactivator.inactivateBefore(LocalDateTime.now().minusDays(1));
+
+        assertEquals(stale.size(), inactivated);
+        for (UUID id : stale) {
+            assertEquals(Account.AccountStatus.INACTIVE, accountRepository.findStatusByAccountId(id).orElseThrow());
+        }
+        assertEquals(Account.AccountStatus.ACTIVE, accountRepository.findStatusByAccountId(recent).orElseThrow());
+        // One STATUS event per inactivated account (a relay in another test context may already have sent them)
+        assertEquals((double) stale.size(), meterRegistry.get("accounts.outbox.written").counter().count() - writtenBefore);
+        // A second run finds nothing left to do
+        assertEquals(0, staleAccountInactivator.inactivateBefore(LocalDateTime.now().minusDays(1)));
+    }
+
+    @Test
+    void countsAndReportsOnlyTheAccountsItChanged() {
+        LocalDateTime longAgo = LocalDateTime.now().minusDays(2);
+        List<UUID> page = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            UUID id = fixture.createAccount("100.00");
+            jdbcTemplate.update("UPDATE accounts SET last_transaction_date = ? WHERE account_id = ?", longAgo, id);
+            page.add(id);
+        }
+        UUID inactivatedMeanwhile = page.get(0);
+        UUID transactedMeanwhile = page.get(1);
+        // Between reading the page and the UPDATE, another run inactivates one account and another one transacts
+        AccountRepository racing = mock(AccountRepository.class, delegatesTo(accountRepository));
+        doAnswer(invocation -> {
+            List<UUID> ids = accountRepository.findStaleIdsAfter(invocation.getArgument(0), invocation.getArgument(1),
+                    invocation.getArgument(2), invocation.getArgument(3));
+            jdbcTemplate.update("UPDATE accounts SET status = 'INACTIVE' WHERE account_id = ?", inactivatedMeanwhile);
+            jdbcTemplate.update("UPDATE accounts SET last_transaction_date = ? WHERE account_id = ?",
+                    LocalDateTime.now(), transactedMeanwhile);
+            // Stale accounts of other tests are left alone
+            return ids.stream().filter(page::contains).toList();
+        }).when(racing).findStaleIdsAfter(any(), any(), any(), any());
+        SimpleMeterRegistry runMetrics = new SimpleMeterRegistry();
+        StaleAccountInactivator inactivator = new StaleAccountInactivator(racing, transactionTemplate, runMetrics,
+                accountCache, balanceOutbox, null, 1000, false);
+
+        double writtenBefore = meterRegistry.get("accounts.outbox.written").counter().count();
+        long inactivated = inactivator.inactivateBefore(LocalDateTime.now().minusDays(1));
+
+        assertEquals(1, inactivated);
+        assertEquals(1.0, runMetrics.get("accounts.inactivation.rows").counter().count());
+        assertEquals(1.0, meterRegistry.get("accounts.outbox.written").counter().count() - writtenBefore);
+        assertEquals(Account.AccountStatus.ACTIVE, accountRepository.findStatusByAccountId(transactedMeanwhile).orElseThrow());
+        assertEquals(Account.AccountStatus.INACTIVE, accountRepository.findStatusByAccountId(page.get(2)).orElseThrow());
+    }
+}
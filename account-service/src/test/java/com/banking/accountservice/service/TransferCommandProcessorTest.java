@@ -0,0 +1,152 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.dto.BatchTransferResultDto;
+import com.banking.accountservice.dto.TransferCommandDto;
+import com.banking.accountservice.dto.TransferCommandResultDto;
+import com.banking.accountservice.repository.AccountRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "banking.accounts.transfer-commands.enabled=true",
+        "banking.accounts.transfer-commands.partitions=4",
+        "banking.accounts.transfer-commands.concurrency=4"
+})
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 4, topics = {"account-transfer-commands", "account-transfer-results"})
+class TransferCommandProcessorTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferCommandProcessorTest.class);
+
+    private static final int SOURCES = 100;
+    private static final int DESTINATIONS = 10;
+    private static final int COMMANDS = 5_000;
+    private static final int RESENDS = 500;
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Test
+    void appliesEachCommandOnceAndAnswersEveryDelivery() throws Exception {
+        List<UUID> sources = new ArrayList<>();
+        List<UUID> destinations = new ArrayList<>();
+        for (int i = 0; i < SOURCES; i++) sources.add(fixture.createAccount("1000.00"));
+        for (int i = 0; i < DESTINATIONS; i++) destinations.add(fixture.createAccount("0.00"));
+
+        Random random = new Random(14);
+        List<TransferCommandDto> commands = new ArrayList<>();
+        for (int i = 0; i < COMMANDS; i++) {
+            commands.add(new TransferCommandDto(UUID.randomUUID(), sources.get(random.nextInt(SOURCES)),
+                    destinations.get(random.nextInt(DESTINATIONS)), new BigDecimal("1.25")));
+        }
+        // More than the source holds: rejected, and still answered
+        TransferCommandDto overdraft = new TransferCommandDto(UUID.randomUUID(), sources.get(0),
+                destinations.get(0), new BigDecimal("5000.00"));
+        commands.add(overdraft);
+        int unique = commands.size();
+        // Client resends of commands already sent
+        for (int i = 0; i < RESENDS; i++) {
+            commands.add(commands.get(random.nextInt(COMMANDS)));
+        }
+
+        // Keep the consumer group's first rebalance out of the measurement
+        ContainerTestUtils.waitForAssignment(listenerRegistry.getListenerContainer("transfer-commands"), 4);
+        long started = System.nanoTime();
+        for (TransferCommandDto command : commands) {
+            kafkaTemplate.send("account-transfer-commands", command.getFromAccountId().toString(),
+                    objectMapper.writeValueAsString(command));
+        }
+        kafkaTemplate.flush();
+
+        Map<UUID, List<TransferCommandResultDto>> results = new HashMap<>();
+        int received = 0;
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(
+                KafkaTestUtils.consumerProps("transfer-command-test", "false", embeddedKafka),
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            embeddedKafka.consumeFromAnEmbeddedTopic(consumer, "account-transfer-results");
+            long deadline = System.currentTimeMillis() + 120_000;
+            while (received < commands.size() && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, String> record : KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(1))) {
+                    TransferCommandResultDto result = objectMapper.readValue(record.value(), TransferCommandResultDto.class);
+                    results.computeIfAbsent(result.getCommandId(), id -> new ArrayList<>()).add(result);
+                    received++;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        logger.info("Transfer commands: {} sent ({} unique) answered in {} s, {} commands/s",
+                commands.size(), unique, String.format("%.2f", seconds), Math.round(commands.size() / seconds));
+
+        assertEquals(commands.size(), received);
+        assertEquals(unique, results.size());
+        // Exactly one delivery of every command was applied, the others were answered as duplicates
+        for (List<TransferCommandResultDto> answers : results.values()) {
+            assertEquals(1, answers.stream().filter(answer -> !answer.isDuplicate()).count());
+            assertEquals(1, answers.stream().map(TransferCommandResultDto::getStatus).distinct().count());
+        }
+        assertEquals(BatchTransferResultDto.Status.FAILED, results.get(overdraft.getCommandId()).get(0).getStatus());
+        assertEquals(unique, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM processed_transfer_commands", Integer.class));
+
+        // Balances moved exactly once per applied command
+        Map<UUID, BigDecimal> expected = new HashMap<>();
+        sources.forEach(id -> expected.put(id, new BigDecimal("1000.00")));
+        destinations.forEach(id -> expected.put(id, BigDecimal.ZERO));
+        for (int i = 0; i < COMMANDS; i++) {
+            TransferCommandDto command = commands.get(i);
+            assertEquals(BatchTransferResultDto.Status.SUCCESS, results.get(command.getCommandId()).get(0).getStatus());
+            expected.merge(command.getFromAccountId(), command.getAmount().negate(), BigDecimal::add);
+            expected.merge(command.getToAccountId(), command.getAmount(), BigDecimal::add);
+        }
+        for (Map.Entry<UUID, BigDecimal> entry : expected.entrySet()) {
+            BigDecimal balance = accountRepository.findById(entry.getKey()).orElseThrow().getBalance();
+            assertEquals(0, entry.getValue().compareTo(balance), "balance of " + entry.getKey());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.dto.TransferResultDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransferResultCodeTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reportsBalancesOnSuccess() {
+        UUID from = fixture.createAccount("100.00");
+        UUID to = fixture.createAccount("5.00");
+
+        TransferResultDto result = accountService.executeTransfer(from, to, new BigDecimal("40.00"));
+
+        assertEquals(TransferResultDto.Code.SUCCESS, result.getCode());
+        assertEquals(0, new BigDecimal("60.00").compareTo(result.getFromBalance()));
+        assertEquals(0, new BigDecimal("45.00").compareTo(result.getToBalance()));
+    }
+
+    @Test
+    void reportsRejectionsAsCodesWithoutMovingMoney() {
+        UUID from = fixture.createAccount("100.00");
+        UUID to = fixture.createAccount("0.00");
+
+        TransferResultDto overdraft = accountService.executeTransfer(from, to, new BigDecimal("100.01"));
+        assertEquals(TransferResultDto.Code.INSUFFICIENT_FUNDS, overdraft.getCode());
+        assertNull(overdraft.getFromBalance());
+
+        assertEquals(TransferResultDto.Code.ACCOUNT_NOT_FOUND,
+                accountService.executeTransfer(from, UUID.randomUUID(), BigDecimal.ONE).getCode());
+        assertEquals(TransferResultDto.Code.INVALID_REQUEST,
+                accountService.executeTransfer(from, to, BigDecimal.ZERO).getCode());
+
+        jdbcTemplate.update("UPDATE accounts SET status = 'INACTIVE' WHERE account_id = ?", to);
+        assertEquals(TransferResultDto.Code.ACCOUNT_INACTIVE,
+                accountService.executeTransfer(from, to, BigDecimal.ONE).getCode());
+
+        assertEquals(0, new BigDecimal("100.00").compareTo(accountService.getAccountById(from).getBalance()));
+    }
+}
@@ -0,0 +1,104 @@
+package com.banking.accountservice.service;
+
+import com.banking.accountservice.dto.AccountResponseDto;
+import com.banking.accountservice.exception.NoAccountsForUserId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserAccountsPagingTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountFixture fixture;
+
+    @Autowired
+    private HotAccountService hotAccountService;
+
+    @Test
+    void pagesAndStreamCoverEveryAccountOnce() {
+        UUID userId = UUID.randomUUID();
+        Set<UUID> created = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(fixture.createAccount(userId, "10.00"));
+        }
+
+        List<AccountResponseDto> paged = new ArrayList<>();
+        UUID after = null;
+        while (true) {
+            List<AccountResponseDto> page = accountService.getAccountsByUserId(userId, after, 2);
+            if (page.isEmpty()) {
+                break;
+            }
+            assertTrue(page.size() <= 2);
+            paged.addAll(page);
+            after = page.get(page.size() - 1).getAccountId();
+        }
+        assertEquals(created, paged.stream().map(AccountResponseDto::getAccountId).collect(Collectors.toSet()));
+        assertEquals(5, paged.size());
+
+        List<AccountResponseDto> streamed = new ArrayList<>();
+        accountService.streamAccountsByUserId(userId, streamed::add);
+        assertEquals(paged.stream().map(AccountResponseDto::getAccountId).toList(),
+                streamed.stream().map(AccountResponseDto::getAccountId).toList());
+
+        assertThrows(NoAccountsForUserId.class, () -> accountService.getAccountsByUserId(UUID.randomUUID(), null, 10));
+        assertThrows(NoAccountsForUserId.class, () -> accountService.requireAccountsForUser(UUID.randomUUID()));
+    }
+
+    @Test
+    void snapshotPagesCoverEveryAccountOnce() {
+        Set<UUID> created = new HashSet<>();
+        for (int i = 0; i < 7; i++) {
+            created.add(fixture.createAccount(UUID.randomUUID(), "5.00"));
+        }
+
+        Set<UUID> seen = new HashSet<>();
+        UUID after = null;
+        for (int pages = 0; pages < 10_000; pages++) {
+            List<AccountResponseDto> page = accountService.getAccountSnapshot(after, 100);
+            if (page.isEmpty()) {
+                break;
+            }
+            assertTrue(page.size() <= 100);
+            for (AccountResponseDto account : page) {
+                assertTrue(seen.add(account.getAccountId()));
+                assertTrue(account.getStatus() != null && account.getBalance() != null);
+            }
+            after = page.get(page.size() - 1).getAccountId();
+        }
+        assertTrue(seen.containsAll(created));
+    }
+
+    @Test
+    void projectedBalanceIncludesUnmergedHotCredits() {
+        UUID userId = UUID.randomUUID();
+        UUID merchant = fixture.createAccount(userId, "0.00");
+        UUID customer = fixture.createAccount(UUID.randomUUID(), "50.00");
+        hotAccountService.markHot(merchant, 4);
+        try {
+            accountService.transferBetweenAccounts(customer, merchant, new BigDecimal("12.50"));
+            AccountResponseDto account = accountService.getAccountsByUserId(userId, null, 10).get(0);
+            assertEquals(0, new BigDecimal("12.50").compareTo(account.getBalance()));
+        } finally {
+            hotAccountService.unmarkHot(merchant);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.banking.bffservice.config;
+
+import com.banking.bffservice.exception.DownstreamUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Tail-latency protection for the calls to one downstream service, applied as a WebClient filter:
+// - a bulkhead: at most max-concurrent calls in flight, the rest fail at once
+// - a circuit breaker over the last window-size calls: opens at failure-rate-threshold percent
+//   failures (errors and 5xx answers), fails fast while open, then lets half-open-calls probes through
+// - for safe methods only (GET/HEAD/OPTIONS): a hedged second attempt when the first has not answered
+//   within the recent p95 (for at most hedge max-percent of calls), and retries with jittered backoff when the connection itself failed
+// Writes are never hedged or retried: a transfer that reached transaction-service must not be sent twice.
+class DownstreamResilienceFilter implements ExchangeFilterFunction {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownstreamResilienceFilter.class);
+
+    private static final Set<HttpMethod> SAFE_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+    // The p95 is read from the latency histogram at most this often
+    private static final long HEDGE_DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    record Settings(int maxConcurrent,
+                    int failureRateThreshold, int windowSize, int minimumCalls, Duration openDuration, int halfOpenCalls,
+                    int maxRetries, Duration retryMinBackoff, Duration retryMaxBackoff,
+                    boolean hedgeEnabled, Duration hedgeInitialDelay, Duration hedgeMinDelay, long hedgeMinSamples,
+                    int hedgeMaxPercent) {
+
+        // external-services.<downstream>.resilience.<key>, falling back to external-services.resilience.<key>
+        static Settings from(Environment environment, String downstream) {
+            return new Settings(
+                    property(environment, downstream, "max-concurrent", Integer.class, 64),
+                    property(environment, downstream, "circuit.failure-rate-threshold", Integer.class, 50),
+                    property(environment, downstream, "circuit.window-size", Integer.class, 50),
+                    property(environment, downstream, "circuit.minimum-calls", Integer.class, 20),
+                    Duration.ofMillis(property(environment, downstream, "circuit.open-ms", Long.class, 5000L)),
+                    property(environment, downstream, "circuit.half-open-calls", Integer.class, 3),
+                    property(environment, downstream, "retry.max-retries", Integer.class, 2),
+                    Duration.ofMillis(property(environment, downstream, "retry.min-backoff-ms", Long.class, 50L)),
+                    Duration.ofMillis(property(environment, downstream, "retry.max-backoff-ms", Long.class, 500L)),
+                    property(environment, downstream, "hedge.enabled", Boolean.class, true),
+                    Duration.ofMillis(property(environment, downstream, "hedge.initial-delay-ms", Long.class, 200L)),
+                    Duration.ofMillis(property(environment, downstream, "hedge.min-delay-ms", Long.class, 10L)),
+                    property(environment, downstream, "hedge.min-samples", Long.class, 100L),
+                    property(environment, downstream, "hedge.max-percent", Integer.class, 10));
+        }
+
+        private static <T> T property(Environment environment, String downstream, String key, Class<T> type, T defaultValue) {
+            T shared = environment.getProperty("external-services.resilience." + key, type, defaultValue);
+            return environment.getProperty("external-services." + downstream + ".resilience." + key, type, shared);
+        }
+    }
+
+    // The answer of one attempt, and whether it came from the hedge
+    private record Answer(ClientResponse response, boolean hedged) {
+    }
+
+    private final String downstream;
+    private final Settings settings;
+    private final CircuitBreaker circuitBreaker;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong hedgeableCalls = new AtomicLong();
+    private final AtomicLong hedgesStarted = new AtomicLong();
+
+    private final Timer latency;
+    private final Counter bulkheadRejected;
+    private final Counter circuitRejected;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+    private final Counter retries;
+
+    private volatile long hedgeDelayNanos;
+    private volatile long hedgeDelayComputedAt;
+
+    DownstreamResilienceFilter(String downstream, Settings settings, MeterRegistry meterRegistry) {
+        this.downstream = downstream;
+        this.settings = settings;
+        this.circuitBreaker = new CircuitBreaker(settings, state -> {
+            logger.warn("Circuit breaker for {} is now {}", downstream, state);
+            meterRegistry.counter("downstream.circuit.transitions", "downstream", downstream,
+                    "state", state.name().toLowerCase()).increment();
+        });
+        this.hedgeDelayNanos = settings.hedgeInitialDelay().toNanos();
+        this.hedgeDelayComputedAt = System.nanoTime();
+
+        this.latency = Timer.builder("downstream.latency")
+                .description("Time until a call to the downstream service answered")
+                .tag("downstream", downstream)
+                .publishPercentiles(0.95, 0.99)
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        Gauge.builder("downstream.bulkhead.in-flight", inFlight, AtomicInteger::get)
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+        this.bulkheadRejected = meterRegistry.counter("downstream.bulkhead.rejected", "downstream", downstream);
+        Gauge.builder("downstream.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal())
+                .description("0 closed, 1 open, 2 half-open")
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+        this.circuitRejected = meterRegistry.counter("downstream.circuit.rejected", "downstream", downstream);
+        this.hedgesSent = meterRegistry.counter("downstream.hedges", "downstream", downstream, "outcome", "sent");
+        this.hedgesWon = meterRegistry.counter("downstream.hedges", "downstream", downstream, "outcome", "won");
+        this.retries = meterRegistry.counter("downstream.retries", "downstream", downstream);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!SAFE_METHODS.contains(request.method())) {
+            return attempt(request, next);
+        }
+        // Deferred so that every retry is hedged afresh, with its own delay, failure signal and count
+        Mono<ClientResponse> call = settings.hedgeEnabled()
+                ? Mono.defer(() -> hedged(request, next))
+                : attempt(request, next);
+        return call.retryWhen(Retry.backoff(settings.maxRetries(), settings.retryMinBackoff())
+                .maxBackoff(settings.retryMaxBackoff())
+                .jitter(0.5)
+                // Only failures to reach the service; an answer, even a 5xx, is passed on as it is
+                .filter(WebClientRequestException.class::isInstance)
+                .doBeforeRetry(signal -> retries.increment())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    // The first attempt, plus a second one if the first has not answered within the hedge delay;
+    // whichever answers first is used and the other is cancelled
+    private Mono<ClientResponse> hedged(ClientRequest request, ExchangeFunction next) {
+        long calls = hedgeableCalls.incrementAndGet();
+        Sinks.One<Boolean> primaryFailed = Sinks.one();
+        Mono<Answer> primary = attempt(request, next)
+                .doOnError(error -> primaryFailed.tryEmitValue(true))
+                .map(response -> new Answer(response, false));
+        Mono<Answer> hedge = Mono.delay(Duration.ofNanos(hedgeDelay()))
+                // A failed first attempt is left to the retry, not hedged
+                .takeUntilOther(primaryFailed.asMono())
+                .flatMap(tick -> {
+                    // No hedge when it would only be turned away by the bulkhead, or when hedges are
+                    // already max-percent of the calls: a slow downstream must not get twice the load
+                    if (inFlight.get() >= settings.maxConcurrent()
+                            || hedgesStarted.get() * 100 >= calls * settings.hedgeMaxPercent()) {
+                        return Mono.empty();
+                    }
+                    hedgesStarted.incrementAndGet();
+                    hedgesSent.increment();
+                    return attempt(request, next).map(response -> new Answer(response, true));
+                });
+
+        return Mono.firstWithValue(primary, hedge)
+                .doOnNext(answer -> {
+                    if (answer.hedged()) {
+                        hedgesWon.increment();
+                    }
+                })
+                .map(Answer::response)
+                .onErrorMap(NoSuchElementException.class, DownstreamResilienceFilter::firstFailure)
+                // A loser that answered in the same instant must still give its connection back
+                .doOnDiscard(Answer.class, answer -> answer.response().releaseBody().subscribe());
+    }
+
+    // One call through the circuit breaker and the bulkhead, timed until it answers
+    private Mono<ClientResponse> attempt(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                circuitRejected.increment();
+                return Mono.error(new DownstreamUnavailableException(
+                        "Circuit breaker for " + downstream + " is open"));
+            }
+            if (inFlight.incrementAndGet() > settings.maxConcurrent()) {
+                inFlight.decrementAndGet();
+                circuitBreaker.abandoned();
+                bulkheadRejected.increment();
+                return Mono.error(new DownstreamUnavailableException(
+                        "Too many calls to " + downstream + " in flight"));
+            }
+
+            long started = System.nanoTime();
+            AtomicBoolean finished = new AtomicBoolean();
+            return next.exchange(request)
+                    .doOnNext(response -> {
+                        if (finished.compareAndSet(false, true)) {
+                            latency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                            circuitBreaker.record(!response.statusCode().is5xxServerError());
+                        }
+                    })
+                    .doOnError(error -> {
+                        if (finished.compareAndSet(false, true)) {
+                            latency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                            circuitBreaker.record(false);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (finished.compareAndSet(false, true)) {
+                            circuitBreaker.abandoned();
+                        }
+                    })
+                    .doFinally(signal -> inFlight.decrementAndGet());
+        });
+    }
+
+    // The recent p95 of answered calls (initial-delay until there are min-samples of them), at least min-delay
+    private long hedgeDelay() {
+        long now = System.nanoTime();
+        if (now - hedgeDelayComputedAt >= HEDGE_DELAY_REFRESH_NANOS && latency.count() >= settings.hedgeMinSamples()) {
+            hedgeDelayComputedAt = now;
+            for (ValueAtPercentile percentile : latency.takeSnapshot().percentileValues()) {
+                if (percentile.percentile() == 0.95) {
+                    hedgeDelayNanos = Math.max(settings.hedgeMinDelay().toNanos(),
+                            (long) percentile.value(TimeUnit.NANOSECONDS));
+                }
+            }
+        }
+        return hedgeDelayNanos;
+    }
+
+    // Mono.firstWithValue reports "no source had a value"; callers want the first attempt's own error
+    private static Throwable firstFailure(NoSuchElementException error) {
+        if (error.getCause() != null) {
+            for (Throwable failure : Exceptions.unwrapMultiple(error.getCause())) {
+                if (failure != null) {
+                    return failure;
+                }
+            }
+        }
+        for (Throwable failure : error.getSuppressed()) {
+            return failure;
+        }
+        return error;
+    }
+
+    CircuitBreaker.State circuitState() {
+        return circuitBreaker.state();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    // Count-based: the outcomes of the last window-size calls made while closed
+    static final class CircuitBreaker {
+
+        enum State { CLOSED, OPEN, HALF_OPEN }
+
+        private final Settings settings;
+        private final Consumer<State> onTransition;
+        private final boolean[] failed;
+        private int position;
+        private int calls;
+        private int failures;
+
+        private State state = State.CLOSED;
+        private long openedAt;
+        private int probesStarted;
+        private int probesSucceeded;
+
+        CircuitBreaker(Settings settings, Consumer<State> onTransition) {
+            this.settings = settings;
+            this.onTransition = onTransition;
+            this.failed = new boolean[settings.windowSize()];
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < settings.openDuration().toNanos()) {
+                    return false;
+                }
+                transition(State.HALF_OPEN);
+                probesStarted = 0;
+                probesSucceeded = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesStarted >= settings.halfOpenCalls()) {
+                    return false;
+                }
+                probesStarted++;
+            }
+            return true;
+        }
+
+        synchronized void record(boolean success) {
+            if (state == State.HALF_OPEN) {
+                if (!success) {
+                    open();
+                } else if (++probesSucceeded >= settings.halfOpenCalls()) {
+                    close();
+                }
+                return;
+            }
+            if (state == State.OPEN) {
+                // Started before the breaker opened
+                return;
+            }
+            if (calls == failed.length) {
+                if (failed[position]) {
+                    failures--;
+                }
+            } else {
+                calls++;
+            }
+            failed[position] = !success;
+            if (!success) {
+                failures++;
+            }
+            position = (position + 1) % failed.length;
+            if (calls >= settings.minimumCalls() && failures * 100 >= settings.failureRateThreshold() * calls) {
+                open();
+            }
+        }
+
+        // A call that was let through but never finished (cancelled, or turned away by the bulkhead)
+        synchronized void abandoned() {
+            if (state == State.HALF_OPEN && probesStarted > probesSucceeded) {
+                probesStarted--;
+            }
+        }
+
+        private void open() {
+            openedAt = System.nanoTime();
+            transition(State.OPEN);
+        }
+
+        private void close() {
+            position = 0;
+            calls = 0;
+            failures = 0;
+            Arrays.fill(failed, false);
+            transition(State.CLOSED);
+        }
+
+        private void transition(State next) {
+            state = next;
+            onTransition.accept(next);
+        }
+    }
+}
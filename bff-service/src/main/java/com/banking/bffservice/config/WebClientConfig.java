@@ -1,16 +1,25 @@
 package com.banking.bffservice.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
@@ -25,32 +34,86 @@ public class WebClientConfig {
     @Value("${external-services.transaction-service.base-url}")
     private String transactionServiceBaseUrl;
 
+    // Bulkhead, circuit breaker, hedging and retries per downstream (see DownstreamResilienceFilter)
+    @Value("${external-services.resilience.enabled:true}")
+    private boolean resilienceEnabled;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
     @Bean
     public WebClient userServiceWebClient() {
-        return createWebClient(userServiceBaseUrl);
+        return createWebClient("user-service", userServiceBaseUrl);
     }
 
     @Bean
     public WebClient accountServiceWebClient() {
-        return createWebClient(accountServiceBaseUrl);
+        return createWebClient("account-service", accountServiceBaseUrl);
     }
 
     @Bean
     public WebClient transactionServiceWebClient() {
-        return createWebClient(transactionServiceBaseUrl);
+        return createWebClient("transaction-service", transactionServiceBaseUrl);
+    }
+
+    @PreDestroy
+    public void disposeConnectionProviders() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
     }
 
-    private WebClient createWebClient(String baseUrl) {
-        HttpClient httpClient = HttpClient.create()
+    private WebClient createWebClient(String downstream, String baseUrl) {
+        boolean http2 = property(downstream, "http2.enabled", Boolean.class, false);
+        HttpClient httpClient = HttpClient.create(createConnectionProvider(downstream, http2))
+                // h2c with prior knowledge: the downstream must accept HTTP/2 without TLS (server.http2.enabled)
+                .protocol(http2 ? HttpProtocol.H2C : HttpProtocol.HTTP11)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000)
                 .responseTimeout(Duration.ofMillis(5000))
                 .doOnConnected(conn ->
                         conn.addHandlerLast(new ReadTimeoutHandler(5000, TimeUnit.MILLISECONDS))
                                 .addHandlerLast(new WriteTimeoutHandler(5000, TimeUnit.MILLISECONDS)));
 
-        return WebClient.builder()
+        WebClient.Builder builder = WebClient.builder()
                 .baseUrl(baseUrl)
-                .clientConnector(new ReactorClientHttpConnector(httpClient))
-                .build();
+                .clientConnector(new ReactorClientHttpConnector(httpClient));
+        if (resilienceEnabled) {
+            builder.filter(new DownstreamResilienceFilter(downstream,
+                    DownstreamResilienceFilter.Settings.from(environment, downstream), meterRegistry));
+        }
+        return builder.build();
+    }
+
+    // One pool per downstream, named after it. Pool metrics (reactor.netty.connection.provider.*,
+    // tagged with the pool name) go to the global Micrometer registry, which Spring Boot feeds into its own.
+    private ConnectionProvider createConnectionProvider(String downstream, boolean http2) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(downstream)
+                .maxConnections(property(downstream, "pool.max-connections", Integer.class, 100))
+                .pendingAcquireMaxCount(property(downstream, "pool.pending-acquire-max-count", Integer.class, 1000))
+                .pendingAcquireTimeout(Duration.ofMillis(property(downstream, "pool.pending-acquire-timeout-ms", Long.class, 2000L)))
+                .maxIdleTime(Duration.ofMillis(property(downstream, "pool.max-idle-time-ms", Long.class, 30000L)))
+                .maxLifeTime(Duration.ofMillis(property(downstream, "pool.max-life-time-ms", Long.class, 300000L)))
+                .evictInBackground(Duration.ofMillis(property(downstream, "pool.evict-interval-ms", Long.class, 30000L)))
+                .metrics(true);
+        if (http2) {
+            // Many streams share a few connections instead of one connection per call in flight
+            builder.allocationStrategy(Http2AllocationStrategy.builder()
+                    .maxConnections(property(downstream, "http2.max-connections", Integer.class, 4))
+                    .minConnections(1)
+                    .maxConcurrentStreams(property(downstream, "http2.max-concurrent-streams", Long.class, 100L))
+                    .build());
+        }
+        ConnectionProvider connectionProvider = builder.build();
+        connectionProviders.add(connectionProvider);
+        return connectionProvider;
+    }
+
+    // external-services.<downstream>.<key>, falling back to external-services.<key>
+    private <T> T property(String downstream, String key, Class<T> type, T defaultValue) {
+        T shared = environment.getProperty("external-services." + key, type, defaultValue);
+        return environment.getProperty("external-services." + downstream + "." + key, type, shared);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,10 @@
+package com.banking.bffservice.exception;
+
+public class DownstreamUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DownstreamUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,80 @@
+package com.banking.transactionservice.config;
+
+import com.banking.transactionservice.model.Transaction;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Schema migration for transactions.status, which is stored as the TransactionStatus ordinal.
+ *
+ * Hibernate creates the column with a check on the ordinals the enum had at the time, e.g.
+ * check (status between 0 and 2) before QUEUED and EXECUTING existed, and ddl-auto=update never
+ * changes an existing check. Every check on the column whose upper bound is below the highest
+ * ordinal is dropped and replaced by one over all of them, before anything writes a transaction.
+ * A check that already admits every status is left alone, so a current schema costs one query.
+ */
+@Component
+public class TransactionStatusCheck {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionStatusCheck.class);
+
+    static final String CONSTRAINT_NAME = "transactions_status_check";
+
+    private static final String CHECKS_SQL = "SELECT tc.constraint_name, cc.check_clause "
+            + "FROM information_schema.table_constraints tc "
+            + "JOIN information_schema.check_constraints cc "
+            + "ON cc.constraint_schema = tc.constraint_schema AND cc.constraint_name = tc.constraint_name "
+            + "WHERE tc.table_schema = current_schema AND tc.table_name = 'transactions' AND tc.constraint_type = 'CHECK'";
+
+    // The upper bound in "status between 0 and 2" (H2) or "(status <= 2)" (PostgreSQL)
+    private static final Pattern UPPER_BOUND = Pattern.compile("(?i)(?:\\band|<=)\\s*\\(?\\s*(\\d+)");
+
+    // The EntityManagerFactory only orders this after Hibernate's schema update
+    public TransactionStatusCheck(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        int highest = Transaction.TransactionStatus.values().length - 1;
+        List<Check> stale = staleChecks(jdbcTemplate, highest);
+        if (stale.isEmpty()) {
+            return;
+        }
+        logger.warn("Widening {} on transactions.status to 0..{}", stale, highest);
+        try {
+            for (Check check : stale) {
+                jdbcTemplate.execute("ALTER TABLE transactions DROP CONSTRAINT IF EXISTS \"" + check.name() + "\"");
+            }
+            jdbcTemplate.execute("ALTER TABLE transactions ADD CONSTRAINT " + CONSTRAINT_NAME
+                    + " CHECK (status BETWEEN 0 AND " + highest + ")");
+        } catch (DataAccessException e) {
+            // Another instance starting at the same time got there first
+            if (!staleChecks(jdbcTemplate, highest).isEmpty()) {
+                throw e;
+            }
+        }
+    }
+
+    static List<Check> staleChecks(JdbcTemplate jdbcTemplate, int highest) {
+        return jdbcTemplate.query(CHECKS_SQL, (row, i) -> new Check(row.getString(1), row.getString(2))).stream()
+                .filter(check -> check.statusUpperBound() != null && check.statusUpperBound() < highest)
+                .toList();
+    }
+
+    record Check(String name, String clause) {
+
+        // null for checks that do not bound status (NOT NULL checks, other columns)
+        Integer statusUpperBound() {
+            if (clause == null || !clause.toLowerCase().contains("status")
+                    || clause.toUpperCase().contains("NOT NULL")) {
+                return null;
+            }
+            Matcher matcher = UPPER_BOUND.matcher(clause);
+            return matcher.find() ? Integer.valueOf(matcher.group(1)) : null;
+        }
+    }
+}
@@ -3,15 +3,28 @@ package com.banking.transactionservice.controller;
 import com.banking.transactionservice.dto.TransactionHistoryDto;
 import com.banking.transactionservice.dto.TransactionInitiationDto;
 import com.banking.transactionservice.dto.TransactionResponseDto;
+import com.banking.transactionservice.dto.TransactionStatusDto;
+import com.banking.transactionservice.exception.InvalidTransactionException;
+import com.banking.transactionservice.service.AccountActivityService;
+import com.banking.transactionservice.service.AccountReplica;
+import com.banking.transactionservice.service.TransactionExecutionQueue;
 import com.banking.transactionservice.service.TransactionService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -21,6 +34,20 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private AccountActivityService accountActivityService;
+
+    // Only present when banking.transactions.execution-queue.enabled=true
+    @Autowired(required = false)
+    private TransactionExecutionQueue transactionExecutionQueue;
+
+    // Only present when banking.accounts.replica.enabled=true
+    @Autowired(required = false)
+    private AccountReplica accountReplica;
+
+    @Value("${banking.transactions.history.default-limit:100}")
+    int defaultHistoryLimit;
+
     @PostMapping("/transactions/transfer/initiation")
     public Mono<ResponseEntity<TransactionResponseDto>> initiateTransaction(@Valid @RequestBody TransactionInitiationDto transactionInitiationDto) {
         return transactionService.initiateTransaction(transactionInitiationDto)
@@ -36,9 +63,60 @@ public class TransactionController {
                 .map(response -> ResponseEntity.ok(response));
     }
 
+    // Queues the execution and answers 202 at once; follow it on the status URL or the event stream
+    @PostMapping("/transactions/transfer/execution/async")
+    public Mono<ResponseEntity<TransactionStatusDto>> executeTransactionAsync(@RequestBody UUID transactionId) {
+        if (transactionExecutionQueue == null) {
+            return Mono.error(new InvalidTransactionException("Asynchronous execution is not enabled"));
+        }
+        return transactionExecutionQueue.enqueue(transactionId)
+                .map(status -> ResponseEntity.accepted()
+                        .location(URI.create("/transactions/" + transactionId + "/status"))
+                        .body(status));
+    }
+
+    @GetMapping("/transactions/{transactionId}/status")
+    public Mono<ResponseEntity<TransactionStatusDto>> getTransactionStatus(@PathVariable UUID transactionId) {
+        return transactionService.getTransactionStatus(transactionId)
+                .map(status -> ResponseEntity.ok(status));
+    }
+
+    // Server-sent events: the current status, then every change until SUCCESS or FAILED
+    @GetMapping(value = "/transactions/{transactionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<TransactionStatusDto>> streamTransactionStatus(@PathVariable UUID transactionId) {
+        Flux<TransactionStatusDto> statuses = transactionExecutionQueue != null
+                ? transactionExecutionQueue.statusStream(transactionId)
+                : transactionService.getTransactionStatus(transactionId).flux();
+        return statuses.map(status -> ServerSentEvent.builder(status).event(status.getStatus()).build());
+    }
+
+    // Newest first, at most limit items; pass the last item's timestamp and transactionId as
+    // beforeTimestamp/beforeId for the next page. from (inclusive) and to (exclusive) narrow the dates.
     @GetMapping("/accounts/{accountId}/transactions")
-    public ResponseEntity<?> getTransactionHistory(@PathVariable UUID accountId) {
-        List<TransactionHistoryDto> response = transactionService.getTransactionHistory(accountId);
+    public ResponseEntity<?> getTransactionHistory(
+            @PathVariable UUID accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeTimestamp,
+            @RequestParam(required = false) UUID beforeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer limit) {
+        List<TransactionHistoryDto> response = transactionService.getTransactionHistory(
+                accountId, beforeTimestamp, beforeId, from, to, limit != null ? limit : defaultHistoryLimit);
         return ResponseEntity.ok(response);
     }
+
+    // Drops the account_activity projection and fills it again from the transactions table
+    @PostMapping("/admin/account-activity/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildAccountActivity() {
+        return ResponseEntity.ok(Map.of("rows", accountActivityService.rebuild()));
+    }
+
+    // Size and staleness of the local account replica
+    @GetMapping("/admin/account-replica")
+    public ResponseEntity<Map<String, Object>> getAccountReplica() {
+        if (accountReplica == null) {
+            throw new InvalidTransactionException("The account replica is not enabled");
+        }
+        return ResponseEntity.ok(accountReplica.describe());
+    }
 }
@@ -0,0 +1,25 @@
+package com.banking.transactionservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Payload of account-service's banking.kafka.topic.balance-events, keyed by accountId.
+// eventId grows with every event; balance and status are the account's right after the change.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceChangedEventDto {
+    private long eventId;
+    private UUID accountId;
+    private String type;
+    private BigDecimal amount;
+    private BigDecimal balance;
+    private String status;
+    private UUID transferId;
+    private LocalDateTime occurredAt;
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -20,5 +21,13 @@ public class TransactionResponseDto {
 //    private BigDecimal amount;
 //    private String description;
     private LocalDateTime timestamp;
+    // Balances right after an executed transfer
+    private BigDecimal fromAccountBalance;
+    private BigDecimal toAccountBalance;
 
+    public TransactionResponseDto(UUID transactionId, String status, LocalDateTime timestamp) {
+        this.transactionId = transactionId;
+        this.status = status;
+        this.timestamp = timestamp;
+    }
 }
@@ -0,0 +1,21 @@
+package com.banking.transactionservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Where a transaction is in its lifecycle; also the payload of the execution events stream
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionStatusDto {
+    private UUID transactionId;
+    private String status; // INITIATED, QUEUED, EXECUTING, SUCCESS or FAILED
+    private String message; // Why execution failed or was given up
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,26 @@
+package com.banking.transactionservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Answer of account-service POST /accounts/transfers; balances are only set when code is SUCCESS
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferResultDto {
+    public enum Code {
+        SUCCESS, INSUFFICIENT_FUNDS, ACCOUNT_INACTIVE, ACCOUNT_NOT_FOUND, INVALID_REQUEST
+    }
+
+    private Code code;
+    private String message;
+    private UUID fromAccountId;
+    private UUID toAccountId;
+    private BigDecimal amount;
+    private BigDecimal fromBalance;
+    private BigDecimal toBalance;
+}
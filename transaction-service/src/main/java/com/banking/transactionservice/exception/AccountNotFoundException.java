@@ -0,0 +1,11 @@
+package com.banking.transactionservice.exception;
+
+/**
+ * Exception thrown when account-service does not know the requested account.
+ */
+public class AccountNotFoundException extends InvalidAccountException {
+
+    public AccountNotFoundException(String message) {
+        super(message);
+    }
+}
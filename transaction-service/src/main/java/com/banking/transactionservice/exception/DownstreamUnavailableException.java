@@ -0,0 +1,12 @@
+package com.banking.transactionservice.exception;
+
+/**
+ * Exception thrown when a call to another service is refused locally, because its circuit breaker
+ * is open or too many calls to it are already in flight.
+ */
+public class DownstreamUnavailableException extends RuntimeException {
+
+    public DownstreamUnavailableException(String message) {
+        super(message);
+    }
+}
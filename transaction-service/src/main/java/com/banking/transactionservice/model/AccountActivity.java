@@ -0,0 +1,59 @@
+package com.banking.transactionservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read side of the transaction history: one row per account a successful transaction touched,
+ * with the amount already signed for that account (negative when money left it). Appended when a
+ * transaction reaches SUCCESS and rebuildable from the transactions table (AccountActivityService).
+ *
+ * The primary key is also the history order, so a page or a running-balance sum is one range scan
+ * of it (read backwards for newest first), with neither a status filter nor a from/to OR.
+ */
+@Entity
+@Table(name = "account_activity")
+@IdClass(AccountActivity.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountActivity {
+
+    @Id
+    @Column(name = "account_id", nullable = false, updatable = false)
+    private UUID accountId;
+
+    @Id
+    @Column(name = "tx_timestamp", nullable = false, updatable = false)
+    private LocalDateTime txTimestamp;
+
+    @Id
+    @Column(name = "transaction_id", nullable = false, updatable = false)
+    private UUID transactionId;
+
+    @Column(nullable = false, updatable = false, precision = 15, scale = 2)
+    private BigDecimal amount;
+
+    // The other side of the transfer
+    @Column(name = "counterparty_account_id", nullable = false, updatable = false)
+    private UUID counterpartyAccountId;
+
+    @Column(length = 255, updatable = false)
+    private String description;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID accountId;
+        private LocalDateTime txTimestamp;
+        private UUID transactionId;
+    }
+}
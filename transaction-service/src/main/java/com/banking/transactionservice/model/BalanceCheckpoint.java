@@ -0,0 +1,47 @@
+package com.banking.transactionservice.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * An account's balance right after one of its successful transactions, in history order
+ * (timestamp, then id). Running balances of a history page are computed from the nearest
+ * checkpoint instead of from the current balance, so deep pages do not re-sum everything newer.
+ */
+@Entity
+@Table(name = "balance_checkpoints", indexes =
+        @Index(name = "idx_balance_checkpoints_account_position", columnList = "account_id, tx_timestamp, transaction_id", unique = true))
+@Data
+@NoArgsConstructor
+public class BalanceCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id", columnDefinition = "uuid", updatable = false, nullable = false)
+    private UUID checkpointId;
+
+    @Column(name = "account_id", nullable = false, updatable = false)
+    private UUID accountId;
+
+    // Position of the transaction the balance is taken after
+    @Column(name = "tx_timestamp", nullable = false, updatable = false)
+    private LocalDateTime txTimestamp;
+
+    @Column(name = "transaction_id", nullable = false, updatable = false)
+    private UUID transactionId;
+
+    @Column(nullable = false, updatable = false, precision = 15, scale = 2)
+    private BigDecimal balance;
+
+    public BalanceCheckpoint(UUID accountId, LocalDateTime txTimestamp, UUID transactionId, BigDecimal balance) {
+        this.accountId = accountId;
+        this.txTimestamp = txTimestamp;
+        this.transactionId = transactionId;
+        this.balance = balance;
+    }
+}
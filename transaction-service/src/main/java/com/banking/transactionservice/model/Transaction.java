@@ -9,7 +9,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        // Execution queue: oldest QUEUED first
+        @Index(name = "idx_transactions_status_queued_at", columnList = "status, queued_at"),
+        // Running balances: recently claimed transactions (see RunningBalanceService)
+        @Index(name = "idx_transactions_claimed_at", columnList = "claimed_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -34,18 +39,32 @@ public class Transaction {
     @Column(nullable = true, length = 255)
     private String description; // e.g., "DEBIT", "CREDIT"
 
+    // Stored as the ordinal; new values only ever go at the end (see TransactionStatusCheck)
     @Column(nullable = false)
     private TransactionStatus status=TransactionStatus.INITIATED;
 
     public enum TransactionStatus {
         INITIATED, //0
         SUCCESS, //1
-        FAILED //2
+        FAILED, //2
+        QUEUED, //3 accepted for asynchronous execution
+        EXECUTING //4 claimed by an execution worker
     }
 
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
+    // When the transaction was accepted for asynchronous execution, null otherwise
+    @Column(name = "queued_at")
+    private LocalDateTime queuedAt;
+
+    // Instance that last claimed the transaction for execution (EXECUTING), and when
+    @Column(name = "claimed_by", length = 64)
+    private String claimedBy;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
     @PrePersist
     protected void onCreate() {
         this.timestamp = LocalDateTime.now();
@@ -0,0 +1,68 @@
+package com.banking.transactionservice.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * R2DBC mapping of the transactions table (the schema itself is Transaction's, managed by JPA).
+ * status is the ordinal JPA stores; R2dbcTransactionStore converts to and from Transaction.
+ */
+@Table("transactions")
+@Data
+@NoArgsConstructor
+public class TransactionRecord {
+
+    @Id
+    @Column("id")
+    private UUID transactionId;
+
+    @Column("from_account_id")
+    private UUID fromAccountId;
+
+    @Column("to_account_id")
+    private UUID toAccountId;
+
+    private BigDecimal amount;
+
+    private String description;
+
+    private Integer status;
+
+    private LocalDateTime timestamp;
+
+    @Column("queued_at")
+    private LocalDateTime queuedAt;
+
+    @Column("claimed_by")
+    private String claimedBy;
+
+    @Column("claimed_at")
+    private LocalDateTime claimedAt;
+
+    public static TransactionRecord of(Transaction transaction) {
+        TransactionRecord record = new TransactionRecord();
+        record.setTransactionId(transaction.getTransactionId());
+        record.setFromAccountId(transaction.getFromAccountId());
+        record.setToAccountId(transaction.getToAccountId());
+        record.setAmount(transaction.getAmount());
+        record.setDescription(transaction.getDescription());
+        record.setStatus(transaction.getStatus().ordinal());
+        record.setTimestamp(transaction.getTimestamp());
+        record.setQueuedAt(transaction.getQueuedAt());
+        record.setClaimedBy(transaction.getClaimedBy());
+        record.setClaimedAt(transaction.getClaimedAt());
+        return record;
+    }
+
+    public Transaction toTransaction() {
+        return new Transaction(transactionId, fromAccountId, toAccountId, amount, description,
+                Transaction.TransactionStatus.values()[status], timestamp, queuedAt, claimedBy, claimedAt);
+    }
+}
@@ -0,0 +1,69 @@
+package com.banking.transactionservice.repository;
+
+import com.banking.transactionservice.model.AccountActivity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface AccountActivityRepository extends JpaRepository<AccountActivity, AccountActivity.Key> {
+
+    // Both legs of each listed transaction that is SUCCESS, read from the transactions table. Legs already
+    // present are skipped, so appending again or during a rebuild is harmless. Also run by R2dbcTransactionStore.
+    String INSERT_LEGS = "INSERT INTO account_activity "
+            + "(account_id, tx_timestamp, transaction_id, amount, counterparty_account_id, description) "
+            + "SELECT l.account_id, l.tx_timestamp, l.transaction_id, l.amount, l.counterparty_account_id, l.description FROM ("
+            + "SELECT t.from_account_id AS account_id, t.timestamp AS tx_timestamp, t.id AS transaction_id, "
+            + "-t.amount AS amount, t.to_account_id AS counterparty_account_id, t.description AS description "
+            + "FROM transactions t WHERE t.id IN (:transactionIds) AND t.status = :status "
+            + "UNION ALL "
+            + "SELECT t.to_account_id, t.timestamp, t.id, t.amount, t.from_account_id, t.description "
+            + "FROM transactions t WHERE t.id IN (:transactionIds) AND t.status = :status"
+            + ") l WHERE NOT EXISTS (SELECT 1 FROM account_activity a WHERE a.account_id = l.account_id "
+            + "AND a.tx_timestamp = l.tx_timestamp AND a.transaction_id = l.transaction_id)";
+
+    @Modifying(flushAutomatically = true)
+    @Query(nativeQuery = true, value = INSERT_LEGS)
+    int insertLegs(@Param("transactionIds") Collection<UUID> transactionIds, @Param("status") int status);
+
+    // Newest first from fromTimestamp (inclusive) up to strictly before the (beforeTimestamp, beforeId) cursor
+    @Query("SELECT a FROM AccountActivity a WHERE a.accountId = :accountId "
+            + "AND a.txTimestamp >= :fromTimestamp AND a.txTimestamp <= :beforeTimestamp "
+            + "AND (a.txTimestamp < :beforeTimestamp OR a.transactionId < :beforeId) "
+            + "ORDER BY a.txTimestamp DESC, a.transactionId DESC")
+    List<AccountActivity> findPage(@Param("accountId") UUID accountId,
+                                   @Param("fromTimestamp") LocalDateTime fromTimestamp,
+                                   @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                   @Param("beforeId") UUID beforeId,
+                                   Limit limit);
+
+    // Net effect on the account of its activity in the range (low, high] of the history order, and how many rows
+    @Query("SELECT COALESCE(SUM(a.amount), 0) AS delta, COUNT(a) AS transactions FROM AccountActivity a "
+            + "WHERE a.accountId = :accountId "
+            + "AND a.txTimestamp >= :lowTimestamp AND (a.txTimestamp > :lowTimestamp OR a.transactionId > :lowId) "
+            + "AND a.txTimestamp <= :highTimestamp AND (a.txTimestamp < :highTimestamp OR a.transactionId <= :highId)")
+    BalanceDelta sumBetween(@Param("accountId") UUID accountId,
+                            @Param("lowTimestamp") LocalDateTime lowTimestamp,
+                            @Param("lowId") UUID lowId,
+                            @Param("highTimestamp") LocalDateTime highTimestamp,
+                            @Param("highId") UUID highId);
+
+    interface BalanceDelta {
+        BigDecimal getDelta();
+
+        long getTransactions();
+    }
+
+    @Modifying
+    @Query("DELETE FROM AccountActivity a")
+    int deleteAllRows();
+}
@@ -0,0 +1,43 @@
+package com.banking.transactionservice.repository;
+
+import com.banking.transactionservice.model.BalanceCheckpoint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, UUID> {
+
+    // Nearest checkpoint strictly before the (timestamp, id) position
+    @Query("SELECT c FROM BalanceCheckpoint c WHERE c.accountId = :accountId "
+            + "AND (c.txTimestamp < :timestamp OR (c.txTimestamp = :timestamp AND c.transactionId < :transactionId)) "
+            + "ORDER BY c.txTimestamp DESC, c.transactionId DESC")
+    List<BalanceCheckpoint> findBefore(@Param("accountId") UUID accountId,
+                                       @Param("timestamp") LocalDateTime timestamp,
+                                       @Param("transactionId") UUID transactionId,
+                                       Limit limit);
+
+    // Nearest checkpoint at or after the (timestamp, id) position
+    @Query("SELECT c FROM BalanceCheckpoint c WHERE c.accountId = :accountId "
+            + "AND (c.txTimestamp > :timestamp OR (c.txTimestamp = :timestamp AND c.transactionId >= :transactionId)) "
+            + "ORDER BY c.txTimestamp ASC, c.transactionId ASC")
+    List<BalanceCheckpoint> findAtOrAfter(@Param("accountId") UUID accountId,
+                                          @Param("timestamp") LocalDateTime timestamp,
+                                          @Param("transactionId") UUID transactionId,
+                                          Limit limit);
+
+    boolean existsByAccountIdAndTransactionId(UUID accountId, UUID transactionId);
+
+    // A transaction that succeeds after checkpoints were taken past its position makes them wrong
+    @Modifying
+    @Query("DELETE FROM BalanceCheckpoint c WHERE c.accountId IN :accountIds AND c.txTimestamp >= :timestamp")
+    int deleteFrom(@Param("accountIds") Collection<UUID> accountIds, @Param("timestamp") LocalDateTime timestamp);
+}
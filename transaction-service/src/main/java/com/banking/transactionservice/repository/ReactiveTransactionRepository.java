@@ -0,0 +1,53 @@
+package com.banking.transactionservice.repository;
+
+import com.banking.transactionservice.model.TransactionRecord;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Non-blocking counterpart of TransactionRepository over the same table; status is the stored ordinal
+@Repository
+public interface ReactiveTransactionRepository extends R2dbcRepository<TransactionRecord, UUID> {
+
+    @Modifying
+    @Query("UPDATE transactions SET status = :toStatus, queued_at = :queuedAt WHERE id = :transactionId AND status = :fromStatus")
+    Mono<Integer> enqueue(UUID transactionId, int fromStatus, int toStatus, LocalDateTime queuedAt);
+
+    @Modifying
+    @Query("UPDATE transactions SET status = :toStatus WHERE id = :transactionId AND status = :fromStatus")
+    Mono<Integer> transition(UUID transactionId, int fromStatus, int toStatus);
+
+    @Modifying
+    @Query("UPDATE transactions SET status = :toStatus, claimed_by = :claimedBy, claimed_at = :claimedAt "
+            + "WHERE id = :transactionId AND status = :fromStatus")
+    Mono<Integer> claim(UUID transactionId, int fromStatus, int toStatus, String claimedBy, LocalDateTime claimedAt);
+
+    @Modifying
+    @Query("UPDATE transactions SET status = :toStatus "
+            + "WHERE status = :fromStatus AND (claimed_at IS NULL OR claimed_at < :claimedBefore)")
+    Mono<Integer> releaseClaimsBefore(int fromStatus, int toStatus, LocalDateTime claimedBefore);
+
+    @Query("SELECT * FROM transactions WHERE status = :status ORDER BY queued_at LIMIT :limit")
+    Flux<TransactionRecord> findByStatusOrderByQueuedAtAsc(int status, int limit);
+
+    Mono<Long> countByStatus(int status);
+
+    Flux<TransactionRecord> findByFromAccountIdOrToAccountIdOrderByTimestampDesc(UUID fromAccountId, UUID toAccountId);
+
+    Flux<TransactionRecord> findByStatusAndFromAccountIdOrStatusAndToAccountIdOrderByTimestampDesc(
+            int status1, UUID fromAccountId, int status2, UUID toAccountId);
+
+    Flux<TransactionRecord> findByFromAccountIdOrderByTimestampDesc(UUID fromAccountId);
+
+    Flux<TransactionRecord> findByToAccountIdOrderByTimestampDesc(UUID toAccountId);
+
+    Flux<TransactionRecord> findByFromAccountIdOrToAccountId(UUID fromAccountId, UUID toAccountId);
+
+    Flux<TransactionRecord> findByStatus(int status);
+}
@@ -1,15 +1,74 @@
 package com.banking.transactionservice.repository;
 
 import com.banking.transactionservice.model.Transaction;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
 
+    // Keyset page of the ids of transactions in one status, for rebuilding the account_activity projection
+    @Query("SELECT t.transactionId FROM Transaction t WHERE t.status = :status AND t.transactionId > :after "
+            + "ORDER BY t.transactionId")
+    List<UUID> findIdsByStatusAfter(@Param("status") Transaction.TransactionStatus status,
+                                    @Param("after") UUID after,
+                                    Limit limit);
+
+    // Execution queue: conditional status changes, so that only one caller wins each transition
+    @Transactional
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :toStatus, t.queuedAt = :queuedAt "
+            + "WHERE t.transactionId = :transactionId AND t.status = :fromStatus")
+    int enqueue(@Param("transactionId") UUID transactionId,
+                @Param("fromStatus") Transaction.TransactionStatus fromStatus,
+                @Param("toStatus") Transaction.TransactionStatus toStatus,
+                @Param("queuedAt") LocalDateTime queuedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :toStatus WHERE t.transactionId = :transactionId AND t.status = :fromStatus")
+    int transition(@Param("transactionId") UUID transactionId,
+                   @Param("fromStatus") Transaction.TransactionStatus fromStatus,
+                   @Param("toStatus") Transaction.TransactionStatus toStatus);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :toStatus, t.claimedBy = :claimedBy, t.claimedAt = :claimedAt "
+            + "WHERE t.transactionId = :transactionId AND t.status = :fromStatus")
+    int claim(@Param("transactionId") UUID transactionId,
+              @Param("fromStatus") Transaction.TransactionStatus fromStatus,
+              @Param("toStatus") Transaction.TransactionStatus toStatus,
+              @Param("claimedBy") String claimedBy,
+              @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :toStatus "
+            + "WHERE t.status = :fromStatus AND (t.claimedAt IS NULL OR t.claimedAt < :claimedBefore)")
+    int releaseClaimsBefore(@Param("fromStatus") Transaction.TransactionStatus fromStatus,
+                            @Param("toStatus") Transaction.TransactionStatus toStatus,
+                            @Param("claimedBefore") LocalDateTime claimedBefore);
+
+    // Transactions of the account in the given (executing) status, or claimed for execution since the given time
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE (t.fromAccountId = :accountId OR t.toAccountId = :accountId) "
+            + "AND (t.status = :status OR t.claimedAt >= :since)")
+    long countInStatusOrClaimedSince(@Param("accountId") UUID accountId,
+                                     @Param("status") Transaction.TransactionStatus status,
+                                     @Param("since") LocalDateTime since);
+
+    List<Transaction> findByStatusOrderByQueuedAtAsc(Transaction.TransactionStatus status, Limit limit);
+
+    long countByStatus(Transaction.TransactionStatus status);
+
     List<Transaction> findByFromAccountIdOrToAccountIdOrderByTimestampDesc(UUID fromAccountId, UUID toAccountId);
 
     List<Transaction> findByStatusAndFromAccountIdOrStatusAndToAccountIdOrderByTimestampDesc(
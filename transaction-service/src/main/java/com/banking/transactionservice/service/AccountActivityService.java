@@ -0,0 +1,94 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.model.Transaction;
+import com.banking.transactionservice.repository.AccountActivityRepository;
+import com.banking.transactionservice.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps the account_activity projection (see AccountActivity) in step with the transactions table.
+ *
+ * Transactions reaching SUCCESS are appended by the TransactionStore in the database transaction of
+ * the status update (TransactionStore.succeed), so a fill never sees one without the other.
+ * rebuild() drops the projection and the balance checkpoints derived from it and fills it again
+ * from the successful transactions, batch-size transactions per statement, all in one database
+ * transaction: history reads see the old projection until it commits, never a partly refilled one.
+ * Checkpoint writes are held off meanwhile (see RunningBalanceService). On startup an empty
+ * projection next to successful transactions (the first start with it) is filled the same way.
+ */
+@Service
+public class AccountActivityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountActivityService.class);
+
+    private final TransactionRepository transactionRepository;
+    private final AccountActivityRepository activityRepository;
+    private final RunningBalanceService runningBalanceService;
+    private final TransactionTemplate writeTransaction;
+    private final int batchSize;
+    private final boolean fillOnStartup;
+
+    public AccountActivityService(TransactionRepository transactionRepository,
+                                  AccountActivityRepository activityRepository,
+                                  RunningBalanceService runningBalanceService,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${banking.transactions.activity.rebuild-batch-size:1000}") int batchSize,
+                                  @Value("${banking.transactions.activity.fill-on-startup:true}") boolean fillOnStartup) {
+        this.transactionRepository = transactionRepository;
+        this.activityRepository = activityRepository;
+        this.runningBalanceService = runningBalanceService;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.fillOnStartup = fillOnStartup;
+    }
+
+    // Number of rows written
+    public long rebuild() {
+        long rows = refill();
+        logger.info("Rebuilt account_activity: {} rows", rows);
+        return rows;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillIfEmpty() {
+        if (fillOnStartup && activityRepository.count() == 0
+                && transactionRepository.countByStatus(Transaction.TransactionStatus.SUCCESS) > 0) {
+            long rows = refill();
+            logger.info("Filled the empty account_activity projection: {} rows", rows);
+        }
+    }
+
+    private long refill() {
+        return runningBalanceService.withCheckpointWritesHeld(() -> writeTransaction.execute(status -> {
+            runningBalanceService.deleteAllCheckpoints();
+            activityRepository.deleteAllRows();
+            return fill();
+        }));
+    }
+
+    private long fill() {
+        long rows = 0;
+        UUID after = new UUID(0L, 0L);
+        while (true) {
+            List<UUID> ids = transactionRepository.findIdsByStatusAfter(
+                    Transaction.TransactionStatus.SUCCESS, after, Limit.of(batchSize));
+            if (ids.isEmpty()) {
+                return rows;
+            }
+            // Legs appended since the delete are skipped
+            rows += activityRepository.insertLegs(ids, Transaction.TransactionStatus.SUCCESS.ordinal());
+            after = ids.get(ids.size() - 1);
+        }
+    }
+}
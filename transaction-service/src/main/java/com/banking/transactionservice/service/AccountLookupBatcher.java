@@ -0,0 +1,104 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.dto.AccountDto;
+import com.banking.transactionservice.exception.AccountNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Collects concurrent single-account lookups for a short window and resolves them with one
+ * bulk call. Each caller still gets its own Mono: the account, or "Account not found" when the
+ * bulk response does not contain its id (AccountNotFoundException), or the bulk call's error.
+ */
+class AccountLookupBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountLookupBatcher.class);
+
+    private final Function<List<UUID>, Mono<List<AccountDto>>> bulkLookup;
+    private final Sinks.Many<Lookup> requests = Sinks.many().unicast().onBackpressureBuffer();
+    private final Counter lookups;
+    private final DistributionSummary batchSize;
+    private final Disposable subscription;
+
+    AccountLookupBatcher(Function<List<UUID>, Mono<List<AccountDto>>> bulkLookup,
+                         Duration window,
+                         int maxBatchSize,
+                         MeterRegistry meterRegistry) {
+        this.bulkLookup = bulkLookup;
+        this.lookups = Counter.builder("account.lookup.requests")
+                .description("Single-account lookups submitted to the batcher")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("account.lookup.batch.size")
+                .description("Distinct account ids per bulk lookup sent to account-service")
+                .register(meterRegistry);
+        this.subscription = requests.asFlux()
+                .bufferTimeout(maxBatchSize, window)
+                .flatMap(this::resolve)
+                .subscribe();
+    }
+
+    Mono<AccountDto> lookup(UUID accountId) {
+        return Mono.defer(() -> {
+            Lookup lookup = new Lookup(accountId, Sinks.one());
+            lookups.increment();
+            // Several callers may emit at once; spin briefly instead of failing on the unicast sink
+            requests.emitNext(lookup, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+            return lookup.result.asMono();
+        });
+    }
+
+    void shutdown() {
+        subscription.dispose();
+    }
+
+    private Mono<Void> resolve(List<Lookup> batch) {
+        Set<UUID> ids = new LinkedHashSet<>();
+        for (Lookup lookup : batch) {
+            ids.add(lookup.accountId);
+        }
+        batchSize.record(ids.size());
+        return bulkLookup.apply(new ArrayList<>(ids))
+                .defaultIfEmpty(List.of())
+                .doOnNext(accounts -> {
+                    Map<UUID, AccountDto> byId = new HashMap<>();
+                    for (AccountDto account : accounts) {
+                        byId.put(account.getAccountId(), account);
+                    }
+                    for (Lookup lookup : batch) {
+                        AccountDto account = byId.get(lookup.accountId);
+                        if (account != null) {
+                            lookup.result.tryEmitValue(account);
+                        } else {
+                            lookup.result.tryEmitError(new AccountNotFoundException("Account not found"));
+                        }
+                    }
+                })
+                .doOnError(error -> {
+                    logger.error("Bulk account lookup for {} ids failed", ids.size(), error);
+                    for (Lookup lookup : batch) {
+                        lookup.result.tryEmitError(error);
+                    }
+                })
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    private record Lookup(UUID accountId, Sinks.One<AccountDto> result) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.dto.AccountDto;
+import com.banking.transactionservice.exception.AccountNotFoundException;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Short-lived, size-bounded cache of account lookups in front of account-service.
+ *
+ * Found accounts are kept for ttl, "Account not found" (an empty Optional) for notFoundTtl, which
+ * is usually shorter since the account may be opened at any moment. Any other failure is not
+ * cached: Caffeine drops a future that completes exceptionally. Loads are shared, so concurrent
+ * misses for one id cause one call. Hit/miss/load counts and load time are published as cache.*
+ * meters (cache=transactions.accounts).
+ */
+class AccountLookupCache {
+
+    private final Function<UUID, Mono<AccountDto>> lookup;
+    private final AsyncCache<UUID, Optional<AccountDto>> cache;
+
+    AccountLookupCache(Function<UUID, Mono<AccountDto>> lookup,
+                       long maxSize,
+                       Duration ttl,
+                       Duration notFoundTtl,
+                       MeterRegistry meterRegistry) {
+        this.lookup = lookup;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<UUID, Optional<AccountDto>>() {
+                    @Override
+                    public long expireAfterCreate(UUID accountId, Optional<AccountDto> account, long currentTime) {
+                        return (account.isPresent() ? ttl : notFoundTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(UUID accountId, Optional<AccountDto> account, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(accountId, account, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(UUID accountId, Optional<AccountDto> account, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "transactions.accounts");
+    }
+
+    Mono<AccountDto> lookup(UUID accountId) {
+        // suppressCancel: one caller giving up must not cancel the load the others are waiting for
+        return Mono.defer(() -> Mono.fromFuture(cache.get(accountId, (id, executor) -> load(id)), true))
+                .flatMap(account -> account
+                        .map(Mono::just)
+                        .orElseGet(() -> Mono.error(new AccountNotFoundException("Account not found"))));
+    }
+
+    void evict(Collection<UUID> accountIds) {
+        cache.synchronous().invalidateAll(accountIds);
+    }
+
+    private CompletableFuture<Optional<AccountDto>> load(UUID accountId) {
+        return lookup.apply(accountId)
+                .map(Optional::of)
+                .onErrorResume(AccountNotFoundException.class, e -> Mono.just(Optional.empty()))
+                .toFuture();
+    }
+}
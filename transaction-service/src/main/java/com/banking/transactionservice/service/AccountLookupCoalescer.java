@@ -0,0 +1,64 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.dto.AccountDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Single flight for account lookups: while a lookup of an account is in flight, further callers
+ * for the same id subscribe to it instead of sending their own. The entry is dropped as soon as
+ * the lookup completes or fails, so nothing is cached beyond the request that is already running
+ * and an error reaches only the callers that were waiting on it.
+ */
+class AccountLookupCoalescer {
+
+    private final Function<UUID, Mono<AccountDto>> lookup;
+    private final Map<UUID, Mono<AccountDto>> inFlight = new ConcurrentHashMap<>();
+    private final Counter issued;
+    private final Counter coalesced;
+
+    AccountLookupCoalescer(Function<UUID, Mono<AccountDto>> lookup, MeterRegistry meterRegistry) {
+        this.lookup = lookup;
+        this.issued = Counter.builder("account.lookup.single-flight")
+                .description("Account lookups by whether they were sent or joined one already in flight")
+                .tag("outcome", "issued")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("account.lookup.single-flight")
+                .description("Account lookups by whether they were sent or joined one already in flight")
+                .tag("outcome", "coalesced")
+                .register(meterRegistry);
+    }
+
+    Mono<AccountDto> lookup(UUID accountId) {
+        return Mono.defer(() -> {
+            Mono<AccountDto> running = inFlight.get(accountId);
+            if (running != null) {
+                coalesced.increment();
+                return running;
+            }
+            // cache() replays the one result to every caller and keeps the call going if one of them cancels
+            @SuppressWarnings("unchecked")
+            Mono<AccountDto>[] self = new Mono[1];
+            self[0] = lookup.apply(accountId)
+                    .doOnTerminate(() -> inFlight.remove(accountId, self[0]))
+                    .cache();
+            running = inFlight.putIfAbsent(accountId, self[0]);
+            if (running != null) {
+                coalesced.increment();
+                return running;
+            }
+            issued.increment();
+            return self[0];
+        });
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+}
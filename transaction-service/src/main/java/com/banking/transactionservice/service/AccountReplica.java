@@ -0,0 +1,270 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.dto.AccountDto;
+import com.banking.transactionservice.dto.BalanceChangedEventDto;
+import com.banking.transactionservice.model.Money;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local copy of every account's status and balance, so initiation checks need no call to
+ * account-service.
+ *
+ * Bootstrapped from GET /accounts/snapshot, then kept up to date from the balance events that
+ * account-service publishes through its outbox (banking.kafka.topic.balance-events). The consumer
+ * starts catch-up-margin-ms before the snapshot was begun, so no change committed while paging is
+ * missed; events carry the absolute balance and status, and an account's entry only moves to a
+ * higher eventId, so replayed and redelivered events are harmless.
+ *
+ * The replica is eventually consistent: account-service still checks funds and status when the
+ * transfer is executed. Lookups fall back to account-service (find returns null) for accounts it
+ * does not know yet and while it is staler than max-staleness-ms. Staleness is the time since the
+ * consumer last found nothing left to read, or since the newest event it applied if that is later.
+ */
+@Service
+@ConditionalOnProperty(name = "banking.accounts.replica.enabled", havingValue = "true")
+public class AccountReplica implements ConsumerSeekAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountReplica.class);
+
+    static final String LISTENER_ID = "account-replica";
+
+    // One small immutable value per account; status strings are interned, balances kept in cents
+    record Entry(String status, long balanceCents, long version) {
+    }
+
+    private final Map<UUID, Entry> accounts = new ConcurrentHashMap<>();
+    private final ExternalServiceClient externalServiceClient;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final ObjectMapper objectMapper;
+    private final int snapshotPageSize;
+    private final long catchUpMarginMs;
+    private final long maxStalenessMs;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter staleLookups;
+    private final Counter applied;
+    private final Counter ignored;
+    private final Timer replicationDelay;
+
+    private volatile boolean ready;
+    private volatile long seekFromMillis;
+    private volatile long caughtUpAtMillis;
+    private volatile long lastOccurredAtMillis;
+    private volatile long lastEventId;
+    private Disposable bootstrap;
+
+    public AccountReplica(ExternalServiceClient externalServiceClient,
+                          KafkaListenerEndpointRegistry listenerRegistry,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${banking.accounts.replica.snapshot-page-size:1000}") int snapshotPageSize,
+                          @Value("${banking.accounts.replica.catch-up-margin-ms:30000}") long catchUpMarginMs,
+                          @Value("${banking.accounts.replica.max-staleness-ms:5000}") long maxStalenessMs) {
+        this.externalServiceClient = externalServiceClient;
+        this.listenerRegistry = listenerRegistry;
+        this.objectMapper = objectMapper;
+        this.snapshotPageSize = snapshotPageSize;
+        this.catchUpMarginMs = catchUpMarginMs;
+        this.maxStalenessMs = maxStalenessMs;
+        this.hits = lookups(meterRegistry, "hit");
+        this.misses = lookups(meterRegistry, "miss");
+        this.staleLookups = lookups(meterRegistry, "stale");
+        this.applied = Counter.builder("account.replica.events")
+                .description("Balance events by whether they changed the replica or were older than its entry")
+                .tag("outcome", "applied")
+                .register(meterRegistry);
+        this.ignored = Counter.builder("account.replica.events")
+                .description("Balance events by whether they changed the replica or were older than its entry")
+                .tag("outcome", "ignored")
+                .register(meterRegistry);
+        this.replicationDelay = Timer.builder("account.replica.delay")
+                .description("Time from a balance change in account-service until the replica applied it")
+                .register(meterRegistry);
+        Gauge.builder("account.replica.size", accounts, Map::size)
+                .description("Accounts held by the replica")
+                .register(meterRegistry);
+        Gauge.builder("account.replica.staleness", this, replica -> {
+                    long staleness = replica.stalenessMillis();
+                    return staleness == Long.MAX_VALUE ? Double.NaN : staleness;
+                })
+                .description("Milliseconds since the replica was last known to be up to date")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("account.replica.lookups")
+                .description("Account lookups answered by the replica (hit) or sent to account-service")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // Snapshot first, retried until account-service answers; only then is the consumer started
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        bootstrap = Mono.defer(this::loadSnapshot)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> logger.warn("Account snapshot failed, retrying: {}",
+                                signal.failure().getMessage())))
+                .subscribe(count -> {
+                    logger.info("Account replica loaded {} accounts, following balance events", count);
+                    ready = true;
+                    listenerRegistry.getListenerContainer(LISTENER_ID).start();
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (bootstrap != null) {
+            bootstrap.dispose();
+        }
+    }
+
+    private Mono<Long> loadSnapshot() {
+        long startedAt = System.currentTimeMillis();
+        return externalServiceClient.getAccountSnapshot(null, snapshotPageSize)
+                .expand(page -> page.size() < snapshotPageSize
+                        ? Mono.empty()
+                        : externalServiceClient.getAccountSnapshot(page.get(page.size() - 1).getAccountId(), snapshotPageSize))
+                .map(page -> {
+                    for (AccountDto account : page) {
+                        // An entry from an event is never older than the snapshot row
+                        accounts.putIfAbsent(account.getAccountId(), new Entry(
+                                account.getStatus().intern(), Money.of(account.getBalance()).cents(), 0L));
+                    }
+                    return (long) page.size();
+                })
+                .reduce(0L, Long::sum)
+                .doOnNext(count -> seekFromMillis = startedAt - catchUpMarginMs);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToTimestamp(assignments.keySet(), seekFromMillis);
+    }
+
+    @KafkaListener(id = LISTENER_ID,
+            topics = "${banking.kafka.topic.balance-events:account-balance-events}",
+            containerFactory = "accountReplicaListenerFactory")
+    public void onEvents(List<ConsumerRecord<String, String>> records) {
+        long now = System.currentTimeMillis();
+        for (ConsumerRecord<String, String> record : records) {
+            BalanceChangedEventDto event = parse(record);
+            if (event == null) {
+                continue;
+            }
+            apply(event, now);
+        }
+    }
+
+    void apply(BalanceChangedEventDto event, long now) {
+        Entry next = new Entry(event.getStatus().intern(), Money.of(event.getBalance()).cents(), event.getEventId());
+        Entry result = accounts.merge(event.getAccountId(), next,
+                (current, candidate) -> current.version() >= candidate.version() ? current : candidate);
+        if (result != next) {
+            ignored.increment();
+            return;
+        }
+        applied.increment();
+        if (event.getEventId() > lastEventId) {
+            lastEventId = event.getEventId();
+        }
+        if (event.getOccurredAt() != null) {
+            long occurredAt = event.getOccurredAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            lastOccurredAtMillis = Math.max(lastOccurredAtMillis, occurredAt);
+            replicationDelay.record(Duration.ofMillis(Math.max(0, now - occurredAt)));
+        }
+    }
+
+    // The consumer found nothing new for idle-event-interval-ms: everything published so far is applied
+    @EventListener(condition = "event.listenerId.startsWith('" + LISTENER_ID + "')")
+    public void onIdle(ListenerContainerIdleEvent event) {
+        caughtUpAtMillis = System.currentTimeMillis();
+    }
+
+    // Status and balance of an account, or null when the caller should ask account-service
+    public AccountDto find(UUID accountId) {
+        if (!ready || stalenessMillis() > maxStalenessMs) {
+            staleLookups.increment();
+            return null;
+        }
+        Entry entry = accounts.get(accountId);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        AccountDto account = new AccountDto();
+        account.setAccountId(accountId);
+        account.setStatus(entry.status());
+        account.setBalance(Money.ofCents(entry.balanceCents()).toBigDecimal());
+        return account;
+    }
+
+    public long stalenessMillis() {
+        long upToDateAt = Math.max(caughtUpAtMillis, lastOccurredAtMillis);
+        return upToDateAt == 0 ? Long.MAX_VALUE : Math.max(0, System.currentTimeMillis() - upToDateAt);
+    }
+
+    // GET /admin/account-replica
+    public Map<String, Object> describe() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        long staleness = stalenessMillis();
+        state.put("ready", ready);
+        state.put("accounts", accounts.size());
+        state.put("lastEventId", lastEventId);
+        state.put("lastEventAt", lastOccurredAtMillis == 0 ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(lastOccurredAtMillis), ZoneId.systemDefault()));
+        state.put("stalenessMs", staleness == Long.MAX_VALUE ? null : staleness);
+        state.put("maxStalenessMs", maxStalenessMs);
+        state.put("serving", ready && staleness <= maxStalenessMs);
+        return state;
+    }
+
+    private BalanceChangedEventDto parse(ConsumerRecord<String, String> record) {
+        try {
+            BalanceChangedEventDto event = objectMapper.readValue(record.value(), BalanceChangedEventDto.class);
+            if (event.getAccountId() != null && event.getBalance() != null && event.getStatus() != null) {
+                return event;
+            }
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            // handled below
+        }
+        logger.warn("Skipping record {}-{}@{}: not a balance event",
+                record.topic(), record.partition(), record.offset());
+        return null;
+    }
+}
@@ -0,0 +1,65 @@
+package com.banking.transactionservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Transactions are claimed (-> EXECUTING) for the time of their transfer by the instance that runs
+ * it, synchronously or from the execution queue. A claim older than claim-timeout-ms belongs to an
+ * instance that crashed or lost its database connection mid-transfer: the outcome is unknown, so the
+ * transaction goes back to INITIATED for the client to execute again. Checked on start and then
+ * every claim-timeout-ms; claims of instances that are still running are left alone.
+ */
+@Service
+public class ExecutionClaimSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionClaimSweeper.class);
+
+    private final TransactionStore transactionStore;
+    private final Duration claimTimeout;
+    private Disposable sweeper;
+
+    public ExecutionClaimSweeper(TransactionStore transactionStore,
+                                 @Value("${banking.transactions.execution.claim-timeout-ms:300000}") long claimTimeoutMs) {
+        this.transactionStore = transactionStore;
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        sweeper = Flux.interval(Duration.ZERO, claimTimeout)
+                .onBackpressureDrop()
+                .concatMap(tick -> releaseExpired(), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.dispose();
+        }
+    }
+
+    Mono<Long> releaseExpired() {
+        return transactionStore.releaseClaimsBefore(LocalDateTime.now().minus(claimTimeout))
+                .doOnNext(released -> {
+                    if (released > 0) {
+                        logger.warn("Put {} transactions with an expired EXECUTING claim back to INITIATED", released);
+                    }
+                })
+                .onErrorResume(error -> {
+                    logger.error("Releasing expired execution claims failed: {}", error.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
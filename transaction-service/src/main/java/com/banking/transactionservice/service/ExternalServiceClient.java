@@ -1,9 +1,15 @@
 package com.banking.transactionservice.service;
 
 import com.banking.transactionservice.dto.AccountDto;
+import com.banking.transactionservice.dto.TransferResultDto;
+import com.banking.transactionservice.exception.AccountNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.boot.actuate.web.mappings.MappingsEndpoint;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -12,7 +18,10 @@ import org.springframework.web.reactive.function.client.WebClientResponseExcepti
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -22,19 +31,74 @@ public class ExternalServiceClient {
     private final WebClient userServiceWebClient;
     private final WebClient accountServiceWebClient;
     private final MappingsEndpoint mappingsEndpoint;
+    // null when banking.account-lookup.batching.enabled=false
+    private final AccountLookupBatcher accountLookupBatcher;
+    // null when banking.account-lookup.single-flight.enabled=false
+    private final AccountLookupCoalescer accountLookupCoalescer;
+    // null when banking.account-lookup.cache.enabled=false
+    private final AccountLookupCache accountLookupCache;
 
     public ExternalServiceClient(@Qualifier("userServiceWebClient") WebClient userServiceWebClient,
                                  @Qualifier("accountServiceWebClient") WebClient accountServiceWebClient,
-                                 MappingsEndpoint mappingsEndpoint)
+                                 MappingsEndpoint mappingsEndpoint,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${banking.account-lookup.batching.enabled:true}") boolean batchingEnabled,
+                                 @Value("${banking.account-lookup.batching.window-ms:2}") long batchingWindowMs,
+                                 @Value("${banking.account-lookup.batching.max-batch-size:100}") int maxBatchSize,
+                                 @Value("${banking.account-lookup.single-flight.enabled:true}") boolean singleFlightEnabled,
+                                 @Value("${banking.account-lookup.cache.enabled:true}") boolean cacheEnabled,
+                                 @Value("${banking.account-lookup.cache.max-size:10000}") long cacheMaxSize,
+                                 @Value("${banking.account-lookup.cache.ttl-ms:2000}") long cacheTtlMs,
+                                 @Value("${banking.account-lookup.cache.not-found-ttl-ms:500}") long cacheNotFoundTtlMs)
     {
         this.userServiceWebClient = userServiceWebClient;
         this.accountServiceWebClient = accountServiceWebClient;
         this.mappingsEndpoint = mappingsEndpoint;
+        this.accountLookupBatcher = batchingEnabled
+                ? new AccountLookupBatcher(this::getAccountsByIds, Duration.ofMillis(batchingWindowMs), maxBatchSize, meterRegistry)
+                : null;
+        this.accountLookupCoalescer = singleFlightEnabled
+                ? new AccountLookupCoalescer(this::fetchAccount, meterRegistry)
+                : null;
+        this.accountLookupCache = cacheEnabled
+                ? new AccountLookupCache(this::getCurrentAccount, cacheMaxSize, Duration.ofMillis(cacheTtlMs),
+                        Duration.ofMillis(cacheNotFoundTtlMs), meterRegistry)
+                : null;
     }
 
+    @PreDestroy
+    public void shutdown() {
+        if (accountLookupBatcher != null) {
+            accountLookupBatcher.shutdown();
+        }
+    }
+
+    // Served from a short-lived cache when enabled (not-found included), so status and balance may
+    // be up to banking.account-lookup.cache.ttl-ms old; use getCurrentAccount when that matters
     public Mono<AccountDto> getAccountById(UUID accountId)
     {
         logger.debug("Getting account with id: {}", accountId);
+        if (accountLookupCache != null) {
+            return accountLookupCache.lookup(accountId);
+        }
+        return getCurrentAccount(accountId);
+    }
+
+    // Always asks account-service; callers asking for an account whose lookup is already in flight share it
+    public Mono<AccountDto> getCurrentAccount(UUID accountId)
+    {
+        if (accountLookupCoalescer != null) {
+            return accountLookupCoalescer.lookup(accountId);
+        }
+        return fetchAccount(accountId);
+    }
+
+    // Concurrent calls are coalesced into one POST /accounts/lookup when batching is enabled
+    private Mono<AccountDto> fetchAccount(UUID accountId)
+    {
+        if (accountLookupBatcher != null) {
+            return accountLookupBatcher.lookup(accountId);
+        }
 
         return accountServiceWebClient
                 .get()
@@ -46,6 +110,44 @@ public class ExternalServiceClient {
                 .onErrorMap(WebClientResponseException.class, this::mapWebClientException);
     }
 
+    // Drops cached lookups of accounts known to have changed, e.g. both sides of a completed transfer
+    public void evictAccounts(List<UUID> accountIds)
+    {
+        if (accountLookupCache != null) {
+            accountLookupCache.evict(accountIds);
+        }
+    }
+
+    // One round trip for many accounts; ids unknown to account-service are missing from the list
+    public Mono<List<AccountDto>> getAccountsByIds(List<UUID> accountIds)
+    {
+        logger.debug("Getting {} accounts in one lookup", accountIds.size());
+
+        return accountServiceWebClient
+                .post()
+                .uri("/accounts/lookup")
+                .bodyValue(accountIds)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<List<AccountDto>>() {})
+                .doOnError(error -> logger.error("Error looking up {} accounts", accountIds.size(), error))
+                .onErrorMap(WebClientResponseException.class, this::mapWebClientException);
+    }
+
+    // One keyset page of every account's status and balance, in accountId order after the given id
+    public Mono<List<AccountDto>> getAccountSnapshot(UUID after, int limit)
+    {
+        return accountServiceWebClient
+                .get()
+                .uri(uriBuilder -> uriBuilder.path("/accounts/snapshot")
+                        .queryParamIfPresent("after", Optional.ofNullable(after))
+                        .queryParam("limit", limit)
+                        .build())
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<List<AccountDto>>() {})
+                .doOnError(error -> logger.error("Error reading account snapshot after {}", after, error))
+                .onErrorMap(WebClientResponseException.class, this::mapWebClientException);
+    }
+
 //    public Mono<AccountDto> updateAccountBalance(UUID accountId, BigDecimal amount)
 //    {
 //        logger.debug("Updating account balance for account: {} with amount: {}", accountId, amount);
@@ -81,6 +183,26 @@ public class ExternalServiceClient {
                 .onErrorMap(WebClientResponseException.class, this::mapWebClientException);
     }
 
+    // Conditional transfer: account-service checks status and funds under its own locks and answers
+    // with a result code, so a rejected transfer is a normal response rather than an error
+    public Mono<TransferResultDto> executeTransfer(UUID fromAccountId, UUID toAccountId, BigDecimal amount) {
+        logger.debug("Executing transfer of {} from account: {} to account: {}", amount, fromAccountId, toAccountId);
+
+        return accountServiceWebClient
+                .post()
+                .uri("/accounts/transfers")
+                .bodyValue(new HashMap<String, Object>() {{
+                    put("fromAccountId", fromAccountId);
+                    put("toAccountId", toAccountId);
+                    put("amount", amount);
+                }})
+                .retrieve()
+                .bodyToMono(TransferResultDto.class)
+                .doOnSuccess(result -> logger.debug("Transfer from {} to {}: {}", fromAccountId, toAccountId, result.getCode()))
+                .doOnError(error -> logger.error("Error transferring amount from {} to {}: {}", fromAccountId, toAccountId, error))
+                .onErrorMap(WebClientResponseException.class, this::mapWebClientException);
+    }
+
     private RuntimeException mapWebClientException(WebClientResponseException ex)
     {
         HttpStatus status = HttpStatus.valueOf(ex.getStatusCode().value());
@@ -92,7 +214,7 @@ public class ExternalServiceClient {
         switch(status)
         {
             case NOT_FOUND :
-                return new RuntimeException("Account not found");
+                return new AccountNotFoundException("Account not found");
             case BAD_REQUEST :
                 return new RuntimeException("Invalid request to account service: " + message);
             case UNAUTHORIZED :
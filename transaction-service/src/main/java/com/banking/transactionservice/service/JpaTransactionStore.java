@@ -0,0 +1,113 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.model.Transaction;
+import com.banking.transactionservice.repository.AccountActivityRepository;
+import com.banking.transactionservice.repository.TransactionRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// Blocking JPA calls moved off the caller's thread: each one holds a boundedElastic thread and a pooled connection
+@Service
+@ConditionalOnProperty(name = "banking.transactions.persistence", havingValue = "jpa")
+public class JpaTransactionStore implements TransactionStore {
+
+    private final TransactionRepository transactionRepository;
+    private final RunningBalanceService runningBalanceService;
+    private final AccountActivityRepository activityRepository;
+    private final TransactionTemplate writeTransaction;
+
+    public JpaTransactionStore(TransactionRepository transactionRepository, RunningBalanceService runningBalanceService,
+                               AccountActivityRepository activityRepository, PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.runningBalanceService = runningBalanceService;
+        this.activityRepository = activityRepository;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public Mono<Transaction> findById(UUID transactionId) {
+        return Mono.fromCallable(() -> transactionRepository.findById(transactionId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    @Override
+    public Mono<Transaction> insert(Transaction transaction) {
+        return Mono.fromCallable(() -> transactionRepository.save(transaction))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Boolean> transition(UUID transactionId, Transaction.TransactionStatus fromStatus,
+                                    Transaction.TransactionStatus toStatus) {
+        return Mono.fromCallable(() -> transactionRepository.transition(transactionId, fromStatus, toStatus) == 1)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Boolean> enqueue(UUID transactionId, LocalDateTime queuedAt) {
+        return Mono.fromCallable(() -> transactionRepository.enqueue(transactionId,
+                        Transaction.TransactionStatus.INITIATED, Transaction.TransactionStatus.QUEUED, queuedAt) == 1)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Boolean> claim(UUID transactionId, Transaction.TransactionStatus fromStatus, String claimedBy,
+                               LocalDateTime claimedAt) {
+        return Mono.fromCallable(() -> transactionRepository.claim(transactionId, fromStatus,
+                        Transaction.TransactionStatus.EXECUTING, claimedBy, claimedAt) == 1)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Long> releaseClaimsBefore(LocalDateTime claimedBefore) {
+        return Mono.fromCallable(() -> (long) transactionRepository.releaseClaimsBefore(
+                        Transaction.TransactionStatus.EXECUTING, Transaction.TransactionStatus.INITIATED, claimedBefore))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Flux<Transaction> findQueued(int limit) {
+        return Mono.fromCallable(() -> transactionRepository.findByStatusOrderByQueuedAtAsc(
+                        Transaction.TransactionStatus.QUEUED, Limit.of(limit)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapIterable(transactions -> transactions);
+    }
+
+    @Override
+    public Mono<Long> countByStatus(Transaction.TransactionStatus status) {
+        return Mono.fromCallable(() -> transactionRepository.countByStatus(status))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Boolean> succeed(UUID transactionId) {
+        return Mono.fromCallable(() -> writeTransaction.execute(status -> {
+                    if (transactionRepository.transition(transactionId,
+                            Transaction.TransactionStatus.EXECUTING, Transaction.TransactionStatus.SUCCESS) != 1) {
+                        return false;
+                    }
+                    activityRepository.insertLegs(List.of(transactionId), Transaction.TransactionStatus.SUCCESS.ordinal());
+                    return true;
+                }))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Void> invalidateCheckpoints(Collection<UUID> accountIds, LocalDateTime timestamp) {
+        return Mono.fromRunnable(() -> runningBalanceService.invalidateFrom(List.copyOf(accountIds), timestamp))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+}
@@ -0,0 +1,112 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.model.Transaction;
+import com.banking.transactionservice.model.TransactionRecord;
+import com.banking.transactionservice.repository.AccountActivityRepository;
+import com.banking.transactionservice.repository.ReactiveTransactionRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// Non-blocking: a waiting call holds neither a thread nor, between statements, a connection
+@Service
+@ConditionalOnProperty(name = "banking.transactions.persistence", havingValue = "r2dbc", matchIfMissing = true)
+public class R2dbcTransactionStore implements TransactionStore {
+
+    private final ReactiveTransactionRepository reactiveTransactionRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    public R2dbcTransactionStore(ReactiveTransactionRepository reactiveTransactionRepository,
+                                 R2dbcEntityTemplate entityTemplate,
+                                 DatabaseClient databaseClient,
+                                 TransactionalOperator transactionalOperator) {
+        this.reactiveTransactionRepository = reactiveTransactionRepository;
+        this.entityTemplate = entityTemplate;
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    @Override
+    public Mono<Transaction> findById(UUID transactionId) {
+        return reactiveTransactionRepository.findById(transactionId).map(TransactionRecord::toTransaction);
+    }
+
+    // The id is generated here rather than by Hibernate; insert() because save() would issue an UPDATE for it
+    @Override
+    public Mono<Transaction> insert(Transaction transaction) {
+        transaction.setTransactionId(UUID.randomUUID());
+        transaction.setTimestamp(LocalDateTime.now());
+        return entityTemplate.insert(TransactionRecord.of(transaction)).map(TransactionRecord::toTransaction);
+    }
+
+    @Override
+    public Mono<Boolean> transition(UUID transactionId, Transaction.TransactionStatus fromStatus,
+                                    Transaction.TransactionStatus toStatus) {
+        return reactiveTransactionRepository.transition(transactionId, fromStatus.ordinal(), toStatus.ordinal())
+                .map(updated -> updated == 1);
+    }
+
+    @Override
+    public Mono<Boolean> enqueue(UUID transactionId, LocalDateTime queuedAt) {
+        return reactiveTransactionRepository.enqueue(transactionId, Transaction.TransactionStatus.INITIATED.ordinal(),
+                        Transaction.TransactionStatus.QUEUED.ordinal(), queuedAt)
+                .map(updated -> updated == 1);
+    }
+
+    @Override
+    public Mono<Boolean> claim(UUID transactionId, Transaction.TransactionStatus fromStatus, String claimedBy,
+                               LocalDateTime claimedAt) {
+        return reactiveTransactionRepository.claim(transactionId, fromStatus.ordinal(),
+                        Transaction.TransactionStatus.EXECUTING.ordinal(), claimedBy, claimedAt)
+                .map(updated -> updated == 1);
+    }
+
+    @Override
+    public Mono<Long> releaseClaimsBefore(LocalDateTime claimedBefore) {
+        return reactiveTransactionRepository.releaseClaimsBefore(Transaction.TransactionStatus.EXECUTING.ordinal(),
+                        Transaction.TransactionStatus.INITIATED.ordinal(), claimedBefore)
+                .map(Integer::longValue);
+    }
+
+    @Override
+    public Flux<Transaction> findQueued(int limit) {
+        return reactiveTransactionRepository.findByStatusOrderByQueuedAtAsc(Transaction.TransactionStatus.QUEUED.ordinal(), limit)
+                .map(TransactionRecord::toTransaction);
+    }
+
+    @Override
+    public Mono<Long> countByStatus(Transaction.TransactionStatus status) {
+        return reactiveTransactionRepository.countByStatus(status.ordinal());
+    }
+
+    @Override
+    public Mono<Boolean> succeed(UUID transactionId) {
+        Mono<Boolean> succeeded = transition(transactionId,
+                        Transaction.TransactionStatus.EXECUTING, Transaction.TransactionStatus.SUCCESS)
+                .flatMap(settled -> !settled ? Mono.just(false) : databaseClient.sql(AccountActivityRepository.INSERT_LEGS)
+                        .bind("transactionIds", List.of(transactionId))
+                        .bind("status", Transaction.TransactionStatus.SUCCESS.ordinal())
+                        .then()
+                        .thenReturn(true));
+        return transactionalOperator.transactional(succeeded);
+    }
+
+    @Override
+    public Mono<Void> invalidateCheckpoints(Collection<UUID> accountIds, LocalDateTime timestamp) {
+        return databaseClient.sql("DELETE FROM balance_checkpoints WHERE account_id IN (:accountIds) AND tx_timestamp >= :timestamp")
+                .bind("accountIds", accountIds)
+                .bind("timestamp", timestamp)
+                .then();
+    }
+}
@@ -0,0 +1,240 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.dto.AccountDto;
+import com.banking.transactionservice.dto.TransactionHistoryDto;
+import com.banking.transactionservice.model.BalanceCheckpoint;
+import com.banking.transactionservice.model.Transaction;
+import com.banking.transactionservice.repository.AccountActivityRepository;
+import com.banking.transactionservice.repository.BalanceCheckpointRepository;
+import com.banking.transactionservice.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Fills in the balance after each transaction of a history page.
+ *
+ * The page is walked once, starting from a known balance next to it: the nearest stored
+ * checkpoint (forwards from one older than the page, or backwards from one at or after it), or
+ * else the current balance from account-service, backwards. Only the transactions between that
+ * starting point and the page are summed, in the database, as one range of the account's
+ * account_activity rows. When that gap reaches checkpoint-interval transactions, the balance after
+ * the page's oldest item is stored as a new checkpoint, so paging deeper into a long history keeps
+ * the gap short.
+ *
+ * Balance changes made outside transaction-service (deposits, initial balances) appear as part
+ * of the current-balance anchor, so they show up in running balances derived from it.
+ *
+ * Checkpoints are derived from the projection, so a rebuild of it (AccountActivityService) deletes
+ * them; pages read during the rebuild store none, since they are computed from the old projection.
+ *
+ * The anchor and the sum are separate reads. A transfer of the account that completes between
+ * them is in one and not in the other, and a checkpoint at an older position than the transfer
+ * would keep that error (only later checkpoints are invalidated). So a checkpoint is stored only
+ * when no transaction of the account was executing before the reads, nor claimed since just
+ * before them; pages read while the account is busy still get their balances, without storing.
+ */
+@Service
+public class RunningBalanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunningBalanceService.class);
+
+    private static final UUID LAST_ID = new UUID(-1L, -1L);
+
+    // Claim times are stamped by whichever instance claimed; allows for their clocks being apart
+    private static final Duration CLOCK_MARGIN = Duration.ofMinutes(1);
+
+    private final AccountActivityRepository accountActivityRepository;
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final TransactionRepository transactionRepository;
+    private final ExternalServiceClient externalServiceClient;
+    private final TransactionTemplate writeTransaction;
+    private final int checkpointInterval;
+    private final Duration anchorTimeout;
+    // Read side: pages that may store a checkpoint; write side: a projection rebuild. Fair, so a waiting
+    // rebuild is not starved by a steady stream of pages.
+    private final ReentrantReadWriteLock checkpointWrites = new ReentrantReadWriteLock(true);
+
+    public RunningBalanceService(AccountActivityRepository accountActivityRepository,
+                                 BalanceCheckpointRepository checkpointRepository,
+                                 TransactionRepository transactionRepository,
+                                 ExternalServiceClient externalServiceClient,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${banking.transactions.history.checkpoint-interval:500}") int checkpointInterval,
+                                 @Value("${banking.transactions.history.anchor-timeout-ms:2000}") long anchorTimeoutMs) {
+        this.accountActivityRepository = accountActivityRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionRepository = transactionRepository;
+        this.externalServiceClient = externalServiceClient;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.checkpointInterval = checkpointInterval;
+        this.anchorTimeout = Duration.ofMillis(anchorTimeoutMs);
+    }
+
+    // page is newest first, as returned by the history query; balances stay null if no anchor is available
+    public void fillRunningBalances(UUID accountId, List<TransactionHistoryDto> page) {
+        if (page.isEmpty()) {
+            return;
+        }
+        boolean locked = tryLock(checkpointWrites.readLock());
+        try {
+            LocalDateTime since = LocalDateTime.now().minus(CLOCK_MARGIN);
+            boolean mayStore = locked && !busySince(accountId, since);
+            fillRunningBalances(accountId, page, mayStore, since);
+        } finally {
+            if (locked) {
+                checkpointWrites.readLock().unlock();
+            }
+        }
+    }
+
+    private void fillRunningBalances(UUID accountId, List<TransactionHistoryDto> page, boolean mayStore,
+                                     LocalDateTime since) {
+        TransactionHistoryDto newest = page.get(0);
+        TransactionHistoryDto oldest = page.get(page.size() - 1);
+
+        BalanceCheckpoint before = first(checkpointRepository.findBefore(
+                accountId, oldest.getTimestamp(), oldest.getTransactionId(), Limit.of(1)));
+        BalanceCheckpoint after = first(checkpointRepository.findAtOrAfter(
+                accountId, newest.getTimestamp(), newest.getTransactionId(), Limit.of(1)));
+
+        long gap;
+        if (before != null && (after == null || isCloser(before, oldest, after, newest))) {
+            // Forwards: checkpoint + everything after it up to and including the oldest item
+            AccountActivityRepository.BalanceDelta delta = sumBetween(accountId,
+                    before.getTxTimestamp(), before.getTransactionId(), oldest.getTimestamp(), oldest.getTransactionId());
+            BigDecimal balance = before.getBalance().add(delta.getDelta());
+            oldest.setRunningBalance(balance);
+            for (int i = page.size() - 2; i >= 0; i--) {
+                balance = balance.add(page.get(i).getAmount());
+                page.get(i).setRunningBalance(balance);
+            }
+            gap = delta.getTransactions();
+        } else {
+            BigDecimal anchor;
+            LocalDateTime anchorTimestamp;
+            UUID anchorId;
+            if (after != null) {
+                anchor = after.getBalance();
+                anchorTimestamp = after.getTxTimestamp();
+                anchorId = after.getTransactionId();
+            } else {
+                anchor = currentBalance(accountId);
+                if (anchor == null) {
+                    return;
+                }
+                anchorTimestamp = TransactionService.HISTORY_END;
+                anchorId = LAST_ID;
+            }
+            // Backwards: anchor minus everything after the newest item up to the anchor
+            AccountActivityRepository.BalanceDelta delta = sumBetween(accountId,
+                    newest.getTimestamp(), newest.getTransactionId(), anchorTimestamp, anchorId);
+            BigDecimal balance = anchor.subtract(delta.getDelta());
+            newest.setRunningBalance(balance);
+            for (int i = 1; i < page.size(); i++) {
+                balance = balance.subtract(page.get(i - 1).getAmount());
+                page.get(i).setRunningBalance(balance);
+            }
+            gap = delta.getTransactions();
+        }
+
+        // Checked again after the reads: nothing of the account started executing meanwhile
+        if (mayStore && gap + page.size() >= checkpointInterval && !busySince(accountId, since)) {
+            saveCheckpoint(accountId, oldest);
+        }
+    }
+
+    // For a rebuild of the projection: runs it once the pages being filled in are done, and keeps pages
+    // from storing checkpoints until it returns. Pages served by other instances are not held off.
+    public <T> T withCheckpointWritesHeld(Supplier<T> rebuild) {
+        checkpointWrites.writeLock().lock();
+        try {
+            return rebuild.get();
+        } finally {
+            checkpointWrites.writeLock().unlock();
+        }
+    }
+
+    // In the caller's database transaction
+    public void deleteAllCheckpoints() {
+        checkpointRepository.deleteAllInBatch();
+    }
+
+    // Called when a transaction succeeds: checkpoints from its position on no longer include it
+    public void invalidateFrom(List<UUID> accountIds, LocalDateTime timestamp) {
+        writeTransaction.executeWithoutResult(status -> checkpointRepository.deleteFrom(accountIds, timestamp));
+    }
+
+    private AccountActivityRepository.BalanceDelta sumBetween(UUID accountId, LocalDateTime lowTimestamp, UUID lowId,
+                                                          LocalDateTime highTimestamp, UUID highId) {
+        return accountActivityRepository.sumBetween(accountId, lowTimestamp, lowId, highTimestamp, highId);
+    }
+
+    // A transaction of the account executing now, or claimed for execution since the given time
+    private boolean busySince(UUID accountId, LocalDateTime since) {
+        return transactionRepository.countInStatusOrClaimedSince(
+                accountId, Transaction.TransactionStatus.EXECUTING, since) > 0;
+    }
+
+    private BigDecimal currentBalance(UUID accountId) {
+        try {
+            // Not the cached lookup: a checkpoint stored from a stale anchor would stay wrong
+            AccountDto account = externalServiceClient.getCurrentAccount(accountId).block(anchorTimeout);
+            return account != null ? account.getBalance() : null;
+        } catch (RuntimeException e) {
+            logger.warn("No current balance for account {}, history returned without running balances: {}",
+                    accountId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveCheckpoint(UUID accountId, TransactionHistoryDto item) {
+        try {
+            writeTransaction.executeWithoutResult(status -> {
+                if (!checkpointRepository.existsByAccountIdAndTransactionId(accountId, item.getTransactionId())) {
+                    checkpointRepository.save(new BalanceCheckpoint(
+                            accountId, item.getTimestamp(), item.getTransactionId(), item.getRunningBalance()));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Stored by a concurrent read of the same page
+        }
+    }
+
+    // In the lock's fair order, without waiting
+    private static boolean tryLock(Lock lock) {
+        try {
+            return lock.tryLock(0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean isCloser(BalanceCheckpoint before, TransactionHistoryDto oldest,
+                                    BalanceCheckpoint after, TransactionHistoryDto newest) {
+        return Duration.between(before.getTxTimestamp(), oldest.getTimestamp())
+                .compareTo(Duration.between(newest.getTimestamp(), after.getTxTimestamp())) <= 0;
+    }
+
+    private static BalanceCheckpoint first(List<BalanceCheckpoint> checkpoints) {
+        return checkpoints.isEmpty() ? null : checkpoints.get(0);
+    }
+}
@@ -0,0 +1,206 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.dto.TransactionStatusDto;
+import com.banking.transactionservice.exception.InvalidAccountException;
+import com.banking.transactionservice.exception.InvalidTransactionException;
+import com.banking.transactionservice.model.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous execution: POST /transactions/transfer/execution/async only moves the transaction
+ * from INITIATED to QUEUED (durable, in the transactions table) and answers 202. A poller claims
+ * the oldest QUEUED transactions (QUEUED -> EXECUTING, a conditional update, so several instances
+ * can share the queue) and runs the same transfer as the synchronous path, at most
+ * `concurrency` at a time, ending in SUCCESS or FAILED.
+ *
+ * If account-service cannot be reached the outcome is unknown, as for a failed synchronous call:
+ * the transaction goes back to INITIATED for the client to execute again. Transactions left
+ * EXECUTING by a crashed instance are put back to INITIATED by ExecutionClaimSweeper once their
+ * claim has expired.
+ */
+@Service
+@ConditionalOnProperty(name = "banking.transactions.execution-queue.enabled", havingValue = "true")
+public class TransactionExecutionQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionExecutionQueue.class);
+
+    private static final Set<String> SETTLED = Set.of(
+            Transaction.TransactionStatus.SUCCESS.name(), Transaction.TransactionStatus.FAILED.name());
+
+    private final TransactionService transactionService;
+    private final TransactionStore transactionStore;
+    private final MeterRegistry meterRegistry;
+    private final int concurrency;
+    private final Duration pollInterval;
+    private final Duration streamTimeout;
+    private final Sinks.Many<TransactionStatusDto> events = Sinks.many().multicast().directBestEffort();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final Timer queueWait;
+    private final Timer drainLatency;
+    private final Counter released;
+    private Disposable poller;
+
+    public TransactionExecutionQueue(TransactionService transactionService,
+                                     TransactionStore transactionStore,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${banking.transactions.execution-queue.concurrency:32}") int concurrency,
+                                     @Value("${banking.transactions.execution-queue.poll-interval-ms:100}") long pollIntervalMs,
+                                     @Value("${banking.transactions.execution-queue.stream-timeout-ms:60000}") long streamTimeoutMs) {
+        this.transactionService = transactionService;
+        this.transactionStore = transactionStore;
+        this.meterRegistry = meterRegistry;
+        this.concurrency = concurrency;
+        this.pollInterval = Duration.ofMillis(pollIntervalMs);
+        this.streamTimeout = Duration.ofMillis(streamTimeoutMs);
+        Gauge.builder("transactions.execution.queue.depth", queueDepth, AtomicLong::get)
+                .description("Transactions waiting in QUEUED, as of the last poll")
+                .register(meterRegistry);
+        Gauge.builder("transactions.execution.in-flight", inFlight, AtomicInteger::get)
+                .description("Queued transactions being executed by this instance")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("transactions.execution.queue.wait")
+                .description("Time from 202 Accepted until a worker claims the transaction")
+                .register(meterRegistry);
+        this.drainLatency = Timer.builder("transactions.execution.queue.drain")
+                .description("Time from 202 Accepted until the transaction is SUCCESS or FAILED")
+                .register(meterRegistry);
+        this.released = Counter.builder("transactions.execution.released")
+                .description("Claimed transactions put back to INITIATED because the outcome is unknown")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        poller = Flux.interval(pollInterval, pollInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> drainOnce(), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (poller != null) {
+            poller.dispose();
+        }
+        events.tryEmitComplete();
+    }
+
+    //1. Accept: INITIATED -> QUEUED
+    public Mono<TransactionStatusDto> enqueue(UUID transactionId) {
+        if (transactionId == null) {
+            return Mono.error(new InvalidTransactionException("Invalid transaction ID"));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return transactionStore.enqueue(transactionId, now)
+                .flatMap(queued -> queued
+                        ? Mono.just(publish(transactionId, Transaction.TransactionStatus.QUEUED, null))
+                        : transactionStore.findById(transactionId)
+                                .switchIfEmpty(Mono.error(() -> new InvalidTransactionException("Transaction not found")))
+                                .flatMap(existing -> Mono.<TransactionStatusDto>error(new InvalidTransactionException(
+                                        "Transaction already executed or invalid state"))));
+    }
+
+    //2. Status changes of one transaction, starting with the current one, until it is settled.
+    // Changes made by other instances are picked up by re-reading every poll interval.
+    public Flux<TransactionStatusDto> statusStream(UUID transactionId) {
+        Flux<TransactionStatusDto> polled = Flux.interval(Duration.ZERO, pollInterval.multipliedBy(10))
+                .concatMap(tick -> transactionService.getTransactionStatus(transactionId));
+        Flux<TransactionStatusDto> pushed = events.asFlux()
+                .filter(event -> event.getTransactionId().equals(transactionId));
+        return Flux.merge(pushed, polled)
+                .distinctUntilChanged(TransactionStatusDto::getStatus)
+                .takeUntil(event -> SETTLED.contains(event.getStatus()) || isReleased(event))
+                .take(streamTimeout);
+    }
+
+    private Mono<Void> drainOnce() {
+        int free = concurrency - inFlight.get();
+        Mono<Void> depth = transactionStore.countByStatus(Transaction.TransactionStatus.QUEUED)
+                .doOnNext(queueDepth::set)
+                .then();
+        if (free <= 0) {
+            return depth.onErrorResume(this::logPollError);
+        }
+        return depth.thenMany(transactionStore.findQueued(free))
+                .concatMap(transaction -> transactionService.claim(transaction.getTransactionId(),
+                                Transaction.TransactionStatus.QUEUED)
+                        .filter(claimed -> claimed)
+                        .map(claimed -> transaction))
+                .doOnNext(this::execute)
+                .then()
+                .onErrorResume(this::logPollError);
+    }
+
+    private void execute(Transaction transaction) {
+        inFlight.incrementAndGet();
+        UUID transactionId = transaction.getTransactionId();
+        LocalDateTime queuedAt = transaction.getQueuedAt();
+        if (queuedAt != null) {
+            queueWait.record(Duration.between(queuedAt, LocalDateTime.now()));
+        }
+        transaction.setStatus(Transaction.TransactionStatus.EXECUTING);
+        publish(transactionId, Transaction.TransactionStatus.EXECUTING, null);
+
+        transactionService.transfer(transaction)
+                .map(response -> publish(transactionId, Transaction.TransactionStatus.SUCCESS, null))
+                .onErrorResume(error -> settleFailure(transactionId, error))
+                .doOnNext(event -> {
+                    if (queuedAt != null && !isReleased(event)) {
+                        drainLatency.record(Duration.between(queuedAt, LocalDateTime.now()));
+                    }
+                    meterRegistry.counter("transactions.execution.completed", "status", event.getStatus()).increment();
+                })
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .subscribe();
+    }
+
+    // A rejected transfer has already been saved as FAILED; one that did not reach account-service was
+    // put back to INITIATED by TransactionService.transfer
+    private Mono<TransactionStatusDto> settleFailure(UUID transactionId, Throwable error) {
+        if (error instanceof InvalidTransactionException || error instanceof InvalidAccountException) {
+            return Mono.just(publish(transactionId, Transaction.TransactionStatus.FAILED, error.getMessage()));
+        }
+        logger.warn("Execution of queued transaction {} failed, put back to INITIATED: {}",
+                transactionId, error.getMessage());
+        released.increment();
+        return Mono.just(publish(transactionId, Transaction.TransactionStatus.INITIATED,
+                "Execution could not be completed, please retry: " + error.getMessage()));
+    }
+
+    private TransactionStatusDto publish(UUID transactionId, Transaction.TransactionStatus status, String message) {
+        TransactionStatusDto event = new TransactionStatusDto(transactionId, status.name(), message, LocalDateTime.now());
+        events.tryEmitNext(event);
+        return event;
+    }
+
+    private static boolean isReleased(TransactionStatusDto event) {
+        return Transaction.TransactionStatus.INITIATED.name().equals(event.getStatus()) && event.getMessage() != null;
+    }
+
+    private Mono<Void> logPollError(Throwable error) {
+        logger.error("Polling the execution queue failed: {}", error.getMessage());
+        return Mono.empty();
+    }
+}
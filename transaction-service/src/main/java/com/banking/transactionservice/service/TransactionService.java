@@ -4,17 +4,20 @@ import com.banking.transactionservice.dto.AccountDto;
 import com.banking.transactionservice.dto.TransactionHistoryDto;
 import com.banking.transactionservice.dto.TransactionInitiationDto;
 import com.banking.transactionservice.dto.TransactionResponseDto;
+import com.banking.transactionservice.dto.TransactionStatusDto;
+import com.banking.transactionservice.dto.TransferResultDto;
 import com.banking.transactionservice.exception.InvalidAccountException;
 import com.banking.transactionservice.exception.InvalidTransactionException;
+import com.banking.transactionservice.model.AccountActivity;
+import com.banking.transactionservice.model.Money;
 import com.banking.transactionservice.model.Transaction;
-import com.banking.transactionservice.repository.TransactionRepository;
-import jakarta.transaction.Transactional;
+import com.banking.transactionservice.repository.AccountActivityRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -25,13 +28,32 @@ public class TransactionService {
 
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TransactionService.class);
 
+    // Open ends of the history date range, both within what the database can store
+    static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 23, 59);
+
     private final ExternalServiceClient externalServiceClient;
-    private final TransactionRepository transactionRepository;
+    private final AccountActivityRepository accountActivityRepository;
+    private final TransactionStore transactionStore;
+    private final RunningBalanceService runningBalanceService;
+    private final int maxHistoryLimit;
+    private final String instanceId;
+
+    // Only present when banking.accounts.replica.enabled=true
+    @Autowired(required = false)
+    private AccountReplica accountReplica;
 
     @Autowired
-    public TransactionService(ExternalServiceClient externalServiceClient, TransactionRepository transactionRepository) {
+    public TransactionService(ExternalServiceClient externalServiceClient, AccountActivityRepository accountActivityRepository,
+                              TransactionStore transactionStore, RunningBalanceService runningBalanceService,
+                              @Value("${banking.transactions.history.max-limit:1000}") int maxHistoryLimit,
+                              @Value("${banking.transactions.execution.instance-id:${random.uuid}}") String instanceId) {
         this.externalServiceClient = externalServiceClient;
-        this.transactionRepository = transactionRepository;
+        this.accountActivityRepository = accountActivityRepository;
+        this.transactionStore = transactionStore;
+        this.runningBalanceService = runningBalanceService;
+        this.maxHistoryLimit = maxHistoryLimit;
+        this.instanceId = instanceId;
     }
 
 
@@ -53,12 +75,23 @@ public class TransactionService {
             return Mono.error(new InvalidTransactionException("Source and destination accounts cannot be the same"));
         }
 
-        Mono<AccountDto> fromAccountMono = externalServiceClient.getAccountById(fromId)
+        // Converted once here; the checks below compare cents
+        Money amount;
+        try {
+            amount = Money.of(dto.getAmount());
+        } catch (ArithmeticException e) {
+            return Mono.error(new InvalidTransactionException(e.getMessage()));
+        }
+        if (!amount.isPositive()) {
+            return Mono.error(new InvalidTransactionException("Amount must be greater than zero"));
+        }
+
+        Mono<AccountDto> fromAccountMono = lookupAccount(fromId)
                 .onErrorMap(
                         ex-> new InvalidAccountException("Invalid 'from' or 'to' account ID."
                 ));
 
-        Mono<AccountDto> toAccountMono = externalServiceClient.getAccountById(toId)
+        Mono<AccountDto> toAccountMono = lookupAccount(toId)
                 .onErrorMap(
                 ex-> new InvalidAccountException("Invalid 'from' or 'to' account ID."
                 ));
@@ -78,7 +111,7 @@ public class TransactionService {
                         return Mono.error(new InvalidAccountException("One of the accounts is not active"));
                     }
 
-                    if (from.getBalance().compareTo(dto.getAmount()) < 0) {
+                    if (Money.of(from.getBalance()).isLessThan(amount)) {
                         return Mono.error(new InvalidTransactionException("Insufficient funds"));
                     }
                     // Check if either account is null, which means it doesn't exist
@@ -86,12 +119,11 @@ public class TransactionService {
                     Transaction transaction = new Transaction();
                     transaction.setFromAccountId(fromId);
                     transaction.setToAccountId(toId);
-                    transaction.setAmount(dto.getAmount());
+                    transaction.setAmount(amount.toBigDecimal());
                     transaction.setDescription(dto.getDescription());
                     transaction.setStatus(Transaction.TransactionStatus.INITIATED);
 
-                    return Mono.fromCallable(() -> transactionRepository.save(transaction))
-                            .subscribeOn(Schedulers.boundedElastic())
+                    return transactionStore.insert(transaction)
                             .map(saved -> new TransactionResponseDto(
                                     saved.getTransactionId(),
                                     "Initiated",
@@ -100,6 +132,13 @@ public class TransactionService {
                 });
     }
 
+    // Status and balance for the initiation checks: from the local replica when it has a fresh
+    // copy, otherwise from account-service. Execution re-checks both under account-service's locks.
+    private Mono<AccountDto> lookupAccount(UUID accountId) {
+        AccountDto local = accountReplica != null ? accountReplica.find(accountId) : null;
+        return local != null ? Mono.just(local) : externalServiceClient.getAccountById(accountId);
+    }
+
 //Why many returns ? Think of it like:
 //
 //You ask the bank for account info → Mono<AccountDto>
@@ -115,108 +154,148 @@ public Mono<TransactionResponseDto> executeTransaction(UUID transactionId) {
         return Mono.error(new InvalidTransactionException("Invalid transaction ID"));
     }
 
-    return Mono.fromCallable(() -> transactionRepository.findById(transactionId)
-                .orElseThrow(() -> new InvalidTransactionException("Transaction not found")))
-        .subscribeOn(Schedulers.boundedElastic())
-        .flatMap(transaction -> {
-            UUID fromAccountId = transaction.getFromAccountId();
-            UUID toAccountId = transaction.getToAccountId();
-
-            if (transaction.getStatus() != Transaction.TransactionStatus.INITIATED) {
-                return Mono.error(new InvalidTransactionException("Transaction already executed or invalid state"));
-            }
-
-            Mono<AccountDto> fromAccountMono = externalServiceClient.getAccountById(fromAccountId)
-                    .onErrorMap(
-                        ex -> new InvalidAccountException("Invalid 'from' or 'to' account ID."));
-
-            Mono<AccountDto> toAccountMono = externalServiceClient.getAccountById(toAccountId)
-                    .onErrorMap(
-                        ex -> new InvalidAccountException("Invalid 'from' or 'to' account ID."));
-
-
-            return Mono.zip(fromAccountMono, toAccountMono)
-                    .flatMap(tuple -> {
-                        AccountDto from = tuple.getT1();
-                        AccountDto to = tuple.getT2();
-
-                        if (!"ACTIVE".equals(from.getStatus()) || !"ACTIVE".equals(to.getStatus())) {
-                            transaction.setStatus(Transaction.TransactionStatus.FAILED);
-                            return Mono.fromCallable(() -> transactionRepository.save(transaction))
-                                    .subscribeOn(Schedulers.boundedElastic())
-                                    .then(Mono.error(new InvalidAccountException("One of the accounts is not active")));
-                        }
-                        //if account not found, it will throw an exception
-
-
-
-                        if (from.getBalance().compareTo(transaction.getAmount()) < 0) {
-                            transaction.setStatus(Transaction.TransactionStatus.FAILED);
-                            return Mono.fromCallable(() -> transactionRepository.save(transaction))
-                                    .subscribeOn(Schedulers.boundedElastic())
-                                    .then(Mono.error(new InvalidTransactionException("Insufficient funds in source account")));
-                        }
-
-                        // Use the transferBetweenAccounts method instead of two separate calls
-                        return externalServiceClient.transferBetweenAccounts(fromAccountId, toAccountId, transaction.getAmount())
-                            .then(Mono.fromCallable(() -> {
-                                transaction.setStatus(Transaction.TransactionStatus.SUCCESS);
-                                return transactionRepository.save(transaction);
-                            })
-                            .subscribeOn(Schedulers.boundedElastic())
-                            .map(saved -> new TransactionResponseDto(
-                                saved.getTransactionId(),
-                                "Success",
-                                LocalDateTime.now()
-                            )));
-                    });
-        });
+    // Claimed INITIATED -> EXECUTING first, like the queue's workers do, so that of two concurrent
+    // requests for the same transaction only one reaches account-service
+    return claim(transactionId, Transaction.TransactionStatus.INITIATED)
+        .flatMap(claimed -> transactionStore.findById(transactionId)
+            .switchIfEmpty(Mono.error(() -> new InvalidTransactionException("Transaction not found")))
+            .flatMap(transaction -> {
+                if (!claimed) {
+                    return Mono.error(new InvalidTransactionException("Transaction already executed or invalid state"));
+                }
+
+                return transfer(transaction);
+            }));
 }
 
-    @Transactional
-    public List<TransactionHistoryDto> getTransactionHistory(UUID accountId) {
+    // fromStatus -> EXECUTING, recording this instance as the claimant; ExecutionClaimSweeper puts
+    // claims older than the claim timeout back to INITIATED
+    Mono<Boolean> claim(UUID transactionId, Transaction.TransactionStatus fromStatus) {
+        return transactionStore.claim(transactionId, fromStatus, instanceId, LocalDateTime.now());
+    }
+
+    // One call: account-service checks status and funds while it holds the row locks, so there is
+    // no separate read of both accounts first and no window between that check and the transfer.
+    // The transaction must have been claimed (EXECUTING) by the caller: executeTransaction above, or
+    // TransactionExecutionQueue for the queued transactions.
+    Mono<TransactionResponseDto> transfer(Transaction transaction) {
+        return externalServiceClient.executeTransfer(
+                        transaction.getFromAccountId(), transaction.getToAccountId(), transaction.getAmount())
+                .onErrorResume(error -> release(transaction.getTransactionId()).then(Mono.error(error)))
+                .flatMap(result -> complete(transaction, result));
+    }
+
+    // No result from account-service, so the outcome is unknown: EXECUTING -> INITIATED for the client
+    // to execute again
+    private Mono<Boolean> release(UUID transactionId) {
+        return transactionStore.transition(transactionId,
+                        Transaction.TransactionStatus.EXECUTING, Transaction.TransactionStatus.INITIATED)
+                .onErrorResume(e -> Mono.just(false));
+    }
+
+    //2b. Current status of a transaction
+    public Mono<TransactionStatusDto> getTransactionStatus(UUID transactionId) {
+        if (transactionId == null) {
+            return Mono.error(new InvalidTransactionException("Invalid transaction ID"));
+        }
+        return transactionStore.findById(transactionId)
+                .switchIfEmpty(Mono.error(() -> new InvalidTransactionException("Transaction not found")))
+                .map(transaction -> new TransactionStatusDto(
+                        transaction.getTransactionId(), transaction.getStatus().name(), null, LocalDateTime.now()));
+    }
+
+    // SUCCESS/FAILED from the transfer's result code, only from EXECUTING: a claim that expired and was
+    // reset meanwhile (see ExecutionClaimSweeper) is not overwritten
+    private Mono<TransactionResponseDto> complete(Transaction transaction, TransferResultDto result) {
+        if (result.getCode() == TransferResultDto.Code.SUCCESS) {
+            // Both balances changed; cached lookups of them would show the old ones
+            externalServiceClient.evictAccounts(List.of(transaction.getFromAccountId(), transaction.getToAccountId()));
+            transaction.setStatus(Transaction.TransactionStatus.SUCCESS);
+            // Checkpoints are dropped once the status and history rows are committed: one computed
+            // before they were visible would otherwise survive
+            return settled(transaction, transactionStore.succeed(transaction.getTransactionId()))
+                    .then(transactionStore.invalidateCheckpoints(
+                            List.of(transaction.getFromAccountId(), transaction.getToAccountId()), transaction.getTimestamp()))
+                    .thenReturn(new TransactionResponseDto(
+                            transaction.getTransactionId(),
+                            "Success",
+                            LocalDateTime.now(),
+                            result.getFromBalance(),
+                            result.getToBalance()
+                    ));
+        }
+
+        RuntimeException failure = switch (result.getCode()) {
+            case INSUFFICIENT_FUNDS -> new InvalidTransactionException("Insufficient funds in source account");
+            case ACCOUNT_INACTIVE -> new InvalidAccountException("One of the accounts is not active");
+            case ACCOUNT_NOT_FOUND -> new InvalidAccountException("Invalid 'from' or 'to' account ID.");
+            default -> new InvalidTransactionException(result.getMessage());
+        };
+        transaction.setStatus(Transaction.TransactionStatus.FAILED);
+        return settled(transaction, transactionStore.transition(transaction.getTransactionId(),
+                        Transaction.TransactionStatus.EXECUTING, Transaction.TransactionStatus.FAILED))
+                .then(Mono.error(failure));
+    }
+
+    // Fails when the EXECUTING -> SUCCESS/FAILED change did not apply
+    private Mono<Void> settled(Transaction transaction, Mono<Boolean> change) {
+        return change
+                .flatMap(settled -> {
+                    if (settled) {
+                        return Mono.<Void>empty();
+                    }
+                    logger.error("Transaction {} was no longer EXECUTING when its transfer ended with {}",
+                            transaction.getTransactionId(), transaction.getStatus());
+                    return Mono.error(new IllegalStateException(
+                            "Transaction " + transaction.getTransactionId() + " is no longer EXECUTING"));
+                });
+    }
+
+    //3. One keyset page of an account's successful transactions, newest first. The last item's
+    // (timestamp, transactionId) is the next page's (beforeTimestamp, beforeId); from/to bound the dates.
+    // Not @Transactional: filling in running balances may wait on account-service.
+    public List<TransactionHistoryDto> getTransactionHistory(UUID accountId, LocalDateTime beforeTimestamp, UUID beforeId,
+                                                             LocalDateTime from, LocalDateTime to, int limit) {
         // Validate account ID
         if (accountId == null) {
             throw new InvalidAccountException("Invalid account ID");
         }
+        if (limit < 1 || limit > maxHistoryLimit) {
+            throw new InvalidTransactionException("limit must be between 1 and " + maxHistoryLimit);
+        }
+        if ((beforeTimestamp == null) != (beforeId == null)) {
+            throw new InvalidTransactionException("beforeTimestamp and beforeId must be given together");
+        }
 
-//        List<Transaction> transactions = transactionRepository.
-//                findByFromAccountIdOrToAccountIdOrderByTimestampDesc(accountId, accountId);
+        // The query takes one upper bound: the cursor, or "to" (exclusive) when that is earlier.
+        // The all-zero uuid sorts first, so (to, zero uuid) means "strictly before to".
+        LocalDateTime upperTimestamp = beforeTimestamp != null ? beforeTimestamp : HISTORY_END;
+        UUID upperId = beforeId;
+        if (to != null && (beforeTimestamp == null || !to.isAfter(beforeTimestamp))) {
+            upperTimestamp = to;
+            upperId = new UUID(0L, 0L);
+        }
+        if (upperId == null) {
+            upperId = new UUID(-1L, -1L);
+        }
 
-        List<Transaction> transactions = transactionRepository.findByStatusAndFromAccountIdOrStatusAndToAccountIdOrderByTimestampDesc(
-                Transaction.TransactionStatus.SUCCESS, accountId,
-                Transaction.TransactionStatus.SUCCESS, accountId
-        );
+        // One range scan of the account's rows in the account_activity projection
+        List<AccountActivity> activity = accountActivityRepository.findPage(accountId,
+                from != null ? from : HISTORY_START, upperTimestamp, upperId, Limit.of(limit));
 
-        if (transactions.isEmpty()) {
+        if (activity.isEmpty() && beforeTimestamp == null && from == null && to == null) {
             // This is optional, depends on business logic : REQUIRENENT SATISFACTION purpose
             throw new InvalidAccountException("No transactions found for this account ID");
         }
 
-        // In a real scenario, we would get the current balance from the Account Service
-        // BigDecimal currentBalance = accountServiceClient.getAccountBalance(accountId);
-
-        // For now, we'll use a placeholder value that the BFF will replace
-        BigDecimal runningBalance = BigDecimal.ZERO; // Placeholder
-
-        return transactions.stream()
-                .map(tx -> {
-                    TransactionHistoryDto transactionHistoryDto = new TransactionHistoryDto();
-                    transactionHistoryDto.setTransactionId(tx.getTransactionId());
-                    transactionHistoryDto.setAccountId(accountId);
-
-                    // Determine if this is a debit or credit for this account
-                    boolean isOutgoing = tx.getFromAccountId().equals(accountId);
-                    BigDecimal amount = isOutgoing
-                            ? tx.getAmount().negate() // Outgoing money (negative)
-                            : tx.getAmount();         // Incoming money (positive)
-
-                    transactionHistoryDto.setAmount(amount);
-                    transactionHistoryDto.setDescription(tx.getDescription());
-                    transactionHistoryDto.setTimestamp(tx.getTimestamp());
+        // Amounts are stored signed: outgoing money negative, incoming positive
+        List<TransactionHistoryDto> page = activity.stream()
+                .map(row -> new TransactionHistoryDto(row.getTransactionId(), accountId, row.getAmount(),
+                        row.getDescription(), row.getTxTimestamp(), null))
+                .collect(Collectors.toList());
 
-                    return transactionHistoryDto;
-                }).collect(Collectors.toList());
+        runningBalanceService.fillRunningBalances(accountId, page);
+        return page;
     }
 
     private TransactionResponseDto mapToResponseDto(Transaction transaction) {
@@ -0,0 +1,47 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.model.Transaction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Persistence used by the initiation and execution paths, chosen by banking.transactions.persistence:
+ * r2dbc (default) never blocks a thread, jpa runs each call on boundedElastic with a JDBC connection.
+ */
+public interface TransactionStore {
+
+    Mono<Transaction> findById(UUID transactionId);
+
+    // Assigns id and timestamp
+    Mono<Transaction> insert(Transaction transaction);
+
+    // Conditional status change; false when the transaction is missing or not in fromStatus
+    Mono<Boolean> transition(UUID transactionId, Transaction.TransactionStatus fromStatus,
+                             Transaction.TransactionStatus toStatus);
+
+    // INITIATED -> QUEUED, stamping queuedAt
+    Mono<Boolean> enqueue(UUID transactionId, LocalDateTime queuedAt);
+
+    // fromStatus -> EXECUTING, stamping the claiming instance and time
+    Mono<Boolean> claim(UUID transactionId, Transaction.TransactionStatus fromStatus, String claimedBy,
+                        LocalDateTime claimedAt);
+
+    // EXECUTING -> INITIATED for the claims made before claimedBefore (or never stamped); the number released
+    Mono<Long> releaseClaimsBefore(LocalDateTime claimedBefore);
+
+    // Oldest first
+    Flux<Transaction> findQueued(int limit);
+
+    Mono<Long> countByStatus(Transaction.TransactionStatus status);
+
+    // EXECUTING -> SUCCESS and both legs into the account_activity projection (see AccountActivity), in
+    // one database transaction; false when the transaction was not EXECUTING
+    Mono<Boolean> succeed(UUID transactionId);
+
+    // Running-balance checkpoints of these accounts from the timestamp on (see RunningBalanceService)
+    Mono<Void> invalidateCheckpoints(Collection<UUID> accountIds, LocalDateTime timestamp);
+}
@@ -0,0 +1,236 @@
+package com.banking.transactionservice.config;
+
+import com.banking.transactionservice.exception.DownstreamUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownstreamResilienceFilterTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownstreamResilienceFilterTest.class);
+
+    // Stub downstream: /slow answers in 2 ms except every 20th request, which takes 300 ms
+    private final AtomicInteger requests = new AtomicInteger();
+    private DisposableServer server;
+
+    @BeforeEach
+    void startStub() {
+        server = HttpServer.create().port(0).route(routes -> routes
+                        .get("/slow", (request, response) -> {
+                            Duration latency = requests.incrementAndGet() % 20 == 0 ? Duration.ofMillis(300) : Duration.ofMillis(2);
+                            return response.sendString(Mono.just("ok").delayElement(latency));
+                        })
+                        .get("/fail", (request, response) -> {
+                            requests.incrementAndGet();
+                            return response.status(500).sendString(Mono.just("failed"));
+                        })
+                        .get("/ok", (request, response) -> {
+                            requests.incrementAndGet();
+                            return response.sendString(Mono.just("ok"));
+                        }))
+                .bindNow();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.disposeNow();
+    }
+
+    // Wall-clock percentiles: a benchmark, not a check for the default build
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void hedgingCutsTheP99OfASlowTail() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WebClient plain = WebClient.create("http://localhost:" + server.port());
+        WebClient hedged = client(settings(64, true, 20), meterRegistry);
+
+        long plainP99 = p99(plain, 400);
+        long hedgedP99 = p99(hedged, 400);
+        logger.info("p99 over 400 GETs with a 5% slow tail: {} ms plain, {} ms hedged", plainP99, hedgedP99);
+
+        assertTrue(plainP99 >= 300, "plain p99 was " + plainP99 + " ms");
+        assertTrue(hedgedP99 < 150, "hedged p99 was " + hedgedP99 + " ms");
+        double sent = meterRegistry.get("downstream.hedges").tag("outcome", "sent").counter().count();
+        double won = meterRegistry.get("downstream.hedges").tag("outcome", "won").counter().count();
+        assertTrue(won >= 10, "hedges won: " + won);
+        // The budget: hedges stay within 10% of the calls
+        assertTrue(sent <= 41, "hedges sent: " + sent);
+    }
+
+    @Test
+    void slowCallsAreHedgedWithinTheBudget() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DownstreamResilienceFilter filter = new DownstreamResilienceFilter("stub", settings(64, true, 1000), meterRegistry);
+
+        // Answered at once: never hedged
+        for (int i = 0; i < 10; i++) {
+            assertEquals(HttpStatus.OK, hedgedGet(filter, Duration.ZERO).statusCode());
+        }
+        assertEquals(0.0, meterRegistry.get("downstream.hedges").tag("outcome", "sent").counter().count());
+
+        // The first attempt takes 500 ms against a 50 ms hedge delay, the hedge answers at once.
+        // The budget of 10% allows a hedge for calls 11 and 12 of 20, the rest wait for their first attempt
+        for (int i = 0; i < 10; i++) {
+            assertEquals(HttpStatus.OK, hedgedGet(filter, Duration.ofMillis(500)).statusCode());
+        }
+        assertEquals(2.0, meterRegistry.get("downstream.hedges").tag("outcome", "sent").counter().count());
+        assertEquals(2.0, meterRegistry.get("downstream.hedges").tag("outcome", "won").counter().count());
+        assertEquals(0, filter.inFlight());
+    }
+
+    @Test
+    void circuitBreakerFailsFastAndClosesAfterSuccessfulProbes() throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DownstreamResilienceFilter filter = new DownstreamResilienceFilter("stub", settings(64, false, 20), meterRegistry);
+        WebClient client = client(filter);
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(WebClientResponseException.class, () -> get(client, "/fail"));
+        }
+        assertEquals(DownstreamResilienceFilter.CircuitBreaker.State.OPEN, filter.circuitState());
+
+        int reached = requests.get();
+        assertThrows(DownstreamUnavailableException.class, () -> get(client, "/ok"));
+        assertEquals(reached, requests.get());
+        assertEquals(1.0, meterRegistry.get("downstream.circuit.rejected").counter().count());
+
+        Thread.sleep(250);
+        for (int i = 0; i < 2; i++) {
+            assertEquals("ok", get(client, "/ok"));
+        }
+        assertEquals(DownstreamResilienceFilter.CircuitBreaker.State.CLOSED, filter.circuitState());
+    }
+
+    @Test
+    void bulkheadTurnsAwayCallsBeyondTheLimit() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DownstreamResilienceFilter filter = new DownstreamResilienceFilter("stub", settings(2, false, 20), meterRegistry);
+        WebClient client = client(filter);
+        requests.set(19);
+
+        // The first request is the slow one; two are in flight when the rest arrive
+        List<String> outcomes = Flux.range(0, 5)
+                .flatMap(i -> client.get().uri("/slow").retrieve().bodyToMono(String.class)
+                        .onErrorResume(DownstreamUnavailableException.class, e -> Mono.just("rejected")))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertTrue(outcomes.contains("ok"));
+        assertEquals(outcomes.stream().filter("rejected"::equals).count(),
+                (long) meterRegistry.get("downstream.bulkhead.rejected").counter().count());
+        assertTrue(meterRegistry.get("downstream.bulkhead.rejected").counter().count() >= 1);
+        assertEquals(0, filter.inFlight());
+    }
+
+    @Test
+    void connectionFailuresAreRetriedForGetsOnly() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        int port = server.port();
+        server.disposeNow();
+        WebClient client = WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .filter(new DownstreamResilienceFilter("stub", settings(64, true, 20), meterRegistry))
+                .build();
+
+        Exception getError = assertThrows(Exception.class, () -> get(client, "/ok"));
+        assertInstanceOf(WebClientRequestException.class, getError);
+        assertEquals(2.0, meterRegistry.get("downstream.retries").counter().count());
+
+        assertThrows(WebClientRequestException.class,
+                () -> client.post().uri("/ok").retrieve().bodyToMono(String.class).block(Duration.ofSeconds(5)));
+        assertEquals(2.0, meterRegistry.get("downstream.retries").counter().count());
+    }
+
+    @Test
+    void retriesAreHedgedToo() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DownstreamResilienceFilter filter = new DownstreamResilienceFilter("stub", settings(64, true, 20), meterRegistry);
+        ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://stub/ok")).build();
+        // The first attempt cannot connect, its retry hangs, and only a hedge of the retry answers
+        AtomicInteger attempts = new AtomicInteger();
+        ExchangeFunction downstream = sent -> switch (attempts.incrementAndGet()) {
+            case 1 -> Mono.error(new WebClientRequestException(
+                    new IOException("connection refused"), sent.method(), sent.url(), sent.headers()));
+            case 2 -> Mono.never();
+            default -> Mono.just(ClientResponse.create(HttpStatus.OK).body("ok").build());
+        };
+
+        ClientResponse response = filter.filter(request, downstream).block(Duration.ofSeconds(5));
+
+        assertEquals(HttpStatus.OK, response.statusCode());
+        assertEquals(3, attempts.get());
+        assertEquals(1.0, meterRegistry.get("downstream.hedges").tag("outcome", "won").counter().count());
+    }
+
+    // One GET whose first attempt answers after firstAttemptLatency and any later attempt at once
+    private ClientResponse hedgedGet(DownstreamResilienceFilter filter, Duration firstAttemptLatency) {
+        ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://stub/ok")).build();
+        AtomicInteger attempts = new AtomicInteger();
+        ExchangeFunction downstream = sent -> {
+            Mono<ClientResponse> response = Mono.fromSupplier(() -> ClientResponse.create(HttpStatus.OK).body("ok").build());
+            return attempts.incrementAndGet() == 1 && !firstAttemptLatency.isZero()
+                    ? response.delaySubscription(firstAttemptLatency)
+                    : response;
+        };
+        return filter.filter(request, downstream).block(Duration.ofSeconds(5));
+    }
+
+    private DownstreamResilienceFilter.Settings settings(int maxConcurrent, boolean hedgeEnabled, long hedgeMinSamples) {
+        return new DownstreamResilienceFilter.Settings(maxConcurrent,
+                50, 10, 5, Duration.ofMillis(200), 2,
+                2, Duration.ofMillis(10), Duration.ofMillis(50),
+                hedgeEnabled, Duration.ofMillis(50), Duration.ofMillis(10), hedgeMinSamples, 10);
+    }
+
+    private WebClient client(DownstreamResilienceFilter.Settings settings, SimpleMeterRegistry meterRegistry) {
+        return client(new DownstreamResilienceFilter("stub", settings, meterRegistry));
+    }
+
+    private WebClient client(DownstreamResilienceFilter filter) {
+        return WebClient.builder().baseUrl("http://localhost:" + server.port()).filter(filter).build();
+    }
+
+    private String get(WebClient client, String path) {
+        return client.get().uri(path).retrieve().bodyToMono(String.class).block(Duration.ofSeconds(5));
+    }
+
+    // Four callers at a time, each GET timed from subscription to body
+    private long p99(WebClient client, int calls) {
+        List<Long> latencies = Flux.range(0, calls)
+                .flatMap(i -> Mono.defer(() -> {
+                    long started = System.nanoTime();
+                    return client.get().uri("/slow").retrieve().bodyToMono(String.class)
+                            .map(body -> (System.nanoTime() - started) / 1_000_000);
+                }), 4)
+                .collectSortedList()
+                .block(Duration.ofSeconds(60));
+        return latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1);
+    }
+}
@@ -0,0 +1,67 @@
+package com.banking.transactionservice.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class TransactionStatusCheckTest {
+
+    private static final int EXECUTING = 4;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void widensTheCheckOfADatabaseCreatedBeforeQueuedAndExecuting() {
+        // The check Hibernate created here is recognised and covers every status
+        assertFalse(TransactionStatusCheck.staleChecks(jdbcTemplate, EXECUTING + 1).isEmpty());
+        assertTrue(TransactionStatusCheck.staleChecks(jdbcTemplate, EXECUTING).isEmpty());
+
+        // As created when INITIATED, SUCCESS and FAILED were all there was
+        for (TransactionStatusCheck.Check check : TransactionStatusCheck.staleChecks(jdbcTemplate, EXECUTING + 1)) {
+            jdbcTemplate.execute("ALTER TABLE transactions DROP CONSTRAINT \"" + check.name() + "\"");
+        }
+        jdbcTemplate.execute("ALTER TABLE transactions ADD CONSTRAINT old_status_check CHECK (status BETWEEN 0 AND 2)");
+        assertThrows(DataIntegrityViolationException.class, () -> insert(EXECUTING));
+
+        new TransactionStatusCheck(jdbcTemplate, entityManagerFactory);
+
+        assertTrue(TransactionStatusCheck.staleChecks(jdbcTemplate, EXECUTING).isEmpty());
+        assertEquals(1, insert(EXECUTING));
+        assertThrows(DataIntegrityViolationException.class, () -> insert(EXECUTING + 1));
+    }
+
+    @Test
+    void readsTheUpperBoundAsPostgresqlStoresIt() {
+        assertEquals(2, new TransactionStatusCheck.Check("transactions_status_check",
+                "((status >= 0) AND (status <= 2))").statusUpperBound());
+        assertNull(new TransactionStatusCheck.Check("2200_16389_5_not_null", "status IS NOT NULL").statusUpperBound());
+        assertNull(new TransactionStatusCheck.Check("transactions_amount_check", "(amount >= 0)").statusUpperBound());
+    }
+
+    private int insert(int status) {
+        return jdbcTemplate.update("INSERT INTO transactions (id, from_account_id, to_account_id, amount, status, timestamp) "
+                        + "VALUES (?, ?, ?, 1.00, ?, ?)",
+                UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), status, LocalDateTime.now());
+    }
+}
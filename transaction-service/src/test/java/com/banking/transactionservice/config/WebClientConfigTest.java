@@ -0,0 +1,86 @@
+package com.banking.transactionservice.config;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebClientConfigTest {
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final WebClientConfig config = new WebClientConfig();
+    private DisposableServer server;
+
+    @AfterEach
+    void stop() {
+        config.disposeConnectionProviders();
+        server.disposeNow();
+    }
+
+    @Test
+    void h2cMultiplexesConcurrentCallsOverFewConnections() {
+        server = stub(HttpProtocol.H2C);
+        WebClient client = client(new MockEnvironment()
+                .withProperty("external-services.stub.http2.enabled", "true")
+                .withProperty("external-services.stub.http2.max-connections", "2"));
+
+        List<String> answers = Flux.range(0, 50)
+                .flatMap(i -> client.get().uri("/slow").retrieve().bodyToMono(String.class))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(50, answers.size());
+        assertTrue(answers.stream().allMatch("HTTP/2.0"::equals));
+        assertTrue(connections.get() <= 2, "connections: " + connections.get());
+    }
+
+    @Test
+    void http11PoolIsNamedAfterTheDownstreamAndReportsMetrics() {
+        server = stub(HttpProtocol.HTTP11);
+        WebClient client = client(new MockEnvironment()
+                .withProperty("external-services.pool.max-connections", "5"));
+
+        List<String> answers = Flux.range(0, 20)
+                .flatMap(i -> client.get().uri("/slow").retrieve().bodyToMono(String.class))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(20, answers.size());
+        // Calls beyond max-connections wait for a pooled connection instead of opening another
+        assertTrue(connections.get() <= 5, "connections: " + connections.get());
+        assertFalse(Metrics.globalRegistry.find("reactor.netty.connection.provider.max.connections")
+                .tag("name", "stub").gauges().isEmpty());
+    }
+
+    private WebClient client(MockEnvironment environment) {
+        ReflectionTestUtils.setField(config, "environment", environment);
+        ReflectionTestUtils.setField(config, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(config, "resilienceEnabled", false);
+        return config.createWebClient("stub", "http://localhost:" + server.port());
+    }
+
+    // Answers with the protocol version after 100 ms, counting the connections it accepts
+    private DisposableServer stub(HttpProtocol protocol) {
+        return HttpServer.create().port(0).protocol(protocol)
+                .doOnChannelInit((observer, channel, address) -> connections.incrementAndGet())
+                .route(routes -> routes.get("/slow", (request, response) ->
+                        response.sendString(Mono.just(request.version().text()).delayElement(Duration.ofMillis(100)))))
+                .bindNow();
+    }
+}
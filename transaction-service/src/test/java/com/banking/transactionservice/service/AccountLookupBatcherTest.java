@@ -0,0 +1,74 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.dto.AccountDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountLookupBatcherTest {
+
+    @Test
+    void concurrentLookupsShareBulkCalls() {
+        AtomicInteger bulkCalls = new AtomicInteger();
+        AccountLookupBatcher batcher = new AccountLookupBatcher(ids -> {
+            bulkCalls.incrementAndGet();
+            return Mono.just(ids.stream().map(this::account).collect(Collectors.toList()));
+        }, Duration.ofMillis(20), 100, new SimpleMeterRegistry());
+
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        List<AccountDto> accounts = Flux.fromIterable(ids)
+                .flatMap(batcher::lookup)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(50, accounts.size());
+        assertEquals(ids.stream().sorted().toList(),
+                accounts.stream().map(AccountDto::getAccountId).sorted().toList());
+        assertTrue(bulkCalls.get() < 5, "expected a handful of bulk calls, got " + bulkCalls.get());
+        batcher.shutdown();
+    }
+
+    @Test
+    void missingAccountFailsOnlyItsCaller() {
+        UUID missing = UUID.randomUUID();
+        AccountLookupBatcher batcher = new AccountLookupBatcher(ids -> Mono.just(ids.stream()
+                .filter(id -> !id.equals(missing))
+                .map(this::account)
+                .collect(Collectors.toList())), Duration.ofMillis(20), 100, new SimpleMeterRegistry());
+
+        UUID present = UUID.randomUUID();
+        Mono<AccountDto> found = batcher.lookup(present).cache();
+        Mono<AccountDto> notFound = batcher.lookup(missing).cache();
+        found.subscribe(a -> {}, e -> {});
+        notFound.subscribe(a -> {}, e -> {});
+
+        assertEquals(present, found.block(Duration.ofSeconds(5)).getAccountId());
+        RuntimeException error = assertThrows(RuntimeException.class, () -> notFound.block(Duration.ofSeconds(5)));
+        assertEquals("Account not found", error.getMessage());
+        batcher.shutdown();
+    }
+
+    private AccountDto account(UUID id) {
+        AccountDto account = new AccountDto();
+        account.setAccountId(id);
+        account.setStatus("ACTIVE");
+        account.setBalance(BigDecimal.TEN);
+        return account;
+    }
+}
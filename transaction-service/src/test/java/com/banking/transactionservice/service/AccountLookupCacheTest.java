@@ -0,0 +1,70 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.dto.AccountDto;
+import com.banking.transactionservice.exception.AccountNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AccountLookupCacheTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    @Test
+    void cachesFoundAndNotFoundButNotErrors() throws InterruptedException {
+        UUID known = UUID.randomUUID();
+        UUID unknown = UUID.randomUUID();
+        UUID flaky = UUID.randomUUID();
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger flakyCalls = new AtomicInteger();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AccountLookupCache cache = new AccountLookupCache(id -> {
+            calls.incrementAndGet();
+            if (id.equals(unknown)) {
+                return Mono.error(new AccountNotFoundException("Account not found"));
+            }
+            if (id.equals(flaky) && flakyCalls.incrementAndGet() == 1) {
+                return Mono.error(new RuntimeException("Internal server error in account service"));
+            }
+            return Mono.just(account(id));
+        }, 100, Duration.ofMinutes(1), Duration.ofMillis(200), meterRegistry);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(known, cache.lookup(known).block(WAIT).getAccountId());
+            assertThrows(AccountNotFoundException.class, () -> cache.lookup(unknown).block(WAIT));
+        }
+        assertEquals(2, calls.get());
+
+        // The error reaches its caller only; the next lookup asks again and is cached
+        assertThrows(RuntimeException.class, () -> cache.lookup(flaky).block(WAIT));
+        assertEquals(flaky, cache.lookup(flaky).block(WAIT).getAccountId());
+        assertEquals(flaky, cache.lookup(flaky).block(WAIT).getAccountId());
+        assertEquals(4, calls.get());
+
+        // Not-found expires sooner than found
+        Thread.sleep(300);
+        assertThrows(AccountNotFoundException.class, () -> cache.lookup(unknown).block(WAIT));
+        cache.lookup(known).block(WAIT);
+        assertEquals(5, calls.get());
+
+        cache.evict(List.of(known));
+        cache.lookup(known).block(WAIT);
+        assertEquals(6, calls.get());
+
+        assertEquals(6.0, meterRegistry.get("cache.gets").tag("cache", "transactions.accounts")
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    private AccountDto account(UUID id) {
+        return new AccountDto(id, "ACC", "CHECKING", new BigDecimal("100.00"), "ACTIVE", null, null);
+    }
+}
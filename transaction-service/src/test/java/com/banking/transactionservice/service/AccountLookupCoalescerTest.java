@@ -0,0 +1,63 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.dto.AccountDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AccountLookupCoalescerTest {
+
+    @Test
+    void concurrentLookupsOfOneAccountShareOneCall() {
+        AtomicInteger calls = new AtomicInteger();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AccountLookupCoalescer coalescer = new AccountLookupCoalescer(id -> {
+            calls.incrementAndGet();
+            return Mono.just(account(id)).delayElement(Duration.ofMillis(50));
+        }, meterRegistry);
+
+        UUID popular = UUID.randomUUID();
+        List<AccountDto> accounts = Flux.range(0, 100)
+                .flatMap(i -> coalescer.lookup(popular))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(100, accounts.size());
+        assertEquals(1, calls.get());
+        assertEquals(1.0, meterRegistry.get("account.lookup.single-flight").tag("outcome", "issued").counter().count());
+        assertEquals(99.0, meterRegistry.get("account.lookup.single-flight").tag("outcome", "coalesced").counter().count());
+        assertEquals(0, coalescer.inFlight());
+
+        // Completed lookups are not reused
+        coalescer.lookup(popular).block(Duration.ofSeconds(5));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void failureIsNotKeptForLaterCallers() {
+        AtomicInteger calls = new AtomicInteger();
+        AccountLookupCoalescer coalescer = new AccountLookupCoalescer(id -> calls.incrementAndGet() == 1
+                ? Mono.<AccountDto>error(new RuntimeException("Account service unavailable")).delaySubscription(Duration.ofMillis(20))
+                : Mono.just(account(id)), new SimpleMeterRegistry());
+
+        UUID accountId = UUID.randomUUID();
+        assertThrows(RuntimeException.class, () -> coalescer.lookup(accountId).block(Duration.ofSeconds(5)));
+        assertEquals(0, coalescer.inFlight());
+        assertEquals(accountId, coalescer.lookup(accountId).block(Duration.ofSeconds(5)).getAccountId());
+        assertEquals(2, calls.get());
+    }
+
+    private AccountDto account(UUID id) {
+        return new AccountDto(id, "ACC", "CHECKING", new BigDecimal("100.00"), "ACTIVE", null, null);
+    }
+}
@@ -0,0 +1,114 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.dto.AccountDto;
+import com.banking.transactionservice.dto.BalanceChangedEventDto;
+import com.banking.transactionservice.dto.TransactionInitiationDto;
+import com.banking.transactionservice.exception.InvalidAccountException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "banking.accounts.replica.enabled=true",
+        "banking.accounts.replica.snapshot-page-size=2",
+        "banking.accounts.replica.idle-event-interval-ms=200"
+})
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 2, topics = "account-balance-events")
+class AccountReplicaTest {
+
+    // Ordered so that the snapshot pages are (first, second), (third)
+    private static final UUID FIRST = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SECOND = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final UUID THIRD = UUID.fromString("00000000-0000-0000-0000-000000000003");
+
+    @Autowired
+    private AccountReplica accountReplica;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private ExternalServiceClient externalServiceClient;
+
+    @Test
+    void followsSnapshotThenEventsAndAnswersInitiationLocally() throws Exception {
+        // The bootstrap started with the context retries until these are in place
+        when(externalServiceClient.getAccountSnapshot(isNull(), eq(2))).thenReturn(Mono.just(List.of(
+                account(FIRST, "100.00", "ACTIVE"), account(SECOND, "50.00", "ACTIVE"))));
+        when(externalServiceClient.getAccountSnapshot(eq(SECOND), eq(2))).thenReturn(Mono.just(List.of(
+                account(THIRD, "0.00", "ACTIVE"))));
+
+        await(() -> accountReplica.find(THIRD) != null);
+        assertEquals(0, new BigDecimal("100.00").compareTo(accountReplica.find(FIRST).getBalance()));
+        assertNull(accountReplica.find(UUID.randomUUID()));
+
+        // A newer event, an older one arriving late, and an inactivation
+        send(new BalanceChangedEventDto(7, FIRST, "DEBIT", new BigDecimal("-60.00"), new BigDecimal("40.00"),
+                "ACTIVE", UUID.randomUUID(), LocalDateTime.now()));
+        send(new BalanceChangedEventDto(5, FIRST, "CREDIT", new BigDecimal("900.00"), new BigDecimal("999.00"),
+                "ACTIVE", UUID.randomUUID(), LocalDateTime.now()));
+        send(new BalanceChangedEventDto(8, SECOND, "STATUS", BigDecimal.ZERO, new BigDecimal("50.00"),
+                "INACTIVE", null, LocalDateTime.now()));
+        kafkaTemplate.flush();
+
+        await(() -> accountReplica.find(SECOND) != null && "INACTIVE".equals(accountReplica.find(SECOND).getStatus()));
+        assertEquals(0, new BigDecimal("40.00").compareTo(accountReplica.find(FIRST).getBalance()));
+        assertEquals(8L, accountReplica.describe().get("lastEventId"));
+
+        // Initiation checks run against the replica only
+        transactionService.initiateTransaction(new TransactionInitiationDto(
+                FIRST, THIRD, new BigDecimal("10.00"), "replica")).block(Duration.ofSeconds(5));
+        assertThrows(InvalidAccountException.class, () -> transactionService.initiateTransaction(
+                new TransactionInitiationDto(SECOND, THIRD, new BigDecimal("10.00"), "inactive")).block(Duration.ofSeconds(5)));
+        verify(externalServiceClient, never()).getAccountById(any());
+        assertTrue((Boolean) accountReplica.describe().get("serving"));
+    }
+
+    private void send(BalanceChangedEventDto event) throws Exception {
+        kafkaTemplate.send("account-balance-events", event.getAccountId().toString(), objectMapper.writeValueAsString(event));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 60 s");
+            Thread.sleep(50);
+        }
+    }
+
+    private static AccountDto account(UUID id, String balance, String status) {
+        return new AccountDto(id, "ACC", "CHECKING", new BigDecimal(balance), status, null, null);
+    }
+}
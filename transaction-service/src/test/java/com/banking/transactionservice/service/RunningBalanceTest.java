@@ -0,0 +1,203 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.dto.AccountDto;
+import com.banking.transactionservice.dto.TransactionHistoryDto;
+import com.banking.transactionservice.model.Transaction;
+import com.banking.transactionservice.repository.AccountActivityRepository;
+import com.banking.transactionservice.repository.BalanceCheckpointRepository;
+import com.banking.transactionservice.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class RunningBalanceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final BigDecimal OPENING = new BigDecimal("1000.00");
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountActivityRepository accountActivityRepository;
+
+    @Autowired
+    private BalanceCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void everyPageMatchesTheBalancesReplayedFromTheStart() {
+        UUID account = UUID.randomUUID();
+        Map<UUID, BigDecimal> expected = new HashMap<>();
+        ExternalServiceClient client = mock(ExternalServiceClient.class);
+        anchorOn(client, account, saveHistory(account, expected));
+        RunningBalanceService runningBalances = new RunningBalanceService(
+                accountActivityRepository, checkpointRepository, transactionRepository, client, transactionManager, 10, 2000);
+        TransactionService transactionService = new TransactionService(client, accountActivityRepository,
+                mock(TransactionStore.class), runningBalances, 1000, "test");
+
+        // First pass: anchored on the current balance, storing checkpoints on the way down
+        assertEquals(40, readAll(transactionService, account, expected));
+        assertTrue(checkpointRepository.count() > 0);
+
+        // Second pass: every page starts from a checkpoint
+        assertEquals(40, readAll(transactionService, account, expected));
+        // Only the first two pages, before the first checkpoint was stored, needed the current balance
+        verify(client, times(2)).getCurrentAccount(account);
+    }
+
+    @Test
+    void pagesReadDuringARebuildStoreNoCheckpoints() throws Exception {
+        UUID account = UUID.randomUUID();
+        Map<UUID, BigDecimal> expected = new HashMap<>();
+        ExternalServiceClient client = mock(ExternalServiceClient.class);
+        anchorOn(client, account, saveHistory(account, expected));
+        RunningBalanceService runningBalances = new RunningBalanceService(
+                accountActivityRepository, checkpointRepository, transactionRepository, client, transactionManager, 10, 2000);
+        TransactionService transactionService = new TransactionService(client, accountActivityRepository,
+                mock(TransactionStore.class), runningBalances, 1000, "test");
+
+        CountDownLatch rebuilding = new CountDownLatch(1);
+        CountDownLatch pagesRead = new CountDownLatch(1);
+        ExecutorService rebuild = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> done = rebuild.submit(() -> runningBalances.withCheckpointWritesHeld(() -> {
+                rebuilding.countDown();
+                return await(pagesRead);
+            }));
+            assertTrue(rebuilding.await(10, TimeUnit.SECONDS));
+            // Balances are still filled in, from the current balance every time
+            assertEquals(40, readAll(transactionService, account, expected));
+            pagesRead.countDown();
+            done.get(10, TimeUnit.SECONDS);
+        } finally {
+            rebuild.shutdown();
+        }
+        assertEquals(0, checkpointsOf(account));
+    }
+
+    @Test
+    void pagesOfAnAccountWithATransferInFlightStoreNoCheckpoints() {
+        UUID account = UUID.randomUUID();
+        Map<UUID, BigDecimal> expected = new HashMap<>();
+        ExternalServiceClient client = mock(ExternalServiceClient.class);
+        anchorOn(client, account, saveHistory(account, expected));
+        // Claimed and at account-service: the current balance may already include it, the projection not yet
+        Transaction executing = new Transaction();
+        executing.setFromAccountId(account);
+        executing.setToAccountId(UUID.randomUUID());
+        executing.setAmount(new BigDecimal("5.00"));
+        executing.setStatus(Transaction.TransactionStatus.EXECUTING);
+        executing.setClaimedBy("test");
+        executing.setClaimedAt(LocalDateTime.now());
+        transactionRepository.saveAndFlush(executing);
+        RunningBalanceService runningBalances = new RunningBalanceService(
+                accountActivityRepository, checkpointRepository, transactionRepository, client, transactionManager, 10, 2000);
+        TransactionService transactionService = new TransactionService(client, accountActivityRepository,
+                mock(TransactionStore.class), runningBalances, 1000, "test");
+
+        assertEquals(40, readAll(transactionService, account, expected));
+        assertEquals(0, checkpointsOf(account));
+    }
+
+    // Oldest first: the balance after each transaction, replayed from the opening balance; returns the last
+    private BigDecimal saveHistory(UUID account, Map<UUID, BigDecimal> expected) {
+        UUID other = UUID.randomUUID();
+        BigDecimal balance = OPENING;
+        for (int i = 0; i < 40; i++) {
+            boolean outgoing = i % 3 == 0;
+            BigDecimal amount = new BigDecimal(i + 1 + ".25");
+            UUID id = save(outgoing ? account : other, outgoing ? other : account, amount, START.plusMinutes(i));
+            balance = outgoing ? balance.subtract(amount) : balance.add(amount);
+            expected.put(id, balance);
+        }
+        return balance;
+    }
+
+    // Checkpoints are stored in their own transactions, so other tests' are there too
+    private long checkpointsOf(UUID account) {
+        return checkpointRepository.findAll().stream().filter(c -> c.getAccountId().equals(account)).count();
+    }
+
+    private static void anchorOn(ExternalServiceClient client, UUID account, BigDecimal balance) {
+        AccountDto current = new AccountDto();
+        current.setBalance(balance);
+        when(client.getCurrentAccount(account)).thenReturn(Mono.just(current));
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private int readAll(TransactionService transactionService, UUID account, Map<UUID, BigDecimal> expected) {
+        int read = 0;
+        List<TransactionHistoryDto> page = transactionService.getTransactionHistory(account, null, null, null, null, 7);
+        for (int pages = 0; !page.isEmpty() && pages < 10; pages++) {
+            for (TransactionHistoryDto item : page) {
+                assertEquals(0, expected.get(item.getTransactionId()).compareTo(item.getRunningBalance()),
+                        "balance after " + item.getTimestamp());
+            }
+            read += page.size();
+            TransactionHistoryDto last = page.get(page.size() - 1);
+            page = transactionService.getTransactionHistory(account, last.getTimestamp(), last.getTransactionId(), null, null, 7);
+        }
+        return read;
+    }
+
+    private UUID save(UUID from, UUID to, BigDecimal amount, LocalDateTime at) {
+        Transaction transaction = new Transaction();
+        transaction.setFromAccountId(from);
+        transaction.setToAccountId(to);
+        transaction.setAmount(amount);
+        transaction.setStatus(Transaction.TransactionStatus.SUCCESS);
+        UUID id = transactionRepository.saveAndFlush(transaction).getTransactionId();
+        // @PrePersist stamps the current time; drop the managed copy so queries see the stored one
+        jdbcTemplate.update("UPDATE transactions SET timestamp = ? WHERE id = ?", at, id);
+        // Appended one at a time, as on SUCCESS
+        accountActivityRepository.insertLegs(List.of(id), Transaction.TransactionStatus.SUCCESS.ordinal());
+        entityManager.clear();
+        return id;
+    }
+}
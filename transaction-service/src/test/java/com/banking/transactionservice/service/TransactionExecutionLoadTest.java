@@ -0,0 +1,98 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.dto.AccountDto;
+import com.banking.transactionservice.dto.TransactionInitiationDto;
+import com.banking.transactionservice.dto.TransactionResponseDto;
+import com.banking.transactionservice.dto.TransferResultDto;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// Many initiations and executions in flight at once on the R2DBC store, each waiting on a slow
+// account-service; none of them may hold a thread while it waits
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionExecutionLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionExecutionLoadTest.class);
+
+    private static final int TRANSFERS = 1_000;
+    private static final Duration ACCOUNT_SERVICE_LATENCY = Duration.ofMillis(200);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionStore transactionStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private ExternalServiceClient externalServiceClient;
+
+    @Test
+    void keepsMoreTransfersInFlightThanThereAreThreads() {
+        assertInstanceOf(R2dbcTransactionStore.class, transactionStore);
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Set<String> storeThreads = ConcurrentHashMap.newKeySet();
+        when(externalServiceClient.getAccountById(any())).thenAnswer(call -> slow(inFlight, peak,
+                new AccountDto(call.getArgument(0), "ACC", "CHECKING", new BigDecimal("1000.00"), "ACTIVE", null, null)));
+        when(externalServiceClient.executeTransfer(any(), any(), any())).thenAnswer(call -> slow(inFlight, peak,
+                new TransferResultDto(TransferResultDto.Code.SUCCESS, null, call.getArgument(0), call.getArgument(1),
+                        call.getArgument(2), BigDecimal.ZERO, BigDecimal.ZERO)));
+
+        long started = System.nanoTime();
+        List<TransactionResponseDto> executed = Flux.range(0, TRANSFERS)
+                .flatMap(i -> transactionService.initiateTransaction(
+                                new TransactionInitiationDto(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("1.00"), "load"))
+                        .doOnNext(response -> storeThreads.add(Thread.currentThread().getName()))
+                        .flatMap(initiated -> transactionService.executeTransaction(initiated.getTransactionId())),
+                        TRANSFERS)
+                .collectList()
+                .block(Duration.ofSeconds(60));
+        double seconds = (System.nanoTime() - started) / 1e9;
+        logger.info("R2DBC store: {} transfers in {} s ({}/s), peak {} downstream calls in flight, {} store threads",
+                TRANSFERS, String.format("%.2f", seconds), Math.round(TRANSFERS / seconds), peak.get(), storeThreads.size());
+
+        assertEquals(TRANSFERS, executed.size());
+        assertTrue(executed.stream().allMatch(response -> "Success".equals(response.getStatus())));
+        assertEquals(TRANSFERS, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE description = 'load' AND status = 1", Integer.class));
+        // With JPA every waiting call would need one of these threads (and a pooled connection)
+        assertTrue(peak.get() > Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE,
+                "peak " + peak.get() + " <= " + Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE);
+        assertTrue(storeThreads.stream().noneMatch(name -> name.startsWith("boundedElastic")));
+    }
+
+    private static <T> Mono<T> slow(AtomicInteger inFlight, AtomicInteger peak, T value) {
+        return Mono.delay(ACCOUNT_SERVICE_LATENCY)
+                .doOnSubscribe(subscription -> peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .thenReturn(value);
+    }
+}
@@ -0,0 +1,180 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.dto.AccountDto;
+import com.banking.transactionservice.dto.TransactionInitiationDto;
+import com.banking.transactionservice.dto.TransactionStatusDto;
+import com.banking.transactionservice.dto.TransferResultDto;
+import com.banking.transactionservice.exception.InvalidTransactionException;
+import com.banking.transactionservice.model.Transaction;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "banking.transactions.execution-queue.enabled=true",
+        "banking.transactions.execution-queue.concurrency=8",
+        "banking.transactions.execution-queue.poll-interval-ms=20"
+})
+@ActiveProfiles("test")
+class TransactionExecutionQueueTest {
+
+    private static final int TRANSFERS = 50;
+    private static final BigDecimal REJECTED_AMOUNT = new BigDecimal("999.00");
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionExecutionQueue transactionExecutionQueue;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionStore transactionStore;
+
+    @Autowired
+    private ExecutionClaimSweeper executionClaimSweeper;
+
+    @MockitoBean
+    private ExternalServiceClient externalServiceClient;
+
+    @Test
+    void acceptsAtOnceAndSettlesEveryQueuedTransaction() {
+        when(externalServiceClient.getAccountById(any())).thenAnswer(call -> Mono.just(
+                new AccountDto(call.getArgument(0), "ACC", "CHECKING", new BigDecimal("1000.00"), "ACTIVE", null, null)));
+        when(externalServiceClient.executeTransfer(any(), any(), any())).thenAnswer(call -> Mono.just(
+                new TransferResultDto(TransferResultDto.Code.SUCCESS, null, call.getArgument(0), call.getArgument(1),
+                        call.getArgument(2), BigDecimal.ZERO, BigDecimal.ZERO)).delayElement(Duration.ofMillis(50)));
+        when(externalServiceClient.executeTransfer(any(), any(), eq(REJECTED_AMOUNT))).thenReturn(Mono.just(
+                new TransferResultDto(TransferResultDto.Code.INSUFFICIENT_FUNDS, "Insufficient funds", null, null,
+                        REJECTED_AMOUNT, null, null)));
+
+        List<UUID> ids = Flux.range(0, TRANSFERS)
+                .concatMap(i -> transactionService.initiateTransaction(new TransactionInitiationDto(
+                        UUID.randomUUID(), UUID.randomUUID(), i == 0 ? REJECTED_AMOUNT : new BigDecimal("1.00"), "queued")))
+                .map(response -> response.getTransactionId())
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        List<TransactionStatusDto> accepted = Flux.fromIterable(ids)
+                .concatMap(transactionExecutionQueue::enqueue)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+        assertTrue(accepted.stream().allMatch(status -> "QUEUED".equals(status.getStatus())));
+        // A second request for the same transaction is refused, not queued twice
+        assertThrows(InvalidTransactionException.class,
+                () -> transactionExecutionQueue.enqueue(ids.get(1)).block(Duration.ofSeconds(5)));
+
+        // The stream ends with the settled status
+        List<TransactionStatusDto> events = transactionExecutionQueue.statusStream(ids.get(TRANSFERS - 1))
+                .collectList()
+                .block(Duration.ofSeconds(30));
+        assertEquals("SUCCESS", events.get(events.size() - 1).getStatus());
+
+        List<String> settled = Flux.fromIterable(ids)
+                .concatMap(id -> transactionExecutionQueue.statusStream(id).last())
+                .map(TransactionStatusDto::getStatus)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+        assertEquals("FAILED", settled.get(0));
+        assertTrue(settled.subList(1, TRANSFERS).stream().allMatch("SUCCESS"::equals));
+        assertEquals(TRANSFERS, (long) meterRegistry.get("transactions.execution.queue.drain").timer().count());
+        assertEquals(TRANSFERS - 1, (long) meterRegistry.get("transactions.execution.completed")
+                .tag("status", "SUCCESS").counter().count());
+
+        // Both legs of every successful transfer are in the history projection, none of the failed one
+        for (int i = 0; i < TRANSFERS; i++) {
+            assertEquals(i == 0 ? 0 : 2, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM account_activity WHERE transaction_id = ?", Integer.class, ids.get(i)));
+        }
+    }
+
+    @Test
+    void concurrentSynchronousExecutionsTransferOnce() {
+        UUID from = UUID.randomUUID();
+        UUID to = UUID.randomUUID();
+        when(externalServiceClient.getAccountById(any())).thenAnswer(call -> Mono.just(
+                new AccountDto(call.getArgument(0), "ACC", "CHECKING", new BigDecimal("1000.00"), "ACTIVE", null, null)));
+        when(externalServiceClient.executeTransfer(eq(from), eq(to), any())).thenAnswer(call -> Mono.just(
+                new TransferResultDto(TransferResultDto.Code.SUCCESS, null, from, to,
+                        call.getArgument(2), BigDecimal.ZERO, BigDecimal.ZERO)).delayElement(Duration.ofMillis(100)));
+
+        UUID id = transactionService.initiateTransaction(new TransactionInitiationDto(from, to, new BigDecimal("1.00"), "twice"))
+                .block(Duration.ofSeconds(5))
+                .getTransactionId();
+        List<String> outcomes = Flux.range(0, 4)
+                .flatMap(i -> transactionService.executeTransaction(id)
+                        .map(response -> "executed")
+                        .onErrorResume(InvalidTransactionException.class, e -> Mono.just("refused")))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(1, outcomes.stream().filter("executed"::equals).count());
+        verify(externalServiceClient, times(1)).executeTransfer(eq(from), eq(to), any());
+        assertEquals("SUCCESS", transactionService.getTransactionStatus(id).block(Duration.ofSeconds(5)).getStatus());
+    }
+
+    @Test
+    void transferThatDoesNotReachAccountServiceGoesBackToInitiated() {
+        UUID from = UUID.randomUUID();
+        UUID to = UUID.randomUUID();
+        when(externalServiceClient.getAccountById(any())).thenAnswer(call -> Mono.just(
+                new AccountDto(call.getArgument(0), "ACC", "CHECKING", new BigDecimal("1000.00"), "ACTIVE", null, null)));
+        when(externalServiceClient.executeTransfer(eq(from), eq(to), any()))
+                .thenReturn(Mono.error(new IllegalStateException("connection refused")));
+
+        UUID id = transactionService.initiateTransaction(new TransactionInitiationDto(from, to, new BigDecimal("1.00"), "unreachable"))
+                .block(Duration.ofSeconds(5))
+                .getTransactionId();
+        assertThrows(IllegalStateException.class, () -> transactionService.executeTransaction(id).block(Duration.ofSeconds(5)));
+
+        assertEquals("INITIATED", transactionService.getTransactionStatus(id).block(Duration.ofSeconds(5)).getStatus());
+    }
+
+    @Test
+    void onlyExpiredClaimsAreReleased() {
+        when(externalServiceClient.getAccountById(any())).thenAnswer(call -> Mono.just(
+                new AccountDto(call.getArgument(0), "ACC", "CHECKING", new BigDecimal("1000.00"), "ACTIVE", null, null)));
+        List<UUID> ids = Flux.range(0, 2)
+                .concatMap(i -> transactionService.initiateTransaction(new TransactionInitiationDto(
+                        UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("1.00"), "claimed")))
+                .map(response -> response.getTransactionId())
+                .collectList()
+                .block(Duration.ofSeconds(10));
+        // One claimed by an instance that stopped an hour ago, one by an instance that is still at it
+        transactionStore.claim(ids.get(0), Transaction.TransactionStatus.INITIATED, "crashed",
+                LocalDateTime.now().minusHours(1)).block(Duration.ofSeconds(5));
+        transactionStore.claim(ids.get(1), Transaction.TransactionStatus.INITIATED, "running",
+                LocalDateTime.now()).block(Duration.ofSeconds(5));
+
+        executionClaimSweeper.releaseExpired().block(Duration.ofSeconds(5));
+
+        assertEquals("INITIATED", transactionService.getTransactionStatus(ids.get(0)).block(Duration.ofSeconds(5)).getStatus());
+        assertEquals("EXECUTING", transactionService.getTransactionStatus(ids.get(1)).block(Duration.ofSeconds(5)).getStatus());
+    }
+}
@@ -0,0 +1,152 @@
+package com.banking.transactionservice.service;
+
+import com.banking.transactionservice.dto.TransactionHistoryDto;
+import com.banking.transactionservice.model.Transaction;
+import com.banking.transactionservice.model.BalanceCheckpoint;
+import com.banking.transactionservice.repository.AccountActivityRepository;
+import com.banking.transactionservice.repository.BalanceCheckpointRepository;
+import com.banking.transactionservice.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class TransactionHistoryPagingTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountActivityRepository accountActivityRepository;
+
+    @Autowired
+    private BalanceCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private TransactionService transactionService;
+
+    // Small batches so the rebuild takes several
+    private AccountActivityService accountActivityService;
+
+    @BeforeEach
+    void setUp() {
+        transactionService = new TransactionService(mock(ExternalServiceClient.class), accountActivityRepository,
+                mock(TransactionStore.class), mock(RunningBalanceService.class), 1000, "test");
+        RunningBalanceService runningBalances = new RunningBalanceService(accountActivityRepository, checkpointRepository,
+                transactionRepository, mock(ExternalServiceClient.class), transactionManager, 500, 2000);
+        accountActivityService = new AccountActivityService(
+                transactionRepository, accountActivityRepository, runningBalances, transactionManager, 7, false);
+    }
+
+    @Test
+    void pagesThroughBothSidesNewestFirst() {
+        UUID account = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        List<UUID> expected = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            // Outgoing and incoming alternate; every third pair shares a timestamp to exercise the id tie-break
+            LocalDateTime at = START.plusMinutes(i / 3 * 3L);
+            boolean outgoing = i % 2 == 0;
+            expected.add(save(outgoing ? account : other, outgoing ? other : account, at, Transaction.TransactionStatus.SUCCESS));
+        }
+        // Not part of the history
+        save(account, other, START.plusMinutes(1), Transaction.TransactionStatus.FAILED);
+        save(other, UUID.randomUUID(), START.plusMinutes(1), Transaction.TransactionStatus.SUCCESS);
+        // Two legs per successful transaction, this test's and any committed by other tests
+        assertTrue(accountActivityService.rebuild() >= 2 * 26);
+
+        List<TransactionHistoryDto> all = new ArrayList<>();
+        List<TransactionHistoryDto> page = transactionService.getTransactionHistory(account, null, null, null, null, 10);
+        for (int pages = 0; !page.isEmpty() && pages < 10; pages++) {
+            assertTrue(page.size() <= 10);
+            all.addAll(page);
+            TransactionHistoryDto last = page.get(page.size() - 1);
+            page = transactionService.getTransactionHistory(account, last.getTimestamp(), last.getTransactionId(), null, null, 10);
+        }
+
+        assertEquals(expected.size(), all.size());
+        assertEquals(expected.size(), all.stream().map(TransactionHistoryDto::getTransactionId).distinct().count());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(!all.get(i).getTimestamp().isAfter(all.get(i - 1).getTimestamp()));
+        }
+        // Outgoing items are debits
+        assertEquals(13, all.stream().filter(tx -> tx.getAmount().signum() < 0).count());
+    }
+
+    @Test
+    void appliesDateRange() {
+        UUID account = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        for (int i = 0; i < 10; i++) {
+            save(account, other, START.plusDays(i), Transaction.TransactionStatus.SUCCESS);
+        }
+        accountActivityService.rebuild();
+
+        // from inclusive, to exclusive: days 3..6
+        List<TransactionHistoryDto> range = transactionService.getTransactionHistory(
+                account, null, null, START.plusDays(3), START.plusDays(7), 100);
+        assertEquals(4, range.size());
+        assertEquals(START.plusDays(6), range.get(0).getTimestamp());
+        assertEquals(START.plusDays(3), range.get(3).getTimestamp());
+
+        // A cursor inside the range continues from there
+        TransactionHistoryDto second = range.get(1);
+        List<TransactionHistoryDto> rest = transactionService.getTransactionHistory(
+                account, second.getTimestamp(), second.getTransactionId(), START.plusDays(3), START.plusDays(7), 100);
+        assertEquals(2, rest.size());
+        assertTrue(transactionService.getTransactionHistory(
+                account, null, null, START.plusDays(20), null, 100).isEmpty());
+    }
+
+    @Test
+    void rebuildDropsTheCheckpoints() {
+        UUID account = UUID.randomUUID();
+        UUID id = save(account, UUID.randomUUID(), START, Transaction.TransactionStatus.SUCCESS);
+        checkpointRepository.saveAndFlush(new BalanceCheckpoint(account, START, id, new BigDecimal("90.00")));
+
+        accountActivityService.rebuild();
+
+        assertEquals(0, checkpointRepository.count());
+    }
+
+    private UUID save(UUID from, UUID to, LocalDateTime at, Transaction.TransactionStatus status) {
+        Transaction transaction = new Transaction();
+        transaction.setFromAccountId(from);
+        transaction.setToAccountId(to);
+        transaction.setAmount(new BigDecimal("10.00"));
+        transaction.setStatus(status);
+        UUID id = transactionRepository.saveAndFlush(transaction).getTransactionId();
+        // @PrePersist stamps the current time; drop the managed copy so queries see the stored one
+        jdbcTemplate.update("UPDATE transactions SET timestamp = ? WHERE id = ?", at, id);
+        entityManager.clear();
+        return id;
+    }
+}